@@ -19,6 +19,7 @@ package org.apache.seatunnel.spark
 import org.apache.seatunnel.common.config.CheckResult
 import org.apache.seatunnel.config.{Config, ConfigFactory}
 import org.apache.seatunnel.env.RuntimeEnv
+import org.apache.seatunnel.spark.batch.ConcurrentSinkRunner
 import org.apache.spark.SparkConf
 import org.apache.spark.sql.SparkSession
 import org.apache.spark.streaming.{Seconds, StreamingContext}
@@ -54,6 +55,11 @@ class SparkEnvironment extends RuntimeEnv {
         sparkConf.set(entry.getKey, String.valueOf(entry.getValue.unwrapped()))
       })
 
+    // concurrent sinks share the cluster through one FAIR scheduler pool per sink
+    if (ConcurrentSinkRunner.getSinkParallelism(config) > 1 && !sparkConf.contains("spark.scheduler.mode")) {
+      sparkConf.set("spark.scheduler.mode", "FAIR")
+    }
+
     sparkConf
   }
 
@@ -0,0 +1,100 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.seatunnel.spark.batch
+
+import org.apache.seatunnel.config.Config
+import org.apache.seatunnel.spark.{BaseSparkSink, SparkEnvironment}
+import org.apache.spark.sql.{Dataset, Row}
+import org.slf4j.LoggerFactory
+
+import java.util.concurrent.atomic.AtomicInteger
+import java.util.concurrent.{Callable, ExecutionException, ExecutorCompletionService, ExecutorService, Executors, ThreadFactory}
+
+/**
+ * Runs the sinks of a job concurrently, each sink submits its jobs from its own thread into a
+ * dedicated FAIR scheduler pool, so the write time of a job is the one of its slowest sink.
+ */
+class ConcurrentSinkRunner(environment: SparkEnvironment, parallelism: Int) extends AutoCloseable {
+
+  private val LOGGER = LoggerFactory.getLogger(classOf[ConcurrentSinkRunner])
+
+  private val threadNumber = new AtomicInteger()
+
+  private val executor: ExecutorService = Executors.newFixedThreadPool(parallelism, new ThreadFactory {
+    override def newThread(r: Runnable): Thread = {
+      val thread = new Thread(r, "seatunnel-sink-" + threadNumber.getAndIncrement())
+      thread.setDaemon(true)
+      thread
+    }
+  })
+
+  /**
+   * Run all sinks and wait for them, the first failure cancels the remaining sinks and is rethrown.
+   */
+  def run(sinks: Seq[BaseSparkSink[_]], ds: Dataset[Row]): Unit = {
+    val sparkContext = environment.getSparkSession.sparkContext
+    val completionService = new ExecutorCompletionService[Unit](executor)
+    val jobGroupPrefix = "seatunnel-sink-" + System.nanoTime() + "-"
+
+    val futures = sinks.zipWithIndex.map { case (sink, i) =>
+      completionService.submit(new Callable[Unit] {
+        override def call(): Unit = {
+          sparkContext.setLocalProperty(ConcurrentSinkRunner.schedulerPool, ConcurrentSinkRunner.poolName(i))
+          sparkContext.setJobGroup(jobGroupPrefix + i, "sink[" + i + "] " + sink.getClass.getSimpleName)
+          try {
+            SparkBatchExecution.sinkProcess(environment, sink, ds)
+          } finally {
+            sparkContext.clearJobGroup()
+            sparkContext.setLocalProperty(ConcurrentSinkRunner.schedulerPool, null)
+          }
+        }
+      })
+    }
+
+    try {
+      for (_ <- futures.indices) {
+        completionService.take().get()
+      }
+    } catch {
+      case e: ExecutionException =>
+        LOGGER.error("sink failed, cancel the other running sinks", e.getCause)
+        futures.foreach(_.cancel(false))
+        sinks.indices.foreach(i => sparkContext.cancelJobGroup(jobGroupPrefix + i))
+        throw e.getCause
+    }
+  }
+
+  override def close(): Unit = {
+    executor.shutdownNow()
+  }
+}
+
+object ConcurrentSinkRunner {
+
+  /**
+   * Env option, number of sinks allowed to write at the same time, default 1 runs sinks one after another.
+   */
+  private[seatunnel] val sinkParallelism = "sink_parallelism"
+
+  private val schedulerPool = "spark.scheduler.pool"
+
+  private[seatunnel] def poolName(sinkIndex: Int): String = "seatunnel_sink_" + sinkIndex
+
+  private[seatunnel] def getSinkParallelism(envConfig: Config): Int = {
+    if (envConfig.hasPath(sinkParallelism)) envConfig.getInt(sinkParallelism) else 1
+  }
+}
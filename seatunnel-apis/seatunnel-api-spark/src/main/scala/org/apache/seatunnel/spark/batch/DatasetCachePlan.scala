@@ -0,0 +1,202 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.seatunnel.spark.batch
+
+import org.apache.seatunnel.common.config.ConfigRuntimeException
+import org.apache.seatunnel.config.Config
+import org.apache.spark.sql.{Dataset, Row}
+import org.apache.spark.storage.StorageLevel
+import org.slf4j.LoggerFactory
+
+import scala.collection.mutable
+
+/**
+ * Decides which datasets of a job are worth persisting and when they can be released.
+ *
+ * Every source and transform output is a node of the plugin graph. A transform or sink reads either
+ * the table named by its `source_table_name` or, without it, the output of the previous plugin.
+ * Nodes read by more than one consumer are persisted when they are produced, so their lineage is
+ * computed once, and unpersisted after the last sink depending on them has finished.
+ */
+class DatasetCachePlan private(
+  sourceCount: Int,
+  storageLevels: Map[Int, StorageLevel],
+  lastSinks: Map[Int, Int],
+  sharedSinkInputs: Set[Int]) {
+
+  private val LOGGER = LoggerFactory.getLogger(classOf[DatasetCachePlan])
+
+  private val persisted = mutable.Map[Int, Dataset[Row]]()
+
+  private val staticPersisted = mutable.Map[Int, Dataset[Row]]()
+
+  def cacheSource(index: Int, ds: Dataset[Row]): Dataset[Row] = cache(index, ds)
+
+  def cacheTransform(index: Int, ds: Dataset[Row]): Dataset[Row] = cache(sourceCount + index, ds)
+
+  /**
+   * Persist a source that lives as long as the job, it is never released by this plan.
+   */
+  def cacheStaticSource(index: Int, ds: Dataset[Row]): Dataset[Row] = {
+    storageLevels.get(index).foreach(level => {
+      LOGGER.info(s"persist static source[$index] with storage level [${level.description}]")
+      staticPersisted.put(index, ds.persist(level))
+    })
+    ds
+  }
+
+  /**
+   * Compute the persisted datasets read by several sinks up front, so that sinks running
+   * concurrently read them from the cache instead of each computing them again.
+   */
+  def materializeSinkInputs(): Unit = {
+    sharedSinkInputs.flatMap(node => persisted.get(node).orElse(staticPersisted.get(node))).foreach(_.count())
+  }
+
+  /**
+   * Release the datasets whose last depending sink is the given one.
+   */
+  def release(sinkIndex: Int): Unit = {
+    lastSinks.filter(_._2 == sinkIndex).keys.foreach(unpersist)
+  }
+
+  def releaseAll(): Unit = {
+    persisted.keys.toList.foreach(unpersist)
+  }
+
+  private def cache(node: Int, ds: Dataset[Row]): Dataset[Row] = {
+    storageLevels.get(node) match {
+      case Some(level) =>
+        persisted.put(node, ds.persist(level))
+        ds
+      case None => ds
+    }
+  }
+
+  private def unpersist(node: Int): Unit = {
+    persisted.remove(node).foreach(_.unpersist(blocking = false))
+  }
+}
+
+object DatasetCachePlan {
+
+  private val LOGGER = LoggerFactory.getLogger(classOf[DatasetCachePlan])
+
+  /**
+   * Env option, automatic persistence of fan-out tables, default true.
+   */
+  private[seatunnel] val autoCache = "auto_cache"
+
+  /**
+   * Env option, storage level used by automatic persistence, default MEMORY_AND_DISK.
+   */
+  private[seatunnel] val autoCacheStorageLevel = "auto_cache_storage_level"
+
+  /**
+   * Plugin option, storage level of the plugin's result table, it forces persistence of the table
+   * regardless of the number of consumers, `NONE` disables persistence of the table.
+   */
+  private[seatunnel] val cache = "cache"
+
+  def apply(envConfig: Config, sources: Seq[Config], transforms: Seq[Config], sinks: Seq[Config]): DatasetCachePlan = {
+
+    val enabled = !envConfig.hasPath(autoCache) || envConfig.getBoolean(autoCache)
+    // concurrent sinks would each compute a shared input, so it is always persisted
+    val concurrentSinks = ConcurrentSinkRunner.getSinkParallelism(envConfig) > 1
+    val defaultLevel = if (envConfig.hasPath(autoCacheStorageLevel)) {
+      parseStorageLevel(envConfig.getString(autoCacheStorageLevel))
+    } else {
+      StorageLevel.MEMORY_AND_DISK
+    }
+
+    val producers = sources ++ transforms
+    val tables = mutable.Map[String, Int]()
+    val parents = mutable.Map[Int, Int]()
+    val consumers = mutable.Map[Int, Int]().withDefaultValue(0)
+    val sinkConsumers = mutable.Map[Int, Int]().withDefaultValue(0)
+
+    def inputOf(config: Config, previous: Option[Int]): Option[Int] = {
+      if (config.hasPath(SparkBatchExecution.sourceTableName)) {
+        // tables not registered by this job, hive tables for example, are not part of the graph
+        tables.get(config.getString(SparkBatchExecution.sourceTableName))
+      } else {
+        previous
+      }
+    }
+
+    def register(config: Config, node: Int): Unit = {
+      if (config.hasPath(SparkBatchExecution.resultTableName)) {
+        tables.put(config.getString(SparkBatchExecution.resultTableName), node)
+      }
+    }
+
+    sources.zipWithIndex.foreach { case (config, i) => register(config, i) }
+
+    var previous: Option[Int] = if (sources.isEmpty) None else Some(0)
+    transforms.zipWithIndex.foreach { case (config, i) =>
+      val node = sources.size + i
+      inputOf(config, previous).foreach(input => {
+        parents.put(node, input)
+        consumers(input) += 1
+      })
+      register(config, node)
+      previous = Some(node)
+    }
+
+    val lastSinks = mutable.Map[Int, Int]()
+    sinks.zipWithIndex.foreach { case (config, i) =>
+      var input = inputOf(config, previous)
+      input.foreach(node => {
+        consumers(node) += 1
+        sinkConsumers(node) += 1
+      })
+      while (input.isDefined) {
+        lastSinks.put(input.get, i)
+        input = parents.get(input.get)
+      }
+    }
+
+    val storageLevels = producers.zipWithIndex.flatMap { case (config, node) =>
+      val level = if (config.hasPath(cache)) {
+        Some(parseStorageLevel(config.getString(cache)))
+      } else if ((enabled && consumers(node) > 1) || (concurrentSinks && sinkConsumers(node) > 1)) {
+        Some(defaultLevel)
+      } else {
+        None
+      }
+      level.filter(_ != StorageLevel.NONE).map(node -> _)
+    }.toMap
+
+    storageLevels.foreach { case (node, level) =>
+      LOGGER.info(s"plugin[$node] result with ${consumers(node)} consumers will be persisted " +
+        s"with storage level [${level.description}]")
+    }
+
+    val sharedSinkInputs = if (concurrentSinks) sinkConsumers.filter(_._2 > 1).keySet.toSet else Set[Int]()
+
+    new DatasetCachePlan(sources.size, storageLevels, lastSinks.toMap, sharedSinkInputs)
+  }
+
+  private def parseStorageLevel(level: String): StorageLevel = {
+    try {
+      StorageLevel.fromString(level.trim.toUpperCase)
+    } catch {
+      case e: IllegalArgumentException =>
+        throw new ConfigRuntimeException("invalid storage level [" + level + "]", e)
+    }
+  }
+}
@@ -40,26 +40,32 @@ class SparkBatchExecution(environment: SparkEnvironment)
 
   override def start(sources: JList[SparkBatchSource], transforms: JList[BaseSparkTransform], sinks: JList[SparkBatchSink]): Unit = {
 
-    sources.foreach(s => {
-      SparkBatchExecution.registerInputTempView(
-        s.asInstanceOf[BaseSparkSource[Dataset[Row]]],
-        environment)
-    })
-    if (!sources.isEmpty) {
-      var ds = sources.get(0).getData(environment)
-      for (tf <- transforms) {
-
-        if (ds.take(1).length > 0) {
-          ds = SparkBatchExecution.transformProcess(environment, tf, ds)
+    val cachePlan = DatasetCachePlan(
+      environment.getConfig,
+      sources.map(_.getConfig),
+      transforms.map(_.getConfig),
+      sinks.map(_.getConfig))
+
+    val datasets = sources.zipWithIndex.map { case (s, i) =>
+      cachePlan.cacheSource(
+        i,
+        SparkBatchExecution.registerInputTempView(
+          s.asInstanceOf[BaseSparkSource[Dataset[Row]]],
+          environment))
+    }
+
+    try {
+      if (!sources.isEmpty) {
+        var ds = datasets.head
+        for ((tf, i) <- transforms.zipWithIndex) {
+          ds = cachePlan.cacheTransform(i, SparkBatchExecution.transformProcess(environment, tf, ds))
           SparkBatchExecution.registerTransformTempView(tf, ds)
         }
-      }
 
-      // if (ds.take(1).length > 0) {
-      sinks.foreach(sink => {
-        SparkBatchExecution.sinkProcess(environment, sink, ds)
-      })
-      // }
+        SparkBatchExecution.sinksProcess(environment, sinks, ds, cachePlan)
+      }
+    } finally {
+      cachePlan.releaseAll()
     }
   }
 
@@ -74,12 +80,14 @@ object SparkBatchExecution {
     ds.createOrReplaceTempView(tableName)
   }
 
-  private[seatunnel] def registerInputTempView(source: BaseSparkSource[Dataset[Row]], environment: SparkEnvironment): Unit = {
+  private[seatunnel] def registerInputTempView(source: BaseSparkSource[Dataset[Row]], environment: SparkEnvironment): Dataset[Row] = {
     val conf = source.getConfig
     conf.hasPath(SparkBatchExecution.resultTableName) match {
       case true =>
         val tableName = conf.getString(SparkBatchExecution.resultTableName)
-        registerTempView(tableName, source.getData(environment))
+        val ds = source.getData(environment)
+        registerTempView(tableName, ds)
+        ds
       case false =>
         throw new ConfigRuntimeException(
           "Plugin[" + source.getClass.getName + "] must be registered as dataset/table, please set \"result_table_name\" config")
@@ -87,13 +95,7 @@ object SparkBatchExecution {
   }
 
   private[seatunnel] def transformProcess(environment: SparkEnvironment, transform: BaseSparkTransform, ds: Dataset[Row]): Dataset[Row] = {
-    val config = transform.getConfig()
-    val fromDs = config.hasPath(SparkBatchExecution.sourceTableName) match {
-      case true =>
-        val sourceTableName = config.getString(SparkBatchExecution.sourceTableName)
-        environment.getSparkSession.read.table(sourceTableName)
-      case false => ds
-    }
+    val fromDs = inputDataset(environment, transform.getConfig(), ds)
 
     transform.process(fromDs, environment)
   }
@@ -106,15 +108,46 @@ object SparkBatchExecution {
     }
   }
 
+  /**
+   * Run the sinks one after another, or concurrently when `sink_parallelism` is greater than 1.
+   */
+  private[seatunnel] def sinksProcess(
+    environment: SparkEnvironment,
+    sinks: Seq[BaseSparkSink[_]],
+    ds: Dataset[Row],
+    cachePlan: DatasetCachePlan): Unit = {
+    val parallelism = ConcurrentSinkRunner.getSinkParallelism(environment.getConfig)
+    if (parallelism > 1 && sinks.size > 1) {
+      cachePlan.materializeSinkInputs()
+      val runner = new ConcurrentSinkRunner(environment, Math.min(parallelism, sinks.size))
+      try {
+        runner.run(sinks, ds)
+      } finally {
+        runner.close()
+      }
+    } else {
+      for ((sink, i) <- sinks.zipWithIndex) {
+        sinkProcess(environment, sink, ds)
+        cachePlan.release(i)
+      }
+    }
+  }
+
   private[seatunnel] def sinkProcess(environment: SparkEnvironment, sink: BaseSparkSink[_], ds: Dataset[Row]): Unit = {
-    val config = sink.getConfig()
-    val fromDs = config.hasPath(SparkBatchExecution.sourceTableName) match {
+    val fromDs = inputDataset(environment, sink.getConfig(), ds)
+
+    sink.output(fromDs, environment)
+  }
+
+  /**
+   * The dataset a plugin reads, the table named by `source_table_name` or the output of the previous plugin.
+   */
+  private[seatunnel] def inputDataset(environment: SparkEnvironment, config: Config, ds: Dataset[Row]): Dataset[Row] = {
+    config.hasPath(SparkBatchExecution.sourceTableName) match {
       case true =>
         val sourceTableName = config.getString(SparkBatchExecution.sourceTableName)
         environment.getSparkSession.read.table(sourceTableName)
       case false => ds
     }
-
-    sink.output(fromDs, environment)
   }
 }
@@ -19,7 +19,7 @@ package org.apache.seatunnel.spark.stream
 import org.apache.seatunnel.common.config.CheckResult
 import org.apache.seatunnel.config.{Config, ConfigFactory}
 import org.apache.seatunnel.env.Execution
-import org.apache.seatunnel.spark.batch.SparkBatchExecution
+import org.apache.seatunnel.spark.batch.{DatasetCachePlan, SparkBatchExecution}
 import org.apache.seatunnel.spark.{BaseSparkSink, BaseSparkSource, BaseSparkTransform, SparkEnvironment}
 import org.apache.spark.sql.{Dataset, Row}
 
@@ -32,39 +32,55 @@ class SparkStreamingExecution(sparkEnvironment: SparkEnvironment)
   private var config = ConfigFactory.empty()
 
   override def start(sources: JList[BaseSparkSource[_]], transforms: JList[BaseSparkTransform], sinks: JList[BaseSparkSink[_]]): Unit = {
-    val source = sources.get(0).asInstanceOf[SparkStreamingSource[_]]
-
-    sources.subList(1, sources.size()).foreach(s => {
-      SparkBatchExecution.registerInputTempView(
-        s.asInstanceOf[BaseSparkSource[Dataset[Row]]],
-        sparkEnvironment)
-    })
-    source.start(
+    val (streamingSources, staticSources) = sources.zipWithIndex.partition(_._1.isInstanceOf[SparkStreamingSource[_]])
+
+    val cachePlan = DatasetCachePlan(
+      sparkEnvironment.getConfig,
+      sources.map(_.getConfig),
+      transforms.map(_.getConfig),
+      sinks.map(_.getConfig))
+
+    staticSources.foreach { case (s, i) =>
+      cachePlan.cacheStaticSource(
+        i,
+        SparkBatchExecution.registerInputTempView(
+          s.asInstanceOf[BaseSparkSource[Dataset[Row]]],
+          sparkEnvironment))
+    }
+
+    // every micro-batch of every streaming source is registered as its own temp view, the first
+    // streaming source is the input of the plugins without source_table_name
+    val streams = streamingSources.map(_._1.asInstanceOf[SparkStreamingSource[_]])
+    SparkStreamingSource.start(
       sparkEnvironment,
-      dataset => {
-        val conf = source.getConfig
-        if (conf.hasPath(SparkBatchExecution.resultTableName)) {
-          SparkBatchExecution.registerTempView(
-            conf.getString(SparkBatchExecution.resultTableName),
-            dataset)
+      streams,
+      datasets => {
+        val batches = streamingSources.zip(datasets).map { case ((source, i), dataset) =>
+          val conf = source.getConfig
+          val cached = cachePlan.cacheSource(i, dataset)
+          if (conf.hasPath(SparkBatchExecution.resultTableName)) {
+            SparkBatchExecution.registerTempView(
+              conf.getString(SparkBatchExecution.resultTableName),
+              cached)
+          }
+          cached
         }
-        var ds = dataset
-        for (tf <- transforms) {
-          if (ds.take(1).length > 0) {
-            ds = SparkBatchExecution.transformProcess(sparkEnvironment, tf, ds)
+        var ds = batches.head
+        try {
+          for ((tf, i) <- transforms.zipWithIndex) {
+            ds = cachePlan.cacheTransform(i, SparkBatchExecution.transformProcess(sparkEnvironment, tf, ds))
             SparkBatchExecution.registerTransformTempView(tf, ds)
           }
-        }
 
-        source.beforeOutput()
+          streams.foreach(_.beforeOutput())
 
-        if (ds.take(1).length > 0) {
-          sinks.foreach(sink => {
-            SparkBatchExecution.sinkProcess(sparkEnvironment, sink, ds)
-          })
-        }
+          SparkBatchExecution.sinksProcess(sparkEnvironment, sinks, ds, cachePlan)
 
-        source.afterOutput()
+          // offsets of all sources are committed only once every sink has written the batch
+          streams.foreach(_.afterOutput())
+        } finally {
+          cachePlan.releaseAll()
+        }
       })
 
     val streamingContext = sparkEnvironment.getStreamingContext
@@ -80,3 +96,12 @@ class SparkStreamingExecution(sparkEnvironment: SparkEnvironment)
 
   override def prepare(void: Void): Unit = {}
 }
+
+object SparkStreamingExecution {
+
+  /**
+   * When enabled, every micro-batch is persisted and checked once with `rdd.isEmpty`,
+   * empty batches are skipped without running transforms and sinks.
+   */
+  private[seatunnel] val skipEmptyBatches = "skip_empty_batches"
+}
@@ -16,9 +16,11 @@
  */
 package org.apache.seatunnel.spark.stream
 
+import org.apache.seatunnel.common.config.ConfigRuntimeException
 import org.apache.seatunnel.spark.{BaseSparkSource, SparkEnvironment}
 import org.apache.spark.rdd.RDD
 import org.apache.spark.sql.{Dataset, Row, SparkSession}
+import org.apache.spark.storage.StorageLevel
 import org.apache.spark.streaming.dstream.DStream
 
 trait SparkStreamingSource[T] extends BaseSparkSource[DStream[T]] {
@@ -30,10 +32,58 @@ trait SparkStreamingSource[T] extends BaseSparkSource[DStream[T]] {
   def rdd2dataset(sparkSession: SparkSession, rdd: RDD[T]): Dataset[Row]
 
   def start(env: SparkEnvironment, handler: Dataset[Row] => Unit): Unit = {
-    getData(env).foreachRDD(rdd => {
-      val dataset = rdd2dataset(env.getSparkSession, rdd)
-      handler(dataset)
+    SparkStreamingSource.start(env, Seq(this), datasets => handler(datasets.head))
+  }
+
+}
+
+object SparkStreamingSource {
+
+  /**
+   * Consume several streaming sources in one StreamingContext, `handler` receives the datasets of
+   * the same micro-batch of every source, in the order of `sources`. The sources must slide by the
+   * same duration, so that every batch time of the first one is a batch time of the other ones.
+   */
+  def start(env: SparkEnvironment, sources: Seq[SparkStreamingSource[_]], handler: Seq[Dataset[Row]] => Unit): Unit = {
+    val envConfig = env.getConfig
+    val skipEmptyBatches = envConfig.hasPath(SparkStreamingExecution.skipEmptyBatches) &&
+      envConfig.getBoolean(SparkStreamingExecution.skipEmptyBatches)
+
+    if (sources.isEmpty) {
+      throw new ConfigRuntimeException("streaming mode requires at least one streaming source")
+    }
+    val streams = sources.map(_.getData(env))
+    val slides = streams.map(_.slideDuration).distinct
+    if (slides.size > 1) {
+      val durations = sources.zip(streams).map { case (source, stream) =>
+        source.getClass.getSimpleName + ": " + stream.slideDuration
+      }
+      throw new ConfigRuntimeException(
+        s"the streaming sources must have the same slide duration, got [${durations.mkString(", ")}]")
+    }
+    // the other streams need an output operation to be part of the graph, their rdds of a batch
+    // are then generated together with the first one and read back with slice
+    streams.tail.foreach(_.foreachRDD(_ => {}))
+
+    streams.head.foreachRDD((rdd, time) => {
+      val rdds = rdd +: streams.tail.map(_.slice(time, time).head)
+      if (skipEmptyBatches) {
+        // persist the batch so the emptiness check and the real output share one computation
+        rdds.foreach(_.persist(StorageLevel.MEMORY_AND_DISK))
+        try {
+          if (!rdds.forall(_.isEmpty())) {
+            handler(sources.zip(rdds).map { case (source, r) => toDataset(env, source, r) })
+          }
+        } finally {
+          rdds.foreach(_.unpersist(blocking = false))
+        }
+      } else {
+        handler(sources.zip(rdds).map { case (source, r) => toDataset(env, source, r) })
+      }
     })
   }
 
+  private def toDataset[T](env: SparkEnvironment, source: SparkStreamingSource[T], rdd: RDD[_]): Dataset[Row] = {
+    source.rdd2dataset(env.getSparkSession, rdd.asInstanceOf[RDD[T]])
+  }
 }
@@ -16,15 +16,32 @@
  */
 package org.apache.seatunnel.spark.structuredstream
 
-import org.apache.seatunnel.common.config.CheckResult
+import org.apache.seatunnel.common.config.{CheckResult, ConfigRuntimeException}
 import org.apache.seatunnel.config.{Config, ConfigFactory}
 import org.apache.seatunnel.env.Execution
-import org.apache.seatunnel.spark.{BaseSparkTransform, SparkEnvironment}
+import org.apache.seatunnel.spark.batch.{SparkBatchExecution, SparkBatchSink}
+import org.apache.seatunnel.spark.{BaseSparkSink, BaseSparkSource, BaseSparkTransform, SparkEnvironment}
+import org.apache.spark.sql.streaming.{DataStreamWriter, StreamingQuery, StreamingQueryListener, Trigger}
+import org.apache.spark.sql.streaming.StreamingQueryListener.{QueryProgressEvent, QueryStartedEvent}
+import org.apache.spark.sql.streaming.StreamingQueryListener.QueryTerminatedEvent
+import org.apache.spark.sql.{Dataset, Row}
+import org.slf4j.LoggerFactory
 
 import java.util.{List => JList}
+import scala.collection.JavaConversions._
+import scala.collection.mutable.ArrayBuffer
 
+/**
+ * Runs a job as Spark structured streaming queries, one query per sink.
+ *
+ * Sources may be [[StructuredStreamingSource]] or static batch sources used as lookup tables.
+ * Sinks may be [[StructuredStreamingSink]] or any [[SparkBatchSink]], the latter is called on
+ * every micro-batch through `foreachBatch`.
+ */
 class StructuredStreamingExecution(environment: SparkEnvironment)
-  extends Execution[StructuredStreamingSource, BaseSparkTransform, StructuredStreamingSink] {
+  extends Execution[BaseSparkSource[Dataset[Row]], BaseSparkTransform, BaseSparkSink[_]] {
+
+  private val LOGGER = LoggerFactory.getLogger(classOf[StructuredStreamingExecution])
 
   private var config = ConfigFactory.empty()
 
@@ -36,5 +53,118 @@ class StructuredStreamingExecution(environment: SparkEnvironment)
 
   override def prepare(void: Void): Unit = {}
 
-  override def start(sources: JList[StructuredStreamingSource], transforms: JList[BaseSparkTransform], sinks: JList[StructuredStreamingSink]): Unit = {}
+  override def start(sources: JList[BaseSparkSource[Dataset[Row]]], transforms: JList[BaseSparkTransform], sinks: JList[BaseSparkSink[_]]): Unit = {
+
+    val datasets = sources.map(s => SparkBatchExecution.registerInputTempView(s, environment))
+
+    if (!sources.isEmpty) {
+      var ds = datasets.head
+      for (tf <- transforms) {
+        ds = SparkBatchExecution.transformProcess(environment, tf, ds)
+        SparkBatchExecution.registerTransformTempView(tf, ds)
+      }
+
+      val queries = new ArrayBuffer[StreamingQuery]()
+      // a failed query stops the other ones, so that waiting for them returns and its failure is raised
+      environment.getSparkSession.streams.addListener(new StreamingQueryListener {
+        override def onQueryStarted(event: QueryStartedEvent): Unit = {}
+
+        override def onQueryProgress(event: QueryProgressEvent): Unit = {}
+
+        override def onQueryTerminated(event: QueryTerminatedEvent): Unit = {
+          if (event.exception.isDefined) {
+            queries.synchronized(queries.toList).filter(_.isActive).foreach(_.stop())
+          }
+        }
+      })
+
+      for ((sink, i) <- sinks.zipWithIndex) {
+        val query = startQuery(sink, i, ds)
+        queries.synchronized(queries += query)
+        LOGGER.info(s"started streaming query [${query.name}] with id [${query.id}]")
+      }
+
+      // every query is waited for, with trigger_type once the queries finish one after the other
+      queries.foreach(_.awaitTermination())
+    }
+  }
+
+  private def startQuery(sink: BaseSparkSink[_], index: Int, ds: Dataset[Row]): StreamingQuery = {
+    val sinkConfig = sink.getConfig
+    val fromDs = SparkBatchExecution.inputDataset(environment, sinkConfig, ds)
+    val triggerType = getString(sinkConfig, StructuredStreamingExecution.triggerType)
+      .getOrElse(StructuredStreamingExecution.processingTime)
+      .toLowerCase
+
+    val writer: DataStreamWriter[Row] = sink match {
+      case s: StructuredStreamingSink => s.output(fromDs, environment)
+      case s: SparkBatchSink =>
+        if (triggerType == StructuredStreamingExecution.continuous) {
+          throw new ConfigRuntimeException(
+            "Plugin[" + sink.getClass.getName + "] is a batch sink and does not support continuous trigger")
+        }
+        fromDs.writeStream.foreachBatch((batch: Dataset[Row], batchId: Long) => {
+          s.output(batch, environment)
+        })
+      case _ =>
+        throw new ConfigRuntimeException(
+          "Plugin[" + sink.getClass.getName + "] is not supported by structured streaming")
+    }
+
+    val queryName = if (sinkConfig.hasPath(StructuredStreamingExecution.queryName)) {
+      Some(sinkConfig.getString(StructuredStreamingExecution.queryName))
+    } else {
+      None
+    }
+    queryName.foreach(writer.queryName)
+    getString(sinkConfig, StructuredStreamingExecution.outputMode).foreach(writer.outputMode)
+
+    // a checkpoint location defined in env is shared by all queries, each one gets its own sub directory
+    if (sinkConfig.hasPath(StructuredStreamingExecution.checkpointLocation)) {
+      writer.option("checkpointLocation", sinkConfig.getString(StructuredStreamingExecution.checkpointLocation))
+    } else if (environment.getConfig.hasPath(StructuredStreamingExecution.checkpointLocation)) {
+      val root = environment.getConfig.getString(StructuredStreamingExecution.checkpointLocation)
+      writer.option("checkpointLocation", root.stripSuffix("/") + "/" + queryName.getOrElse("sink_" + index))
+    }
+
+    writer.trigger(createTrigger(sinkConfig, triggerType)).start()
+  }
+
+  private def createTrigger(sinkConfig: Config, triggerType: String): Trigger = {
+    val interval = getString(sinkConfig, StructuredStreamingExecution.triggerInterval)
+    triggerType match {
+      case StructuredStreamingExecution.processingTime => Trigger.ProcessingTime(interval.getOrElse("0 seconds"))
+      case StructuredStreamingExecution.continuous => Trigger.Continuous(interval.getOrElse("1 second"))
+      case StructuredStreamingExecution.once => Trigger.Once()
+      case other =>
+        throw new ConfigRuntimeException(
+          "unsupported trigger_type [" + other + "], supported: processing_time, continuous, once")
+    }
+  }
+
+  /**
+   * Query options are read from the sink config first, then from env.
+   */
+  private def getString(sinkConfig: Config, key: String): Option[String] = {
+    if (sinkConfig.hasPath(key)) {
+      Some(sinkConfig.getString(key))
+    } else if (environment.getConfig.hasPath(key)) {
+      Some(environment.getConfig.getString(key))
+    } else {
+      None
+    }
+  }
+}
+
+object StructuredStreamingExecution {
+
+  private[seatunnel] val triggerType = "trigger_type"
+  private[seatunnel] val triggerInterval = "trigger_interval"
+  private[seatunnel] val checkpointLocation = "checkpoint_location"
+  private[seatunnel] val outputMode = "output_mode"
+  private[seatunnel] val queryName = "query_name"
+
+  private val processingTime = "processing_time"
+  private val continuous = "continuous"
+  private val once = "once"
 }
@@ -0,0 +1,102 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.seatunnel.flink.sink;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Serializable;
+
+/**
+ * Decides when a stream load batch is full.
+ *
+ * <p>A batch is cut at {@code maxRows} rows or {@code maxBytes} bytes. In adaptive mode the row limit is
+ * not used, the batch is cut at a byte target between 1MB and {@code maxBytes} that follows the loads:
+ * it shrinks when a load is slower than {@code targetLatencyMs} or times out, and grows when full batches
+ * load quickly or Doris reports a publish timeout or too many versions, both caused by frequent small loads.
+ */
+public class DorisBatchSizer implements Serializable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(DorisBatchSizer.class);
+    private static final long MIN_ADAPTIVE_BYTES = 1 << 20;
+    private static final String PUBLISH_TIMEOUT_STATUS = "Publish Timeout";
+
+    private final int maxRows;
+    private final long maxBytes;
+    private final boolean adaptive;
+    private final long targetLatencyMs;
+    private final long minBytes;
+    private volatile long targetBytes;
+
+    public DorisBatchSizer(int maxRows, long maxBytes, boolean adaptive, long targetLatencyMs) {
+        this.maxRows = maxRows;
+        this.maxBytes = maxBytes;
+        this.adaptive = adaptive;
+        this.targetLatencyMs = targetLatencyMs;
+        this.minBytes = Math.min(MIN_ADAPTIVE_BYTES, maxBytes);
+        this.targetBytes = Math.max(minBytes, maxBytes / 8);
+    }
+
+    public boolean isAdaptive() {
+        return adaptive;
+    }
+
+    public boolean isFull(int rows, long bytes) {
+        if (adaptive) {
+            return bytes >= targetBytes;
+        }
+        return (maxRows > 0 && rows >= maxRows) || bytes >= maxBytes;
+    }
+
+    public synchronized void onLoaded(long bytes, long latencyMs, String status) {
+        if (!adaptive) {
+            return;
+        }
+        if (PUBLISH_TIMEOUT_STATUS.equals(status)) {
+            resize(targetBytes * 2, "publish timeout");
+        } else if (latencyMs > targetLatencyMs) {
+            resize(bytes * targetLatencyMs / latencyMs, "load of " + bytes + " bytes took " + latencyMs + " ms");
+        } else if (bytes >= targetBytes * 9 / 10 && latencyMs < targetLatencyMs / 2) {
+            resize(targetBytes * 3 / 2, "load of " + bytes + " bytes took " + latencyMs + " ms");
+        }
+    }
+
+    public synchronized void onFailure(Exception e) {
+        if (!adaptive) {
+            return;
+        }
+        StringBuilder messages = new StringBuilder();
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            messages.append(cause.getMessage()).append('\n');
+        }
+        String message = messages.toString().toLowerCase();
+        if (message.contains("too many versions") || message.contains("-235")) {
+            resize(targetBytes * 2, "too many versions");
+        } else if (message.contains("timeout") || message.contains("timed out")) {
+            resize(targetBytes / 2, "load timeout");
+        }
+    }
+
+    private void resize(long bytes, String reason) {
+        long resized = Math.max(minBytes, Math.min(maxBytes, bytes));
+        if (resized != targetBytes) {
+            LOG.info("doris batch target resized from {} to {} bytes, {}", targetBytes, resized, reason);
+            targetBytes = resized;
+        }
+    }
+}
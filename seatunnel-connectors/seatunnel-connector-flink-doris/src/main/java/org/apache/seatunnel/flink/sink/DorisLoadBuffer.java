@@ -0,0 +1,179 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.seatunnel.flink.sink;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * Growable byte buffer holding the body of a stream load. It is reset once the load succeeded and
+ * reused by the next one, keeping its capacity.
+ */
+public class DorisLoadBuffer {
+
+    private static final int MAX_CAPACITY = Integer.MAX_VALUE - 8;
+
+    private byte[] buf;
+    private int count;
+
+    public DorisLoadBuffer(int initialCapacity) {
+        this.buf = new byte[initialCapacity];
+    }
+
+    public void write(int b) {
+        ensureCapacity(count + 1);
+        buf[count++] = (byte) b;
+    }
+
+    public void write(byte[] b) {
+        write(b, 0, b.length);
+    }
+
+    public void write(byte[] b, int off, int len) {
+        ensureCapacity(count + len);
+        System.arraycopy(b, off, buf, count, len);
+        count += len;
+    }
+
+    /**
+     * Writes a string that only holds ascii characters, numbers for example.
+     */
+    public void writeAscii(String s) {
+        int len = s.length();
+        ensureCapacity(count + len);
+        for (int i = 0; i < len; i++) {
+            buf[count++] = (byte) s.charAt(i);
+        }
+    }
+
+    public void writeUtf8(CharSequence s) {
+        int i = 0;
+        while (i < s.length()) {
+            i = writeUtf8Char(s, i);
+        }
+    }
+
+    /**
+     * Writes the utf-8 bytes of the character at {@code index}, with the following low surrogate when it is
+     * a high surrogate.
+     *
+     * @return the index of the next character
+     */
+    public int writeUtf8Char(CharSequence s, int index) {
+        char c = s.charAt(index);
+        ensureCapacity(count + 4);
+        if (c < 0x80) {
+            buf[count++] = (byte) c;
+        } else if (c < 0x800) {
+            buf[count++] = (byte) (0xC0 | (c >> 6));
+            buf[count++] = (byte) (0x80 | (c & 0x3F));
+        } else if (Character.isHighSurrogate(c) && index + 1 < s.length() && Character.isLowSurrogate(s.charAt(index + 1))) {
+            int codePoint = Character.toCodePoint(c, s.charAt(index + 1));
+            buf[count++] = (byte) (0xF0 | (codePoint >> 18));
+            buf[count++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+            buf[count++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+            buf[count++] = (byte) (0x80 | (codePoint & 0x3F));
+            return index + 2;
+        } else if (Character.isSurrogate(c)) {
+            // unpaired surrogate, replaced like String.getBytes does
+            buf[count++] = '?';
+        } else {
+            buf[count++] = (byte) (0xE0 | (c >> 12));
+            buf[count++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+            buf[count++] = (byte) (0x80 | (c & 0x3F));
+        }
+        return index + 1;
+    }
+
+    /**
+     * Writes the decimal representation of the value.
+     */
+    public void writeLong(long value) {
+        if (value == Long.MIN_VALUE) {
+            writeAscii("-9223372036854775808");
+            return;
+        }
+        ensureCapacity(count + 20);
+        if (value < 0) {
+            buf[count++] = '-';
+            value = -value;
+        }
+        int digits = 1;
+        for (long v = value / 10; v > 0; v /= 10) {
+            digits++;
+        }
+        for (int i = count + digits - 1; i >= count; i--) {
+            buf[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        count += digits;
+    }
+
+    /**
+     * Writes the decimal representation of a non negative value, left padded with zeros to {@code width}.
+     */
+    public void writePadded(int value, int width) {
+        ensureCapacity(count + Math.max(width, 10));
+        int digits = 1;
+        for (int v = value / 10; v > 0; v /= 10) {
+            digits++;
+        }
+        for (int i = digits; i < width; i++) {
+            buf[count++] = '0';
+        }
+        writeLong(value);
+    }
+
+    public int size() {
+        return count;
+    }
+
+    public boolean isEmpty() {
+        return count == 0;
+    }
+
+    public void reset() {
+        count = 0;
+    }
+
+    /**
+     * The backing array, valid up to {@link #size()} until the next write or reset.
+     */
+    public byte[] array() {
+        return buf;
+    }
+
+    public byte[] toByteArray() {
+        return Arrays.copyOf(buf, count);
+    }
+
+    public void writeTo(OutputStream out) throws IOException {
+        out.write(buf, 0, count);
+    }
+
+    private void ensureCapacity(int minCapacity) {
+        if (minCapacity < 0 || minCapacity > MAX_CAPACITY) {
+            throw new IllegalStateException("stream load body exceeds " + MAX_CAPACITY + " bytes, lower the batch size");
+        }
+        if (minCapacity > buf.length) {
+            int newCapacity = (int) Math.min(Math.max((long) buf.length << 1, minCapacity), MAX_CAPACITY);
+            buf = Arrays.copyOf(buf, newCapacity);
+        }
+    }
+}
@@ -18,20 +18,24 @@
 package org.apache.seatunnel.flink.sink;
 
 import org.apache.flink.api.common.io.RichOutputFormat;
+import org.apache.flink.api.common.typeinfo.TypeInformation;
 import org.apache.flink.configuration.Configuration;
 import org.apache.flink.runtime.util.ExecutorThreadFactory;
-import org.apache.flink.shaded.guava18.com.google.common.collect.Maps;
-import org.apache.flink.shaded.jackson2.com.fasterxml.jackson.databind.ObjectMapper;
 import org.apache.flink.types.Row;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
-import java.util.Map;
 import java.util.Properties;
-import java.util.StringJoiner;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
@@ -41,43 +45,68 @@ import java.util.regex.Pattern;
 
 /**
  * DorisDynamicOutputFormat
+ *
+ * <p>Rows are appended to the active batch while up to {@code loadConcurrency} sealed batches are loaded
+ * by background senders, so the writing thread only waits on Doris when every batch is in flight.
  **/
 public class DorisOutputFormat<T> extends RichOutputFormat<T> {
     private static final Logger LOG = LoggerFactory.getLogger(DorisSinkFunction.class);
-    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
     private static final String FIELD_DELIMITER_KEY = "column_separator";
     private static final String FIELD_DELIMITER_DEFAULT = "\t";
     private static final String LINE_DELIMITER_KEY = "line_delimiter";
     private static final String LINE_DELIMITER_DEFAULT = "\n";
     private static final String FORMAT_KEY = "format";
     private static final String FORMAT_JSON_VALUE = "json";
-    private static final String NULL_VALUE = "\\N";
+    private static final String ENCLOSE_KEY = "enclose";
+    private static final String ESCAPE_KEY = "escape";
     private static final String ESCAPE_DELIMITERS_KEY = "escape_delimiters";
     private static final String ESCAPE_DELIMITERS_DEFAULT = "false";
     private static final Pattern DELIMITER_PATTERN = Pattern.compile("\\\\x(\\d{2})");
+    private static final int BUFFER_INITIAL_CAPACITY = 1 << 16;
     private final String[] fieldNames;
+    private final TypeInformation<?>[] fieldTypes;
     private final boolean jsonFormat;
-    private final int batchSize;
+    private final DorisBatchSizer batchSizer;
     private final int maxRetries;
     private final long batchIntervalMs;
-    private final List batch = new ArrayList<>();
+    private final int loadConcurrency;
+    private final String labelPrefix;
     private String fieldDelimiter;
     private String lineDelimiter;
     private DorisStreamLoad dorisStreamLoad;
     private transient ScheduledExecutorService scheduler;
     private transient ScheduledFuture<?> scheduledFuture;
+    private transient ExecutorService sender;
     private transient volatile Exception flushException;
     private transient volatile boolean closed = false;
+    private transient List<LoadBatch> batches;
+    private transient BlockingQueue<LoadBatch> freeBatches;
+    private transient LoadBatch active;
+    private transient List<Long> transactions;
+    private transient byte[] lineDelimiterBytes;
+    private transient DorisRowSerializer serializer;
+    private transient String subtaskLabelPrefix;
+    private transient long checkpointId;
+    private transient int loadSeq;
 
+    /**
+     * @param batchSizer      decides when the active batch is loaded
+     * @param loadConcurrency maximum number of loads in flight, each one more batch buffered in memory
+     * @param labelPrefix     prefix of the stream load labels, unique to the job and kept when it is restored.
+     *                        The labels add the subtask, the last checkpoint and a sequence within the checkpoint.
+     */
     public DorisOutputFormat(DorisStreamLoad dorisStreamLoad,
-                             String[] fieldNames,
-                             int batchSize, long batchIntervalMs, int maxRetries) {
+                             String[] fieldNames, TypeInformation<?>[] fieldTypes,
+                             DorisBatchSizer batchSizer, long batchIntervalMs, int maxRetries, int loadConcurrency, String labelPrefix) {
         this.dorisStreamLoad = dorisStreamLoad;
+        this.labelPrefix = labelPrefix;
         parseDelimiter();
         this.fieldNames = fieldNames;
-        this.batchSize = batchSize;
+        this.fieldTypes = fieldTypes;
+        this.batchSizer = batchSizer;
         this.batchIntervalMs = batchIntervalMs;
         this.maxRetries = maxRetries;
+        this.loadConcurrency = loadConcurrency;
         this.jsonFormat = FORMAT_JSON_VALUE.equals(dorisStreamLoad.getStreamLoadProp().getProperty(FORMAT_KEY));
     }
 
@@ -117,15 +146,31 @@ public class DorisOutputFormat<T> extends RichOutputFormat<T> {
 
     @Override
     public void open(int taskNumber, int numTasks) {
-        if (batchIntervalMs > 0 && batchSize != 1) {
+        this.lineDelimiterBytes = lineDelimiter.getBytes(StandardCharsets.UTF_8);
+        Properties streamLoadProp = dorisStreamLoad.getStreamLoadProp();
+        this.serializer = new DorisRowSerializer(fieldNames, fieldTypes, jsonFormat, fieldDelimiter,
+                streamLoadProp.getProperty(ENCLOSE_KEY), streamLoadProp.getProperty(ESCAPE_KEY));
+        this.subtaskLabelPrefix = String.format("%s_%d", labelPrefix, taskNumber);
+        this.transactions = Collections.synchronizedList(new ArrayList<>());
+        // one more batch than the loads in flight, it is the one being filled
+        this.batches = new ArrayList<>();
+        for (int i = 0; i <= loadConcurrency; i++) {
+            batches.add(new LoadBatch());
+        }
+        this.freeBatches = new ArrayBlockingQueue<>(batches.size(), false, batches.subList(1, batches.size()));
+        this.active = batches.get(0);
+        this.sender = Executors.newFixedThreadPool(loadConcurrency, new ExecutorThreadFactory("doris-streamload-sender"));
+
+        if (batchIntervalMs > 0) {
             this.scheduler = new ScheduledThreadPoolExecutor(1, new ExecutorThreadFactory("doris-streamload-outputformat"));
             this.scheduledFuture = this.scheduler.scheduleWithFixedDelay(() -> {
                 synchronized (DorisOutputFormat.this) {
-                    if (!closed) {
-                        try {
-                            flush();
-                        } catch (Exception e) {
-                            flushException = e;
+                    // loads already in flight when no batch is free, the rows are sent with the next one
+                    if (!closed && active != null && active.rows > 0) {
+                        LoadBatch next = freeBatches.poll();
+                        if (next != null) {
+                            submit(active);
+                            active = next;
                         }
                     }
                 }
@@ -143,34 +188,33 @@ public class DorisOutputFormat<T> extends RichOutputFormat<T> {
     public synchronized void writeRecord(T row) throws IOException {
         checkFlushException();
         addBatch(row);
-        if (batchSize > 0 && batch.size() >= batchSize) {
-            flush();
+        if (batchSizer.isFull(active.rows, active.buffer.size())) {
+            // the next batch is taken first, so that active never refers to a batch in flight
+            LoadBatch next = takeFree();
+            submit(active);
+            active = next;
         }
     }
 
+    /**
+     * Appends the row to the active batch, as a line of text or as an element of the json array.
+     */
     private void addBatch(T row) {
+        if (!(row instanceof Row) && !(row instanceof String)) {
+            throw new RuntimeException("The type of element should be 'RowData' or 'String' only.");
+        }
+        DorisLoadBuffer buffer = active.buffer;
+        if (jsonFormat) {
+            buffer.write(active.rows == 0 ? '[' : ',');
+        } else if (active.rows > 0) {
+            buffer.write(lineDelimiterBytes);
+        }
         if (row instanceof Row) {
-            Row rowData = (Row) row;
-            Map<String, String> valueMap = Maps.newHashMap();
-            StringJoiner value = new StringJoiner(this.fieldDelimiter);
-            for (int i = 0; i < rowData.getArity(); ++i) {
-                Object field = rowData.getField(i);
-                if (jsonFormat) {
-                    String data = field != null ? field.toString() : null;
-                    valueMap.put(this.fieldNames[i], data);
-                } else {
-                    String data = field != null ? field.toString() : NULL_VALUE;
-                    value.add(data);
-                }
-            }
-            Object data = jsonFormat ? valueMap : value.toString();
-            batch.add(data);
-
-        } else if (row instanceof String) {
-            batch.add(row);
+            serializer.serialize((Row) row, buffer);
         } else {
-            throw new RuntimeException("The type of element should be 'RowData' or 'String' only.");
+            buffer.writeUtf8((String) row);
         }
+        active.rows++;
     }
 
     @Override
@@ -183,48 +227,213 @@ public class DorisOutputFormat<T> extends RichOutputFormat<T> {
                 this.scheduler.shutdown();
             }
 
-            try {
-                flush();
-            } catch (Exception e) {
-                LOG.warn("Writing records to doris failed.", e);
-                throw new RuntimeException("Writing records to doris failed.", e);
+            if (active != null) {
+                try {
+                    // rows after the last checkpoint are never committed with two-phase commit
+                    drain(!dorisStreamLoad.isTwoPhaseCommit());
+                } catch (Exception e) {
+                    LOG.warn("Writing records to doris failed.", e);
+                    throw new RuntimeException("Writing records to doris failed.", e);
+                } finally {
+                    sender.shutdownNow();
+                    if (dorisStreamLoad.isTwoPhaseCommit()) {
+                        // release their transactions now instead of holding them until the doris transaction timeout
+                        abortTransactions();
+                    }
+                }
             }
         }
         checkFlushException();
     }
 
+    public DorisStreamLoad getDorisStreamLoad() {
+        return dorisStreamLoad;
+    }
+
+    /**
+     * Labels the loads after a restore with the checkpoint restored from, as the loads that followed it.
+     */
+    public void restore(long checkpointId) {
+        this.checkpointId = checkpointId;
+    }
+
+    /**
+     * Flushes the buffered rows for a checkpoint, the following loads are labeled with this checkpoint.
+     *
+     * @return the transactions pre-committed since the previous checkpoint, always empty without two-phase commit
+     */
+    public synchronized List<Long> snapshot(long checkpointId) throws IOException {
+        flush();
+        List<Long> precommitted;
+        synchronized (transactions) {
+            precommitted = new ArrayList<>(transactions);
+            transactions.clear();
+        }
+        this.checkpointId = checkpointId;
+        this.loadSeq = 0;
+        return precommitted;
+    }
+
+    /**
+     * Loads the buffered rows and waits until every load has finished.
+     */
     public synchronized void flush() throws IOException {
         checkFlushException();
-        if (batch.isEmpty()) {
-            return;
-        }
-        String result;
-        if (jsonFormat) {
-            if (batch.get(0) instanceof String) {
-                result = batch.toString();
-            } else {
-                result = OBJECT_MAPPER.writeValueAsString(batch);
+        drain(true);
+        checkFlushException();
+    }
+
+    private void abortTransactions() {
+        for (Long txnId : transactions) {
+            try {
+                dorisStreamLoad.abort(txnId);
+            } catch (Exception e) {
+                LOG.warn("abort doris transaction {} failed, it is aborted at its timeout", txnId, e);
             }
+        }
+        transactions.clear();
+    }
+
+    private String nextLabel() {
+        return String.format("%s_%d_%d", subtaskLabelPrefix, checkpointId, loadSeq++);
+    }
+
+    private LoadBatch takeFree() throws IOException {
+        LoadBatch batch;
+        try {
+            batch = freeBatches.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("interrupted while waiting for a doris load to finish");
+        }
+        try {
+            checkFlushException();
+        } catch (RuntimeException e) {
+            // drain waits for every batch to be back
+            freeBatches.add(batch);
+            throw e;
+        }
+        return batch;
+    }
+
+    /**
+     * Sends or discards the active batch, then waits for all the batches to be back.
+     */
+    private void drain(boolean send) throws IOException {
+        if (send && active.rows > 0) {
+            submit(active);
         } else {
-            result = String.join(this.lineDelimiter, batch);
+            active.reset();
+            freeBatches.add(active);
+        }
+        active = null;
+        List<LoadBatch> finished = new ArrayList<>();
+        try {
+            while (finished.size() < batches.size()) {
+                finished.add(freeBatches.take());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("interrupted while waiting for the doris loads to finish");
+        } finally {
+            active = finished.isEmpty() ? null : finished.remove(0);
+            freeBatches.addAll(finished);
         }
-        for (int i = 0; i <= maxRetries; i++) {
+    }
+
+    private void submit(LoadBatch batch) {
+        if (jsonFormat) {
+            batch.buffer.write(']');
+        }
+        String label = nextLabel();
+        sender.execute(() -> {
             try {
-                dorisStreamLoad.load(result);
-                batch.clear();
-                break;
+                if (flushException == null) {
+                    load(batch, label);
+                }
             } catch (Exception e) {
-                LOG.error("doris sink error, retry times = {}", i, e);
-                if (i >= maxRetries) {
-                    throw new IOException(e);
+                if (flushException == null) {
+                    flushException = e;
                 }
-                try {
-                    Thread.sleep(1000 * i);
-                } catch (InterruptedException ex) {
-                    Thread.currentThread().interrupt();
-                    throw new IOException("unable to flush; interrupted while doing another attempt", e);
+            } finally {
+                batch.reset();
+                freeBatches.add(batch);
+            }
+        });
+    }
+
+    private void load(LoadBatch batch, String label) throws IOException {
+        String attemptLabel = label;
+        int relabels = 0;
+        boolean resent = false;
+        int retries = 0;
+        while (true) {
+            long start = System.currentTimeMillis();
+            Exception failure;
+            try {
+                RespContent respContent = dorisStreamLoad.load(batch.buffer, attemptLabel);
+                batchSizer.onLoaded(batch.buffer.size(), System.currentTimeMillis() - start, respContent.getStatus());
+                if (dorisStreamLoad.isTwoPhaseCommit()) {
+                    transactions.add(respContent.getTxnId());
+                }
+                return;
+            } catch (DorisStreamLoad.LabelExistsException e) {
+                if (!resent && !replayableLabels()) {
+                    // the attempt before a restore loaded other rows under this label, or only pre-committed
+                    // them, the rows are loaded under a label of their own
+                    LOG.info("label {} is taken by a previous attempt, load the batch under a new label", attemptLabel);
+                    attemptLabel = label + "_" + (++relabels);
+                    continue;
+                }
+                if (e.isLoaded()) {
+                    LOG.info("label {} has already been loaded with the same rows, skip it", attemptLabel);
+                    return;
                 }
+                // the load of the previous attempt is still running, wait for it to finish or to be aborted
+                failure = e;
+            } catch (Exception e) {
+                failure = e;
+            }
+            LOG.error("doris sink error, retry times = {}", retries, failure);
+            batchSizer.onFailure(failure);
+            if (retries >= maxRetries) {
+                throw new IOException(failure);
+            }
+            if (dorisStreamLoad.isTwoPhaseCommit()) {
+                // a failed attempt may still have been pre-committed, and a pre-committed transaction is only
+                // known by its id, retry under a new label and leave that transaction to the doris timeout
+                attemptLabel = label + "_" + (++relabels);
+            } else {
+                resent = true;
             }
+            retries++;
+            try {
+                Thread.sleep(1000L * retries);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new IOException("unable to flush; interrupted while doing another attempt", failure);
+            }
+        }
+    }
+
+    /**
+     * Without two-phase commit, the batches are only cut by a fixed size and by the checkpoints, so the batches
+     * replayed after a restore hold the same rows as the loads of the failed attempt and keep their labels.
+     */
+    private boolean replayableLabels() {
+        return !dorisStreamLoad.isTwoPhaseCommit() && !batchSizer.isAdaptive() && batchIntervalMs <= 0;
+    }
+
+    /**
+     * Rows of one stream load.
+     */
+    private static class LoadBatch {
+        private final DorisLoadBuffer buffer = new DorisLoadBuffer(BUFFER_INITIAL_CAPACITY);
+        private int rows;
+
+        private void reset() {
+            buffer.reset();
+            rows = 0;
         }
     }
 }
@@ -0,0 +1,407 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.seatunnel.flink.sink;
+
+import org.apache.flink.api.common.typeinfo.BasicArrayTypeInfo;
+import org.apache.flink.api.common.typeinfo.TypeInformation;
+import org.apache.flink.api.java.typeutils.MapTypeInfo;
+import org.apache.flink.api.java.typeutils.ObjectArrayTypeInfo;
+import org.apache.flink.api.java.typeutils.RowTypeInfo;
+import org.apache.flink.types.Row;
+
+import java.lang.reflect.Array;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Writes rows as csv lines or json objects straight into a {@link DorisLoadBuffer}, with a writer per field
+ * chosen once from the field types.
+ *
+ * <p>Dates and times are written in the Doris formats, decimals without exponent and nulls as {@code \N}
+ * in csv. Csv strings are written as they are, or enclosed in {@code enclose} with {@code escape} before
+ * the enclose and escape characters they contain when an enclose character is set. Arrays, rows and maps
+ * are written as json values in both formats. Values only typed as objects get the writer of their class,
+ * resolved once per class.
+ */
+public class DorisRowSerializer {
+
+    private static final byte[] CSV_NULL = "\\N".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] JSON_NULL = "null".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] HEX_DIGITS = "0123456789abcdef".getBytes(StandardCharsets.UTF_8);
+
+    private final boolean json;
+    private final byte[] fieldDelimiter;
+    private final int enclose;
+    private final int escape;
+    private final byte[][] jsonKeys;
+    private final FieldWriter[] writers;
+    private final Map<Class<?>, FieldWriter> quotedWriters = new HashMap<>();
+    private final Map<Class<?>, FieldWriter> unquotedWriters = new HashMap<>();
+    private final FieldWriter anyWriter = (value, buffer) -> writeAny(value, true, buffer);
+
+    /**
+     * @param enclose csv enclose character, null to write the strings as they are
+     * @param escape  csv escape character of the enclosed strings
+     */
+    public DorisRowSerializer(String[] fieldNames, TypeInformation<?>[] fieldTypes, boolean json,
+                              String fieldDelimiter, String enclose, String escape) {
+        this.json = json;
+        this.fieldDelimiter = fieldDelimiter.getBytes(StandardCharsets.UTF_8);
+        this.enclose = enclose == null || enclose.isEmpty() ? -1 : enclose.charAt(0);
+        this.escape = escape == null || escape.isEmpty() ? '\\' : escape.charAt(0);
+        this.jsonKeys = jsonKeys(fieldNames);
+        this.writers = new FieldWriter[fieldTypes.length];
+        for (int i = 0; i < fieldTypes.length; i++) {
+            writers[i] = writer(fieldTypes[i], json);
+        }
+    }
+
+    public void serialize(Row row, DorisLoadBuffer buffer) {
+        if (json) {
+            writeObject(row, jsonKeys, writers, buffer);
+            return;
+        }
+        for (int i = 0; i < row.getArity(); i++) {
+            if (i > 0) {
+                buffer.write(fieldDelimiter);
+            }
+            Object value = row.getField(i);
+            if (value == null) {
+                buffer.write(CSV_NULL);
+            } else {
+                writers[i].write(value, buffer);
+            }
+        }
+    }
+
+    private static void writeObject(Row row, byte[][] keys, FieldWriter[] writers, DorisLoadBuffer buffer) {
+        for (int i = 0; i < row.getArity(); i++) {
+            buffer.write(keys[i]);
+            Object value = row.getField(i);
+            if (value == null) {
+                buffer.write(JSON_NULL);
+            } else {
+                writers[i].write(value, buffer);
+            }
+        }
+        if (row.getArity() == 0) {
+            buffer.write('{');
+        }
+        buffer.write('}');
+    }
+
+    /**
+     * The key of every field with what precedes it, {@code {"a":} then {@code ,"b":}.
+     */
+    private static byte[][] jsonKeys(String[] fieldNames) {
+        byte[][] keys = new byte[fieldNames.length][];
+        DorisLoadBuffer key = new DorisLoadBuffer(64);
+        for (int i = 0; i < fieldNames.length; i++) {
+            key.reset();
+            key.write(i == 0 ? '{' : ',');
+            writeJsonString(fieldNames[i], key);
+            key.write(':');
+            keys[i] = key.toByteArray();
+        }
+        return keys;
+    }
+
+    /**
+     * @param quoted whether strings and temporal values are written as json strings
+     */
+    private FieldWriter writer(TypeInformation<?> type, boolean quoted) {
+        if (type instanceof RowTypeInfo) {
+            RowTypeInfo rowType = (RowTypeInfo) type;
+            byte[][] keys = jsonKeys(rowType.getFieldNames());
+            FieldWriter[] fieldWriters = new FieldWriter[rowType.getArity()];
+            for (int i = 0; i < fieldWriters.length; i++) {
+                fieldWriters[i] = writer(rowType.getTypeAt(i), true);
+            }
+            return (value, buffer) -> writeObject((Row) value, keys, fieldWriters, buffer);
+        }
+        if (type instanceof BasicArrayTypeInfo) {
+            return arrayWriter(writer(((BasicArrayTypeInfo<?, ?>) type).getComponentInfo(), true));
+        }
+        if (type instanceof ObjectArrayTypeInfo) {
+            return arrayWriter(writer(((ObjectArrayTypeInfo<?, ?>) type).getComponentInfo(), true));
+        }
+        if (type instanceof MapTypeInfo) {
+            FieldWriter valueWriter = writer(((MapTypeInfo<?, ?>) type).getValueTypeInfo(), true);
+            return (value, buffer) -> writeMap((Map<?, ?>) value, valueWriter, buffer);
+        }
+        return writer(type.getTypeClass(), quoted);
+    }
+
+    private FieldWriter writer(Class<?> type, boolean quoted) {
+        if (type == String.class) {
+            if (quoted) {
+                return (value, buffer) -> writeJsonString((String) value, buffer);
+            }
+            return (value, buffer) -> writeCsvString((String) value, buffer);
+        }
+        if (type == Integer.class || type == Long.class || type == Short.class || type == Byte.class
+                || type == int.class || type == long.class || type == short.class || type == byte.class) {
+            return (value, buffer) -> buffer.writeLong(((Number) value).longValue());
+        }
+        if (type == Boolean.class || type == boolean.class) {
+            return (value, buffer) -> buffer.writeAscii((Boolean) value ? "true" : "false");
+        }
+        if (type == BigInteger.class) {
+            return (value, buffer) -> buffer.writeAscii(value.toString());
+        }
+        if (type == BigDecimal.class) {
+            return (value, buffer) -> buffer.writeAscii(((BigDecimal) value).toPlainString());
+        }
+        if (type == Float.class || type == Double.class || type == float.class || type == double.class) {
+            return (value, buffer) -> writeFloating(((Number) value).doubleValue(), value, buffer);
+        }
+        if (type == Date.class) {
+            return quote(quoted, (value, buffer) -> writeDate(((Date) value).toLocalDate(), buffer));
+        }
+        if (type == LocalDate.class) {
+            return quote(quoted, (value, buffer) -> writeDate((LocalDate) value, buffer));
+        }
+        if (type == Timestamp.class) {
+            return quote(quoted, (value, buffer) -> writeDateTime(((Timestamp) value).toLocalDateTime(), buffer));
+        }
+        if (type == LocalDateTime.class) {
+            return quote(quoted, (value, buffer) -> writeDateTime((LocalDateTime) value, buffer));
+        }
+        if (type == Time.class) {
+            return quote(quoted, (value, buffer) -> writeTime(((Time) value).toLocalTime(), buffer));
+        }
+        if (type == LocalTime.class) {
+            return quote(quoted, (value, buffer) -> writeTime((LocalTime) value, buffer));
+        }
+        if (type.isArray() && type != Object[].class) {
+            return arrayWriter(writer(type.getComponentType(), true));
+        }
+        if (type == Object.class || type == Object[].class || type == Row.class || Map.class.isAssignableFrom(type)) {
+            // the type is only known from the value
+            return (value, buffer) -> writeAny(value, quoted, buffer);
+        }
+        if (quoted) {
+            return (value, buffer) -> writeJsonString(value.toString(), buffer);
+        }
+        return (value, buffer) -> writeCsvString(value.toString(), buffer);
+    }
+
+    private void writeAny(Object value, boolean quoted, DorisLoadBuffer buffer) {
+        if (value instanceof Row) {
+            Row row = (Row) value;
+            buffer.write('[');
+            for (int i = 0; i < row.getArity(); i++) {
+                if (i > 0) {
+                    buffer.write(',');
+                }
+                writeElement(row.getField(i), buffer);
+            }
+            buffer.write(']');
+        } else if (value instanceof Object[]) {
+            Object[] array = (Object[]) value;
+            buffer.write('[');
+            for (int i = 0; i < array.length; i++) {
+                if (i > 0) {
+                    buffer.write(',');
+                }
+                writeElement(array[i], buffer);
+            }
+            buffer.write(']');
+        } else if (value instanceof Map) {
+            writeMap((Map<?, ?>) value, anyWriter, buffer);
+        } else {
+            classWriter(value.getClass(), quoted).write(value, buffer);
+        }
+    }
+
+    private FieldWriter classWriter(Class<?> type, boolean quoted) {
+        Map<Class<?>, FieldWriter> cache = quoted ? quotedWriters : unquotedWriters;
+        FieldWriter writer = cache.get(type);
+        if (writer == null) {
+            writer = writer(type, quoted);
+            cache.put(type, writer);
+        }
+        return writer;
+    }
+
+    private void writeElement(Object element, DorisLoadBuffer buffer) {
+        if (element == null) {
+            buffer.write(JSON_NULL);
+        } else {
+            writeAny(element, true, buffer);
+        }
+    }
+
+    private static FieldWriter arrayWriter(FieldWriter elementWriter) {
+        return (value, buffer) -> {
+            int length = Array.getLength(value);
+            buffer.write('[');
+            for (int i = 0; i < length; i++) {
+                if (i > 0) {
+                    buffer.write(',');
+                }
+                Object element = Array.get(value, i);
+                if (element == null) {
+                    buffer.write(JSON_NULL);
+                } else {
+                    elementWriter.write(element, buffer);
+                }
+            }
+            buffer.write(']');
+        };
+    }
+
+    private static void writeMap(Map<?, ?> map, FieldWriter valueWriter, DorisLoadBuffer buffer) {
+        buffer.write('{');
+        boolean first = true;
+        for (Map.Entry<?, ?> entry : map.entrySet()) {
+            if (!first) {
+                buffer.write(',');
+            }
+            first = false;
+            writeJsonString(String.valueOf(entry.getKey()), buffer);
+            buffer.write(':');
+            if (entry.getValue() == null) {
+                buffer.write(JSON_NULL);
+            } else {
+                valueWriter.write(entry.getValue(), buffer);
+            }
+        }
+        buffer.write('}');
+    }
+
+    private static FieldWriter quote(boolean quoted, FieldWriter writer) {
+        if (!quoted) {
+            return writer;
+        }
+        return (value, buffer) -> {
+            buffer.write('"');
+            writer.write(value, buffer);
+            buffer.write('"');
+        };
+    }
+
+    private void writeFloating(double doubleValue, Object value, DorisLoadBuffer buffer) {
+        if (json && (Double.isNaN(doubleValue) || Double.isInfinite(doubleValue))) {
+            // not representable in json
+            buffer.write(JSON_NULL);
+        } else {
+            buffer.writeAscii(value.toString());
+        }
+    }
+
+    private void writeCsvString(String s, DorisLoadBuffer buffer) {
+        if (enclose < 0) {
+            buffer.writeUtf8(s);
+            return;
+        }
+        buffer.write(enclose);
+        int i = 0;
+        while (i < s.length()) {
+            char c = s.charAt(i);
+            if (c == enclose || c == escape) {
+                buffer.write(escape);
+            }
+            i = buffer.writeUtf8Char(s, i);
+        }
+        buffer.write(enclose);
+    }
+
+    private static void writeJsonString(String s, DorisLoadBuffer buffer) {
+        buffer.write('"');
+        writeJsonChars(s, buffer);
+        buffer.write('"');
+    }
+
+    private static void writeJsonChars(String s, DorisLoadBuffer buffer) {
+        int i = 0;
+        while (i < s.length()) {
+            char c = s.charAt(i);
+            if (c >= 0x20 && c != '"' && c != '\\') {
+                i = buffer.writeUtf8Char(s, i);
+            } else {
+                writeJsonEscape(c, buffer);
+                i++;
+            }
+        }
+    }
+
+    private static void writeJsonEscape(char c, DorisLoadBuffer buffer) {
+        if (c == '"' || c == '\\') {
+            buffer.write('\\');
+            buffer.write(c);
+        } else if (c == '\n') {
+            buffer.write('\\');
+            buffer.write('n');
+        } else if (c == '\r') {
+            buffer.write('\\');
+            buffer.write('r');
+        } else if (c == '\t') {
+            buffer.write('\\');
+            buffer.write('t');
+        } else {
+            buffer.writeAscii("\\u00");
+            buffer.write(HEX_DIGITS[c >> 4]);
+            buffer.write(HEX_DIGITS[c & 0xF]);
+        }
+    }
+
+    private static void writeDate(LocalDate date, DorisLoadBuffer buffer) {
+        buffer.writePadded(date.getYear(), 4);
+        buffer.write('-');
+        buffer.writePadded(date.getMonthValue(), 2);
+        buffer.write('-');
+        buffer.writePadded(date.getDayOfMonth(), 2);
+    }
+
+    private static void writeDateTime(LocalDateTime dateTime, DorisLoadBuffer buffer) {
+        writeDate(dateTime.toLocalDate(), buffer);
+        buffer.write(' ');
+        writeTime(dateTime.toLocalTime(), buffer);
+    }
+
+    /**
+     * Writes {@code HH:mm:ss} with the microseconds when there are any, the precision of Doris.
+     */
+    private static void writeTime(LocalTime time, DorisLoadBuffer buffer) {
+        buffer.writePadded(time.getHour(), 2);
+        buffer.write(':');
+        buffer.writePadded(time.getMinute(), 2);
+        buffer.write(':');
+        buffer.writePadded(time.getSecond(), 2);
+        int micros = time.getNano() / 1000;
+        if (micros > 0) {
+            buffer.write('.');
+            buffer.writePadded(micros, 6);
+        }
+    }
+
+    @FunctionalInterface
+    private interface FieldWriter {
+        void write(Object value, DorisLoadBuffer buffer);
+    }
+}
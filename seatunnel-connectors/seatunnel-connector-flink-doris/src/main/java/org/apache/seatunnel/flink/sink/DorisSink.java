@@ -24,6 +24,7 @@ import org.apache.seatunnel.config.Config;
 import org.apache.seatunnel.flink.FlinkEnvironment;
 import org.apache.seatunnel.flink.batch.FlinkBatchSink;
 import org.apache.seatunnel.flink.stream.FlinkStreamSink;
+import org.apache.flink.api.common.typeinfo.TypeInformation;
 import org.apache.flink.api.java.DataSet;
 import org.apache.flink.api.java.operators.DataSink;
 import org.apache.flink.streaming.api.datastream.DataStream;
@@ -35,6 +36,7 @@ import org.apache.flink.types.Row;
 import org.apache.flink.util.Preconditions;
 
 import java.util.Properties;
+import java.util.UUID;
 
 public class DorisSink implements FlinkStreamSink<Row, Row>, FlinkBatchSink<Row, Row> {
 
@@ -45,8 +47,14 @@ public class DorisSink implements FlinkStreamSink<Row, Row>, FlinkBatchSink<Row,
     private String tableName;
     private String dbName;
     private int batchSize = 100;
+    private long batchBytes = 64 * 1024 * 1024;
+    private boolean adaptiveBatchSize = false;
+    private long adaptiveLoadLatencyMs = 10000;
     private long batchIntervalMs = 1000;
     private int maxRetries = 1;
+    private int loadConcurrency = 1;
+    private String labelPrefix = "seatunnel";
+    private boolean twoPhaseCommit = false;
     private Properties streamLoadProp = new Properties();
 
     @Override
@@ -75,6 +83,17 @@ public class DorisSink implements FlinkStreamSink<Row, Row>, FlinkBatchSink<Row,
             batchSize = config.getInt("batch_size");
             Preconditions.checkArgument(batchSize > 0, "batch_size must be greater than 0");
         }
+        if (config.hasPath("batch_bytes")) {
+            batchBytes = config.getBytes("batch_bytes");
+            Preconditions.checkArgument(batchBytes > 0, "batch_bytes must be greater than 0");
+        }
+        if (config.hasPath("adaptive_batch_size")) {
+            adaptiveBatchSize = config.getBoolean("adaptive_batch_size");
+        }
+        if (config.hasPath("adaptive_load_latency_ms")) {
+            adaptiveLoadLatencyMs = config.getLong("adaptive_load_latency_ms");
+            Preconditions.checkArgument(adaptiveLoadLatencyMs > 0, "adaptive_load_latency_ms must be greater than 0");
+        }
         if (config.hasPath("interval")) {
             batchIntervalMs = config.getInt("interval");
             Preconditions.checkArgument(batchIntervalMs > 0, "interval must be greater than 0");
@@ -84,6 +103,17 @@ public class DorisSink implements FlinkStreamSink<Row, Row>, FlinkBatchSink<Row,
             Preconditions.checkArgument(maxRetries > 0, "max_retries must be greater than 0");
         }
 
+        if (config.hasPath("load_concurrency")) {
+            loadConcurrency = config.getInt("load_concurrency");
+            Preconditions.checkArgument(loadConcurrency > 0, "load_concurrency must be greater than 0");
+        }
+        if (config.hasPath("label_prefix")) {
+            labelPrefix = config.getString("label_prefix");
+        }
+        if (config.hasPath("two_phase_commit")) {
+            twoPhaseCommit = config.getBoolean("two_phase_commit");
+        }
+
         String producerPrefix = "doris.";
         PropertiesUtil.setProperties(config, streamLoadProp, producerPrefix, false);
     }
@@ -94,9 +124,10 @@ public class DorisSink implements FlinkStreamSink<Row, Row>, FlinkBatchSink<Row,
         BatchTableEnvironment tableEnvironment = env.getBatchTableEnvironment();
         Table table = tableEnvironment.fromDataSet(dataSet);
         String[] fieldNames = table.getSchema().getFieldNames();
+        TypeInformation<?>[] fieldTypes = table.getSchema().getFieldTypes();
 
-        DorisStreamLoad dorisStreamLoad = new DorisStreamLoad(fenodes, dbName, tableName, username, password, streamLoadProp);
-        return dataSet.output(new DorisOutputFormat<>(dorisStreamLoad, fieldNames, batchSize, batchIntervalMs, maxRetries));
+        DorisStreamLoad dorisStreamLoad = new DorisStreamLoad(fenodes, dbName, tableName, username, password, streamLoadProp, false);
+        return dataSet.output(new DorisOutputFormat<>(dorisStreamLoad, fieldNames, fieldTypes, batchSizer(), batchIntervalMs, maxRetries, loadConcurrency, batchLabelPrefix()));
     }
 
     @Override
@@ -104,9 +135,35 @@ public class DorisSink implements FlinkStreamSink<Row, Row>, FlinkBatchSink<Row,
         StreamTableEnvironment tableEnvironment = env.getStreamTableEnvironment();
         Table table = tableEnvironment.fromDataStream(dataStream);
         String[] fieldNames = table.getSchema().getFieldNames();
+        TypeInformation<?>[] fieldTypes = table.getSchema().getFieldTypes();
 
-        DorisStreamLoad dorisStreamLoad = new DorisStreamLoad(fenodes, dbName, tableName, username, password, streamLoadProp);
-        dataStream.addSink(new DorisSinkFunction<>(new DorisOutputFormat<>(dorisStreamLoad, fieldNames, batchSize, batchIntervalMs, maxRetries)));
+        if (twoPhaseCommit) {
+            Preconditions.checkArgument(env.getStreamExecutionEnvironment().getCheckpointConfig().isCheckpointingEnabled(),
+                    "two_phase_commit requires checkpointing, rows are only committed when a checkpoint completes");
+        } else {
+            // the replayed batches must be cut at the same rows to keep the labels of the loaded ones
+            Preconditions.checkArgument(config.hasPath("label_prefix"),
+                    "label_prefix is required without two_phase_commit, the labels must stay the same when the job is restored");
+            Preconditions.checkArgument(!adaptiveBatchSize,
+                    "adaptive_batch_size requires two_phase_commit in streaming mode, the batches must be cut at the same rows when they are replayed");
+            Preconditions.checkArgument(!config.hasPath("interval"),
+                    "interval requires two_phase_commit in streaming mode, the batches must be cut at the same rows when they are replayed");
+            batchIntervalMs = 0;
+        }
+        DorisStreamLoad dorisStreamLoad = new DorisStreamLoad(fenodes, dbName, tableName, username, password, streamLoadProp, twoPhaseCommit);
+        dataStream.addSink(new DorisSinkFunction<>(new DorisOutputFormat<>(dorisStreamLoad, fieldNames, fieldTypes, batchSizer(), batchIntervalMs, maxRetries, loadConcurrency, labelPrefix)));
         return null;
     }
+
+    private DorisBatchSizer batchSizer() {
+        return new DorisBatchSizer(batchSize, batchBytes, adaptiveBatchSize, adaptiveLoadLatencyMs);
+    }
+
+    /**
+     * The label prefix of a batch job, generated when the job is built so that it stays the same when its tasks
+     * are restarted, and differs from the previous runs of the job which load other rows.
+     */
+    private String batchLabelPrefix() {
+        return labelPrefix + "_" + UUID.randomUUID().toString().replaceAll("-", "");
+    }
 }
@@ -18,7 +18,13 @@
 package org.apache.seatunnel.flink.sink;
 
 import org.apache.flink.api.common.functions.RuntimeContext;
+import org.apache.flink.api.common.state.ListState;
+import org.apache.flink.api.common.state.ListStateDescriptor;
+import org.apache.flink.api.common.typeinfo.TypeHint;
+import org.apache.flink.api.common.typeinfo.TypeInformation;
+import org.apache.flink.api.java.tuple.Tuple2;
 import org.apache.flink.configuration.Configuration;
+import org.apache.flink.runtime.state.CheckpointListener;
 import org.apache.flink.runtime.state.FunctionInitializationContext;
 import org.apache.flink.runtime.state.FunctionSnapshotContext;
 import org.apache.flink.streaming.api.checkpoint.CheckpointedFunction;
@@ -28,10 +34,25 @@ import org.apache.flink.util.Preconditions;
 
 import javax.annotation.Nonnull;
 
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Flushes the buffered rows on every checkpoint. With two-phase commit the loads are pre-committed,
+ * kept in the checkpoint and committed once the checkpoint completes, or when the job restores from it.
+ *
+ * <p>The checkpoint id is kept in the state too, so that the loads after a restore are labeled with
+ * the checkpoint restored from.
+ */
 public class DorisSinkFunction<T> extends RichSinkFunction<T>
-        implements CheckpointedFunction {
+        implements CheckpointedFunction, CheckpointListener {
 
     private final DorisOutputFormat outputFormat;
+    private transient ListState<Long> checkpointState;
+    private transient ListState<Tuple2<Long, Long>> pendingState;
+    private transient NavigableMap<Long, List<Long>> pendingTransactions;
 
     public DorisSinkFunction(@Nonnull DorisOutputFormat outputFormat) {
         this.outputFormat = Preconditions.checkNotNull(outputFormat);
@@ -52,12 +73,62 @@ public class DorisSinkFunction<T> extends RichSinkFunction<T>
 
     @Override
     public void initializeState(FunctionInitializationContext context) throws Exception {
-
+        // union state, so that every subtask gets the checkpoint id back after a change of parallelism
+        checkpointState = context.getOperatorStateStore().getUnionListState(
+                new ListStateDescriptor<>("doris-last-checkpoint", Long.class));
+        if (context.isRestored()) {
+            long restoredCheckpointId = 0;
+            for (Long checkpointId : checkpointState.get()) {
+                restoredCheckpointId = Math.max(restoredCheckpointId, checkpointId);
+            }
+            outputFormat.restore(restoredCheckpointId);
+        }
+        if (!outputFormat.getDorisStreamLoad().isTwoPhaseCommit()) {
+            return;
+        }
+        pendingTransactions = new TreeMap<>();
+        pendingState = context.getOperatorStateStore().getListState(new ListStateDescriptor<>(
+                "doris-pending-transactions", TypeInformation.of(new TypeHint<Tuple2<Long, Long>>() {})));
+        if (context.isRestored()) {
+            // the checkpoint completed, but the transactions it pre-committed may not have been committed yet
+            for (Tuple2<Long, Long> transaction : pendingState.get()) {
+                outputFormat.getDorisStreamLoad().commit(transaction.f1);
+            }
+            pendingState.clear();
+        }
     }
 
     @Override
     public void snapshotState(FunctionSnapshotContext context) throws Exception {
+        List<Long> precommitted = outputFormat.snapshot(context.getCheckpointId());
+        checkpointState.clear();
+        checkpointState.add(context.getCheckpointId());
+        if (pendingTransactions == null) {
+            return;
+        }
+        if (!precommitted.isEmpty()) {
+            pendingTransactions.put(context.getCheckpointId(), precommitted);
+        }
+        pendingState.clear();
+        for (Map.Entry<Long, List<Long>> entry : pendingTransactions.entrySet()) {
+            for (Long txnId : entry.getValue()) {
+                pendingState.add(Tuple2.of(entry.getKey(), txnId));
+            }
+        }
+    }
 
+    @Override
+    public void notifyCheckpointComplete(long checkpointId) throws Exception {
+        if (pendingTransactions == null) {
+            return;
+        }
+        NavigableMap<Long, List<Long>> completed = pendingTransactions.headMap(checkpointId, true);
+        for (List<Long> transactions : completed.values()) {
+            for (Long txnId : transactions) {
+                outputFormat.getDorisStreamLoad().commit(txnId);
+            }
+        }
+        completed.clear();
     }
 
     @Override
@@ -17,30 +17,43 @@
 
 package org.apache.seatunnel.flink.sink;
 
+import net.jpountz.lz4.LZ4FrameOutputStream;
+import org.apache.flink.shaded.jackson2.com.fasterxml.jackson.databind.JsonNode;
 import org.apache.flink.shaded.jackson2.com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.http.HttpHeaders;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpPut;
+import org.apache.http.entity.AbstractHttpEntity;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultRedirectStrategy;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.util.EntityUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.BufferedOutputStream;
-import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
+import java.io.OutputStream;
 import java.io.Serializable;
-import java.net.HttpURLConnection;
-import java.net.URL;
 import java.nio.charset.StandardCharsets;
-import java.text.SimpleDateFormat;
 import java.util.Arrays;
 import java.util.Base64;
-import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
-import java.util.UUID;
+import java.util.zip.GZIPOutputStream;
 
 /**
  * doris streamLoad
+ *
+ * <p>Loads go to the FE, which redirects them to a BE. Requests are sent with {@code Expect: 100-continue}
+ * so that the body is only streamed to the BE, in chunks straight from the load buffer, and the
+ * connections to both are kept alive in a pool shared by the sinks of the JVM.
  */
 public class DorisStreamLoad implements Serializable {
 
@@ -48,105 +61,259 @@ public class DorisStreamLoad implements Serializable {
     private static final List<String> DORIS_SUCCESS_STATUS = Arrays.asList("Success", "Publish Timeout");
     private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
     private static final String LOAD_URL_PATTERN = "http://%s/api/%s/%s/_stream_load?";
+    private static final String TWO_PHASE_COMMIT_URL_PATTERN = "http://%s/api/%s/_stream_load_2pc";
+    private static final String LABEL_EXISTS_STATUS = "Label Already Exists";
+    private static final String FINISHED_JOB_STATUS = "FINISHED";
+    private static final String COMPRESS_TYPE_KEY = "compress_type";
+    private static final String COMPRESS_TYPE_GZ = "gz";
+    private static final String COMPRESS_TYPE_LZ4 = "lz4";
 
     private final String loadUrlStr;
+    private final String twoPhaseCommitUrlStr;
     private final String authEncoding;
     private final Properties streamLoadProp;
+    private final boolean twoPhaseCommit;
+    private final String compressType;
 
-    public DorisStreamLoad(String hostPort, String db, String tbl, String user, String passwd, Properties streamLoadProp) {
+    public DorisStreamLoad(String hostPort, String db, String tbl, String user, String passwd, Properties streamLoadProp, boolean twoPhaseCommit) {
         this.loadUrlStr = String.format(LOAD_URL_PATTERN, hostPort, db, tbl);
+        this.twoPhaseCommitUrlStr = String.format(TWO_PHASE_COMMIT_URL_PATTERN, hostPort, db);
         this.authEncoding = Base64.getEncoder().encodeToString(String.format("%s:%s", user, passwd).getBytes(StandardCharsets.UTF_8));
         this.streamLoadProp = streamLoadProp;
+        this.twoPhaseCommit = twoPhaseCommit;
+        this.compressType = streamLoadProp.getProperty(COMPRESS_TYPE_KEY);
+        if (compressType != null && !COMPRESS_TYPE_GZ.equals(compressType) && !COMPRESS_TYPE_LZ4.equals(compressType)) {
+            throw new IllegalArgumentException("unsupported doris.compress_type [" + compressType + "], only gz and lz4 are supported");
+        }
     }
 
     public Properties getStreamLoadProp() {
         return streamLoadProp;
     }
 
-    private HttpURLConnection getConnection(String urlStr, String label) throws IOException {
-        URL url = new URL(urlStr);
-        HttpURLConnection conn = (HttpURLConnection) url.openConnection();
-        conn.setInstanceFollowRedirects(false);
-        conn.setRequestMethod("PUT");
-        conn.setRequestProperty("Authorization", "Basic " + authEncoding);
-        conn.addRequestProperty("Expect", "100-continue");
-        conn.addRequestProperty("Content-Type", "text/plain; charset=UTF-8");
-        conn.addRequestProperty("label", label);
-        for (Map.Entry<Object, Object> entry : streamLoadProp.entrySet()) {
-            conn.addRequestProperty(String.valueOf(entry.getKey()), String.valueOf(entry.getValue()));
+    public boolean isTwoPhaseCommit() {
+        return twoPhaseCommit;
+    }
+
+    private HttpPut buildRequest(String urlStr, Map<String, String> headers) {
+        HttpPut put = new HttpPut(urlStr);
+        put.setHeader(HttpHeaders.AUTHORIZATION, "Basic " + authEncoding);
+        put.setHeader(HttpHeaders.EXPECT, "100-continue");
+        for (Map.Entry<String, String> header : headers.entrySet()) {
+            put.setHeader(header.getKey(), header.getValue());
         }
-        conn.setDoOutput(true);
-        conn.setDoInput(true);
-        return conn;
+        return put;
     }
 
-    public void load(String value) {
-        LoadResponse loadResponse = loadBatch(value);
+    /**
+     * Loads the data under the given label. With two-phase commit the load is only pre-committed
+     * and becomes visible once its transaction is committed with {@link #commit(long)}.
+     *
+     * <p>A label is loaded at most once by Doris, {@link LabelExistsException} is thrown when the label is
+     * already used, the caller knows whether it was used for the same data.
+     */
+    public RespContent load(DorisLoadBuffer data, String label) {
+        LoadResponse loadResponse = loadBatch(data, label);
         LOG.info("Streamload Response:{}", loadResponse);
         if (loadResponse.status != 200) {
             throw new RuntimeException("stream load error: " + loadResponse.respContent);
-        } else {
-            try {
-                RespContent respContent = OBJECT_MAPPER.readValue(loadResponse.respContent, RespContent.class);
-                if (!DORIS_SUCCESS_STATUS.contains(respContent.getStatus())
-                        || respContent.getNumberTotalRows() != respContent.getNumberLoadedRows()) {
-                    String errMsg = String.format("stream load error: %s, see more in %s", respContent.getMessage(), respContent.getErrorURL());
-                    throw new RuntimeException(errMsg);
-                }
-            } catch (IOException e) {
-                throw new RuntimeException(e);
+        }
+        RespContent respContent;
+        try {
+            respContent = OBJECT_MAPPER.readValue(loadResponse.respContent, RespContent.class);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        if (LABEL_EXISTS_STATUS.equals(respContent.getStatus())) {
+            throw new LabelExistsException(label, !twoPhaseCommit && FINISHED_JOB_STATUS.equals(respContent.getExistingJobStatus()));
+        }
+        if (!DORIS_SUCCESS_STATUS.contains(respContent.getStatus())
+                || respContent.getNumberTotalRows() != respContent.getNumberLoadedRows()) {
+            String errMsg = String.format("stream load error: %s, see more in %s", respContent.getMessage(), respContent.getErrorURL());
+            throw new RuntimeException(errMsg);
+        }
+        return respContent;
+    }
+
+    /**
+     * Commits a pre-committed transaction, committing a transaction that is already committed is a no-op.
+     */
+    public void commit(long txnId) {
+        String message = operateTransaction(txnId, "commit");
+        if (message != null) {
+            if (message.contains("already visible") || message.contains("already committed")) {
+                LOG.info("transaction {} has already been committed", txnId);
+            } else {
+                throw new RuntimeException(String.format("commit transaction %s error: %s", txnId, message));
             }
         }
     }
 
-    private LoadResponse loadBatch(String data) {
-        String formatDate = new SimpleDateFormat("yyyyMMdd_HHmmss").format(new Date());
-        String label = String.format("flink_sink_%s_%s", formatDate,
-                UUID.randomUUID().toString().replaceAll("-", ""));
+    public void abort(long txnId) {
+        String message = operateTransaction(txnId, "abort");
+        if (message != null) {
+            throw new RuntimeException(String.format("abort transaction %s error: %s", txnId, message));
+        }
+    }
 
-        HttpURLConnection feConn = null;
-        HttpURLConnection beConn = null;
+    /**
+     * @return null if the operation succeeded, else the error message
+     */
+    private String operateTransaction(long txnId, String operation) {
+        Map<String, String> headers = new HashMap<>();
+        headers.put("txn_id", String.valueOf(txnId));
+        headers.put("txn_operation", operation);
+        LoadResponse response = execute(buildRequest(twoPhaseCommitUrlStr, headers), "transaction " + txnId);
+        LOG.info("Transaction {} Response:{}", operation, response);
+        if (response.status != 200) {
+            return response.respContent;
+        }
         try {
-            // build request and send to fe
-            feConn = getConnection(loadUrlStr, label);
-            int status = feConn.getResponseCode();
-            // fe send back http response code TEMPORARY_REDIRECT 307 and new be location
-            if (status != 307) {
-                throw new Exception("status is not TEMPORARY_REDIRECT 307, status: " + status);
-            }
-            String location = feConn.getHeaderField("Location");
-            if (location == null) {
-                throw new Exception("redirect location is null");
-            }
-            // build request and send to new be location
-            beConn = getConnection(location, label);
-            // send data to be
-            BufferedOutputStream bos = new BufferedOutputStream(beConn.getOutputStream());
-            bos.write(data.getBytes());
-            bos.close();
-
-            // get respond
-            status = beConn.getResponseCode();
-            String respMsg = beConn.getResponseMessage();
-            InputStream stream = (InputStream) beConn.getContent();
-            BufferedReader br = new BufferedReader(new InputStreamReader(stream));
-            StringBuilder response = new StringBuilder();
-            String line;
-            while ((line = br.readLine()) != null) {
-                response.append(line);
-            }
-            return new LoadResponse(status, respMsg, response.toString());
+            JsonNode result = OBJECT_MAPPER.readTree(response.respContent);
+            return "Success".equals(result.path("status").asText()) ? null : result.path("msg").asText();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private LoadResponse loadBatch(DorisLoadBuffer data, String label) {
+        Map<String, String> headers = new HashMap<>();
+        headers.put(HttpHeaders.CONTENT_TYPE, "text/plain; charset=UTF-8");
+        headers.put("label", label);
+        if (twoPhaseCommit) {
+            headers.put("two_phase_commit", "true");
+        }
+        for (Map.Entry<Object, Object> entry : streamLoadProp.entrySet()) {
+            headers.put(String.valueOf(entry.getKey()), String.valueOf(entry.getValue()));
+        }
+        HttpPut put = buildRequest(loadUrlStr, headers);
+        put.setEntity(new LoadEntity(data, compressType));
+        return execute(put, "label " + label);
+    }
+
+    private LoadResponse execute(HttpPut request, String description) {
+        try (CloseableHttpResponse response = HttpClientHolder.CLIENT.execute(request)) {
+            int status = response.getStatusLine().getStatusCode();
+            String respMsg = response.getStatusLine().getReasonPhrase();
+            // reading the whole entity releases the connection back to the pool
+            String respContent = response.getEntity() == null ? "" : EntityUtils.toString(response.getEntity(), StandardCharsets.UTF_8);
+            return new LoadResponse(status, respMsg, respContent);
         } catch (Exception e) {
-            String err = "failed to stream load data with label:" + label;
+            String err = "failed to stream load data with " + description;
             LOG.warn(err, e);
-            throw new RuntimeException("stream load error: " + err);
-        } finally {
-            if (feConn != null) {
-                feConn.disconnect();
+            throw new RuntimeException("stream load error: " + err, e);
+        }
+    }
+
+    /**
+     * Client shared by the sinks of the JVM, its pool keeps the connections to the FEs and BEs alive
+     * between loads. The timeouts are the ones of the Spark Doris sink, the socket timeout covers the
+     * default Doris stream load timeout of 600 seconds.
+     */
+    private static final class HttpClientHolder {
+        private static final int MAX_CONNECTIONS = 256;
+        private static final int MAX_CONNECTIONS_PER_ROUTE = 32;
+        private static final int CONNECT_TIMEOUT_MS = 30000;
+        private static final int SOCKET_TIMEOUT_MS = 600000;
+
+        private static final CloseableHttpClient CLIENT = createClient();
+
+        private static CloseableHttpClient createClient() {
+            PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
+            connectionManager.setMaxTotal(MAX_CONNECTIONS);
+            connectionManager.setDefaultMaxPerRoute(MAX_CONNECTIONS_PER_ROUTE);
+            return HttpClients.custom()
+                    .setConnectionManager(connectionManager)
+                    .setDefaultRequestConfig(RequestConfig.custom()
+                            .setExpectContinueEnabled(true)
+                            .setConnectTimeout(CONNECT_TIMEOUT_MS)
+                            .setConnectionRequestTimeout(CONNECT_TIMEOUT_MS)
+                            .setSocketTimeout(SOCKET_TIMEOUT_MS)
+                            .build())
+                    .setRedirectStrategy(new DefaultRedirectStrategy() {
+                        // the FE redirects stream loads to a BE with a 307, which is not followed for PUT by default
+                        @Override
+                        protected boolean isRedirectable(String method) {
+                            return true;
+                        }
+                    })
+                    .build();
+        }
+    }
+
+    /**
+     * Chunked request body written straight from the load buffer, compressed on the fly when a
+     * {@code compress_type} is set. It is repeatable as the buffer is only reset after the load succeeded.
+     */
+    private static class LoadEntity extends AbstractHttpEntity {
+        private final DorisLoadBuffer data;
+        private final String compressType;
+
+        LoadEntity(DorisLoadBuffer data, String compressType) {
+            this.data = data;
+            this.compressType = compressType;
+            setChunked(true);
+        }
+
+        @Override
+        public boolean isRepeatable() {
+            return true;
+        }
+
+        @Override
+        public long getContentLength() {
+            return -1;
+        }
+
+        @Override
+        public InputStream getContent() throws IOException {
+            if (compressType == null) {
+                return new ByteArrayInputStream(data.array(), 0, data.size());
             }
-            if (beConn != null) {
-                beConn.disconnect();
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            writeTo(out);
+            return new ByteArrayInputStream(out.toByteArray());
+        }
+
+        @Override
+        public void writeTo(OutputStream out) throws IOException {
+            if (COMPRESS_TYPE_GZ.equals(compressType)) {
+                GZIPOutputStream gzip = new GZIPOutputStream(out, 1 << 16);
+                data.writeTo(gzip);
+                gzip.finish();
+            } else if (COMPRESS_TYPE_LZ4.equals(compressType)) {
+                LZ4FrameOutputStream lz4 = new LZ4FrameOutputStream(out);
+                data.writeTo(lz4);
+                // ends the frame, the chunked stream tolerates being closed twice
+                lz4.close();
+            } else {
+                data.writeTo(out);
             }
+            out.flush();
+        }
+
+        @Override
+        public boolean isStreaming() {
+            return false;
+        }
+    }
+
+    /**
+     * Thrown when a label is already used by a load.
+     */
+    public static class LabelExistsException extends RuntimeException {
+        private final boolean loaded;
+
+        public LabelExistsException(String label, boolean loaded) {
+            super("stream load label " + label + " already exists");
+            this.loaded = loaded;
+        }
+
+        /**
+         * @return whether the load of the label has finished, always false with two-phase commit as it is only pre-committed
+         */
+        public boolean isLoaded() {
+            return loaded;
         }
     }
 
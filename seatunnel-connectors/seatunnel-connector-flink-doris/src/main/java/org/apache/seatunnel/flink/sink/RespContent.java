@@ -33,7 +33,7 @@ public class RespContent implements Serializable {
      * Imported transaction ID. The user may not perceive it.
      */
     @JsonProperty(value = "TxnId")
-    private int txnId;
+    private long txnId;
     /**
      * Import Label. Specified by the user or automatically generated by the system.
      */
@@ -125,11 +125,11 @@ public class RespContent implements Serializable {
         return serialVersionUID;
     }
 
-    public int getTxnId() {
+    public long getTxnId() {
         return txnId;
     }
 
-    public void setTxnId(int txnId) {
+    public void setTxnId(long txnId) {
         this.txnId = txnId;
     }
 
@@ -0,0 +1,136 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.seatunnel.flink.sink;
+
+import org.apache.flink.api.common.typeinfo.BasicArrayTypeInfo;
+import org.apache.flink.api.common.typeinfo.TypeInformation;
+import org.apache.flink.api.common.typeinfo.Types;
+import org.apache.flink.types.Row;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.util.Collections;
+
+public class DorisRowSerializerTest {
+
+    private static final String[] NAMES = {"id", "name", "price", "day", "time"};
+    private static final TypeInformation<?>[] TYPES = {
+        Types.LONG, Types.STRING, Types.BIG_DEC, Types.SQL_DATE, Types.SQL_TIMESTAMP};
+
+    @Test
+    public void testCsvNulls() {
+        DorisRowSerializer serializer = new DorisRowSerializer(NAMES, TYPES, false, "\t", null, null);
+
+        Assert.assertEquals("1\t\\N\t\\N\t\\N\t\\N", serialize(serializer, Row.of(1L, null, null, null, null)));
+    }
+
+    @Test
+    public void testCsvValues() {
+        DorisRowSerializer serializer = new DorisRowSerializer(NAMES, TYPES, false, ",", null, null);
+        Row row = Row.of(-42L, "a\tb", new BigDecimal("1E+3"), Date.valueOf("0999-01-02"),
+            Timestamp.valueOf("2021-12-01 08:30:00.123456"));
+
+        Assert.assertEquals("-42,a\tb,1000,0999-01-02,2021-12-01 08:30:00.123456", serialize(serializer, row));
+        Assert.assertEquals("9223372036854775807,,0.5,2021-12-01,2021-12-01 00:00:00",
+            serialize(serializer, Row.of(Long.MAX_VALUE, "", new BigDecimal("0.5"), Date.valueOf("2021-12-01"),
+                Timestamp.valueOf("2021-12-01 00:00:00"))));
+    }
+
+    @Test
+    public void testCsvStringsAreWrittenAsTheyAreWithoutEnclose() {
+        DorisRowSerializer serializer = new DorisRowSerializer(
+            new String[]{"s"}, new TypeInformation<?>[]{Types.STRING}, false, ",", null, null);
+
+        Assert.assertEquals("say \"hi\", \\ é 😀", serialize(serializer, Row.of("say \"hi\", \\ é 😀")));
+    }
+
+    @Test
+    public void testCsvEncloseAndEscape() {
+        DorisRowSerializer serializer = new DorisRowSerializer(
+            new String[]{"s", "t"}, new TypeInformation<?>[]{Types.STRING, Types.STRING}, false, ",", "\"", "\\");
+
+        Assert.assertEquals("\"say \\\"hi\\\", \\\\ é 😀\",\\N",
+            serialize(serializer, Row.of("say \"hi\", \\ é 😀", null)));
+        Assert.assertEquals("\"line\nbreak\",\"\"", serialize(serializer, Row.of("line\nbreak", "")));
+    }
+
+    @Test
+    public void testCsvCustomEscape() {
+        DorisRowSerializer serializer = new DorisRowSerializer(
+            new String[]{"s"}, new TypeInformation<?>[]{Types.STRING}, false, "|", "'", "'");
+
+        Assert.assertEquals("'it''s'", serialize(serializer, Row.of("it's")));
+    }
+
+    @Test
+    public void testJsonEscaping() {
+        DorisRowSerializer serializer = new DorisRowSerializer(
+            new String[]{"na\"me", "n", "d", "tags"},
+            new TypeInformation<?>[]{Types.STRING, Types.INT, Types.DOUBLE, BasicArrayTypeInfo.STRING_ARRAY_TYPE_INFO},
+            true, "\t", null, null);
+        Row row = Row.of("a\"b\\c\n\r\t\u0001 é 😀", null, Double.NaN, new String[]{"x", null});
+
+        Assert.assertEquals(
+            "{\"na\\\"me\":\"a\\\"b\\\\c\\n\\r\\t\\u0001 é 😀\",\"n\":null,\"d\":null,\"tags\":[\"x\",null]}",
+            serialize(serializer, row));
+    }
+
+    @Test
+    public void testJsonNestedValues() {
+        DorisRowSerializer serializer = new DorisRowSerializer(
+            new String[]{"r", "m", "t"},
+            new TypeInformation<?>[]{
+                Types.ROW_NAMED(new String[]{"day", "ok"}, Types.SQL_DATE, Types.BOOLEAN),
+                Types.MAP(Types.STRING, Types.LONG),
+                Types.SQL_TIMESTAMP},
+            true, "\t", null, null);
+        Row row = Row.of(Row.of(Date.valueOf("2021-12-01"), true), Collections.singletonMap("k\"", 1L),
+            Timestamp.valueOf("2021-12-01 08:30:00"));
+
+        Assert.assertEquals(
+            "{\"r\":{\"day\":\"2021-12-01\",\"ok\":true},\"m\":{\"k\\\"\":1},\"t\":\"2021-12-01 08:30:00\"}",
+            serialize(serializer, row));
+    }
+
+    @Test
+    public void testGenericValuesAreWrittenByTheirClass() {
+        DorisRowSerializer csv = new DorisRowSerializer(
+            new String[]{"a", "b"},
+            new TypeInformation<?>[]{Types.GENERIC(Object.class), Types.GENERIC(Object.class)},
+            false, "\t", null, null);
+        Assert.assertEquals("x\t[\"x\",1,null]", serialize(csv, Row.of("x", new Object[]{"x", 1L, null})));
+        Assert.assertEquals("2\t[\"2021-12-01\",\"y\"]",
+            serialize(csv, Row.of(2L, new Object[]{Date.valueOf("2021-12-01"), "y"})));
+
+        DorisRowSerializer json = new DorisRowSerializer(
+            new String[]{"a"}, new TypeInformation<?>[]{Types.GENERIC(Object.class)}, true, "\t", null, null);
+        Assert.assertEquals("{\"a\":{\"k\":[\"x\",1]}}",
+            serialize(json, Row.of(Collections.singletonMap("k", new Object[]{"x", 1}))));
+        Assert.assertEquals("{\"a\":\"2021-12-01\"}", serialize(json, Row.of(Date.valueOf("2021-12-01"))));
+    }
+
+    private static String serialize(DorisRowSerializer serializer, Row row) {
+        DorisLoadBuffer buffer = new DorisLoadBuffer(4);
+        serializer.serialize(row, buffer);
+        return new String(buffer.toByteArray(), StandardCharsets.UTF_8);
+    }
+}
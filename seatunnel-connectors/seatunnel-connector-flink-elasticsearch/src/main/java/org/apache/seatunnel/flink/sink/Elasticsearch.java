@@ -24,30 +24,23 @@ import org.apache.seatunnel.flink.FlinkEnvironment;
 import org.apache.seatunnel.flink.batch.FlinkBatchSink;
 import org.apache.seatunnel.flink.stream.FlinkStreamSink;
 import org.apache.seatunnel.common.config.CheckResult;
-import org.apache.flink.api.common.functions.RuntimeContext;
 import org.apache.flink.api.java.DataSet;
 import org.apache.flink.api.java.operators.DataSink;
 import org.apache.flink.api.java.typeutils.RowTypeInfo;
-import org.apache.flink.streaming.connectors.elasticsearch.ElasticsearchSinkFunction;
-import org.apache.flink.streaming.connectors.elasticsearch.RequestIndexer;
+import org.apache.flink.streaming.connectors.elasticsearch.ElasticsearchSinkBase;
 import org.apache.flink.streaming.connectors.elasticsearch6.ElasticsearchSink;
 import org.apache.flink.types.Row;
 import org.apache.flink.streaming.api.datastream.DataStream;
 import org.apache.flink.streaming.api.datastream.DataStreamSink;
 import org.apache.http.HttpHost;
 
-import org.elasticsearch.action.index.IndexRequest;
-import org.elasticsearch.client.Requests;
-
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
 public class Elasticsearch implements FlinkStreamSink<Row, Row>, FlinkBatchSink<Row, Row> {
 
     private Config config;
-    private String indexName;
 
     @Override
     public void setConfig(Config config) {
@@ -61,19 +54,36 @@ public class Elasticsearch implements FlinkStreamSink<Row, Row>, FlinkBatchSink<
 
     @Override
     public CheckResult checkConfig() {
-        if (config.hasPath("hosts")) {
-            return new CheckResult(true, "");
+        if (!config.hasPath("hosts")) {
+            return new CheckResult(false, "please specify [hosts] as a non-empty string list");
+        }
+        if (config.hasPath("bulk_flush_backoff_type")) {
+            String backoffType = config.getString("bulk_flush_backoff_type").toUpperCase();
+            if (!"CONSTANT".equals(backoffType) && !"EXPONENTIAL".equals(backoffType)) {
+                return new CheckResult(false, "[bulk_flush_backoff_type] must be CONSTANT or EXPONENTIAL");
+            }
         }
-        return new CheckResult(false, "please specify [hosts] as a non-empty string list");
+        return new CheckResult(true, "");
     }
 
     @Override
     public void prepare(FlinkEnvironment env) {
-        Config defaultConfig = ConfigFactory.parseMap(new HashMap<String, String>(2) {
+        Config defaultConfig = ConfigFactory.parseMap(new HashMap<String, Object>(16) {
             {
                 put("index", "seatunnel");
                 put("index_type", "log");
                 put("index_time_format", "yyyy.MM.dd");
+                put("bulk_flush_max_actions", 1000);
+                put("bulk_flush_max_size_mb", 5);
+                put("bulk_flush_interval", 1000);
+                put("bulk_concurrency", 1);
+                put("bulk_flush_backoff", true);
+                put("bulk_flush_backoff_type", "EXPONENTIAL");
+                put("bulk_flush_backoff_retries", 3);
+                put("bulk_flush_backoff_delay", 100);
+                put("retry_rejected", true);
+                put("retry_rejected_max_backoff", 60000);
+                put("retry_rejected_max_retries", 20);
             }
         });
         config = config.withFallback(defaultConfig);
@@ -89,33 +99,23 @@ public class Elasticsearch implements FlinkStreamSink<Row, Row>, FlinkBatchSink<
         }
 
         RowTypeInfo rowTypeInfo = (RowTypeInfo) dataStream.getType();
-        String[] fieldNames = rowTypeInfo.getFieldNames();
-        indexName = StringTemplate.substitute(config.getString("index"), config.getString("index_time_format"));
-        ElasticsearchSink.Builder<Row> esSinkBuilder = new ElasticsearchSink.Builder<>(
-                httpHosts,
-                new ElasticsearchSinkFunction<Row>() {
-                    public IndexRequest createIndexRequest(Row element) {
-                        Map<String, Object> json = new HashMap<>(100);
-                        int elementLen = element.getArity();
-                        for (int i = 0; i < elementLen; i++) {
-                            json.put(fieldNames[i], element.getField(i));
-                        }
-
-                        return Requests.indexRequest()
-                                .index(indexName)
-                                .type(config.getString("index_type"))
-                                .source(json);
-                    }
-
-                    @Override
-                    public void process(Row element, RuntimeContext ctx, RequestIndexer indexer) {
-                        indexer.add(createIndexRequest(element));
-                    }
-                }
-        );
-
-        // configuration for the bulk requests; this instructs the sink to emit after every element, otherwise they would be buffered
-        esSinkBuilder.setBulkFlushMaxActions(1);
+        ElasticsearchSink.Builder<Row> esSinkBuilder = new ElasticsearchSink.Builder<>(httpHosts, sinkFunction(rowTypeInfo));
+
+        // a bulk is sent when it reaches the max actions or size, or the flush interval elapses, and on every checkpoint
+        esSinkBuilder.setBulkFlushMaxActions(config.getInt("bulk_flush_max_actions"));
+        esSinkBuilder.setBulkFlushMaxSizeMb(config.getInt("bulk_flush_max_size_mb"));
+        esSinkBuilder.setBulkFlushInterval(config.getLong("bulk_flush_interval"));
+
+        // the bulk processor retries the items rejected with a full queue, the failure handler gets them once these retries are exhausted
+        esSinkBuilder.setBulkFlushBackoff(config.getBoolean("bulk_flush_backoff"));
+        esSinkBuilder.setBulkFlushBackoffType(ElasticsearchSinkBase.FlushBackoffType.valueOf(config.getString("bulk_flush_backoff_type").toUpperCase()));
+        esSinkBuilder.setBulkFlushBackoffRetries(config.getInt("bulk_flush_backoff_retries"));
+        esSinkBuilder.setBulkFlushBackoffDelay(config.getLong("bulk_flush_backoff_delay"));
+        if (config.getBoolean("retry_rejected")) {
+            esSinkBuilder.setFailureHandler(new ElasticsearchRetryFailureHandler(
+                    config.getLong("bulk_flush_backoff_delay"), config.getLong("retry_rejected_max_backoff"),
+                    config.getInt("retry_rejected_max_retries")));
+        }
 
         // finally, build and add the sink to the job's pipeline
         return dataStream.addSink(esSinkBuilder.build());
@@ -125,26 +125,12 @@ public class Elasticsearch implements FlinkStreamSink<Row, Row>, FlinkBatchSink<
     public DataSink<Row> outputBatch(FlinkEnvironment env, DataSet<Row> dataSet) {
 
         RowTypeInfo rowTypeInfo = (RowTypeInfo) dataSet.getType();
-        String[] fieldNames = rowTypeInfo.getFieldNames();
-        indexName = StringTemplate.substitute(config.getString("index"), config.getString("index_time_format"));
-        return dataSet.output(new ElasticsearchOutputFormat<>(config, new ElasticsearchSinkFunction<Row>() {
-            @Override
-            public void process(Row element, RuntimeContext ctx, RequestIndexer indexer) {
-                indexer.add(createIndexRequest(element));
-            }
+        return dataSet.output(new ElasticsearchOutputFormat<>(config, sinkFunction(rowTypeInfo)));
+    }
 
-            private IndexRequest createIndexRequest(Row element) {
-                Map<String, Object> json = new HashMap<>(100);
-                int elementLen = element.getArity();
-                for (int i = 0; i < elementLen; i++) {
-                    json.put(fieldNames[i], element.getField(i));
-                }
-
-                return Requests.indexRequest()
-                        .index(indexName)
-                        .type(config.getString("index_type"))
-                        .source(json);
-            }
-        }));
+    private ElasticsearchRowSinkFunction sinkFunction(RowTypeInfo rowTypeInfo) {
+        String indexName = StringTemplate.substitute(config.getString("index"), config.getString("index_time_format"));
+        String idField = config.hasPath("id_field") ? config.getString("id_field") : null;
+        return new ElasticsearchRowSinkFunction(indexName, config.getString("index_type"), new ElasticsearchRowWriter(rowTypeInfo, idField));
     }
 }
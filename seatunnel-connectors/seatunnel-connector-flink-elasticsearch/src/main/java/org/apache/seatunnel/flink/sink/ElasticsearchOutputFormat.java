@@ -22,32 +22,68 @@ import org.apache.flink.api.common.io.RichOutputFormat;
 import org.apache.flink.configuration.Configuration;
 import org.apache.flink.streaming.connectors.elasticsearch.ElasticsearchSinkFunction;
 import org.apache.flink.streaming.connectors.elasticsearch.RequestIndexer;
+import org.apache.http.HttpHost;
+import org.elasticsearch.action.DocWriteRequest;
+import org.elasticsearch.action.bulk.BackoffPolicy;
+import org.elasticsearch.action.bulk.BulkItemResponse;
 import org.elasticsearch.action.bulk.BulkProcessor;
 import org.elasticsearch.action.bulk.BulkRequest;
 import org.elasticsearch.action.bulk.BulkResponse;
 import org.elasticsearch.action.delete.DeleteRequest;
 import org.elasticsearch.action.index.IndexRequest;
 import org.elasticsearch.action.update.UpdateRequest;
-import org.elasticsearch.common.settings.Settings;
-import org.elasticsearch.client.transport.TransportClient;
-import org.elasticsearch.common.transport.TransportAddress;
-import org.elasticsearch.transport.client.PreBuiltTransportClient;
+import org.elasticsearch.client.RestClient;
+import org.elasticsearch.client.RestHighLevelClient;
+import org.elasticsearch.common.unit.ByteSizeUnit;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.rest.RestStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
-import java.net.InetAddress;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
+/**
+ * Writes the documents with bulk requests sent over the Elasticsearch REST client, with up to
+ * `bulk_concurrency` bulks in flight. The documents of a bulk that Elasticsearch rejected because
+ * its queues are full are sent again after a backoff, and then added to a next bulk when
+ * `retry_rejected` is set, after a backoff growing up to `retry_rejected_max_backoff`, and at most
+ * `retry_rejected_max_retries` times in a row. Any other failure fails the task on the next record
+ * or on close, which returns once every bulk has been acknowledged.
+ */
 public class ElasticsearchOutputFormat<T> extends RichOutputFormat<T> {
 
-    private Config config;
+    private static final long serialVersionUID = 1L;
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ElasticsearchOutputFormat.class);
 
-    private static final String PREFIX = "es.";
+    private final Config config;
 
     private final ElasticsearchSinkFunction<T> elasticsearchSinkFunction;
 
-    private transient RequestIndexer requestIndexer;
+    private transient RestHighLevelClient client;
 
     private transient BulkProcessor bulkProcessor;
 
+    private transient RequestIndexer requestIndexer;
+
+    private transient Queue<DocWriteRequest<?>> rejected;
+
+    private transient AtomicReference<Throwable> failure;
+
+    private transient int pendingBulks;
+
+    private transient volatile boolean bulkAccepted;
+
+    private transient int rejectedRetries;
+
     public ElasticsearchOutputFormat(Config userConfig, ElasticsearchSinkFunction<T> elasticsearchSinkFunction) {
         this.config = userConfig;
         this.elasticsearchSinkFunction = elasticsearchSinkFunction;
@@ -55,76 +91,201 @@ public class ElasticsearchOutputFormat<T> extends RichOutputFormat<T> {
 
     @Override
     public void configure(Configuration configuration) {
-        List<String> hosts = config.getStringList("hosts");
-        Settings.Builder settings = Settings.builder();
-
-        config.entrySet().forEach(entry -> {
-            String key = entry.getKey();
-            Object value = entry.getValue().unwrapped();
-            if (key.startsWith(PREFIX)) {
-                settings.put(key.substring(PREFIX.length()), value.toString());
-            }
-        });
-
-        TransportClient transportClient = new PreBuiltTransportClient(settings.build());
+    }
 
-        for (String host : hosts) {
-            try {
-                transportClient.addTransportAddresses(new TransportAddress(InetAddress.getByName(host.split(":")[0]), Integer.parseInt(host.split(":")[1])));
-            } catch (Exception e) {
-                e.printStackTrace();
-            }
+    @Override
+    public void open(int taskNumber, int numTasks) throws IOException {
+        List<HttpHost> httpHosts = new ArrayList<>();
+        for (String host : config.getStringList("hosts")) {
+            httpHosts.add(new HttpHost(host.split(":")[0], Integer.parseInt(host.split(":")[1]), "http"));
+        }
+        client = new RestHighLevelClient(RestClient.builder(httpHosts.toArray(new HttpHost[0])));
+        if (!client.ping()) {
+            throw new IOException("Elasticsearch cluster " + httpHosts + " is not reachable");
         }
 
-        BulkProcessor.Builder bulkProcessorBuilder = BulkProcessor.builder(transportClient, new BulkProcessor.Listener() {
-            public void beforeBulk(long executionId, BulkRequest request) {
-            }
-
-            public void afterBulk(long executionId, BulkRequest request, BulkResponse response) {
-            }
-
-            public void afterBulk(long executionId, BulkRequest request, Throwable failure) {
-            }
-        });
+        rejected = new ConcurrentLinkedQueue<>();
+        failure = new AtomicReference<>();
+        pendingBulks = 0;
+        bulkAccepted = false;
+        rejectedRetries = 0;
 
-        // This makes flush() blocking
-        //  bulkProcessorBuilder.setConcurrentRequests(0);
+        BulkProcessor.Builder builder = BulkProcessor.builder(client::bulkAsync, new BulkListener());
+        builder.setBulkActions(config.getInt("bulk_flush_max_actions"));
+        builder.setBulkSize(new ByteSizeValue(config.getInt("bulk_flush_max_size_mb"), ByteSizeUnit.MB));
+        builder.setConcurrentRequests(config.getInt("bulk_concurrency"));
+        if (config.getBoolean("bulk_flush_backoff")) {
+            TimeValue delay = TimeValue.timeValueMillis(config.getLong("bulk_flush_backoff_delay"));
+            int retries = config.getInt("bulk_flush_backoff_retries");
+            builder.setBackoffPolicy("CONSTANT".equalsIgnoreCase(config.getString("bulk_flush_backoff_type"))
+                    ? BackoffPolicy.constantBackoff(delay, retries)
+                    : BackoffPolicy.exponentialBackoff(delay, retries));
+        } else {
+            builder.setBackoffPolicy(BackoffPolicy.noBackoff());
+        }
+        bulkProcessor = builder.build();
 
-        bulkProcessor = bulkProcessorBuilder.build();
         requestIndexer = new RequestIndexer() {
             @Override
             public void add(DeleteRequest... deleteRequests) {
-
+                for (DeleteRequest deleteRequest : deleteRequests) {
+                    addRequest(deleteRequest);
+                }
             }
 
             @Override
             public void add(IndexRequest... indexRequests) {
                 for (IndexRequest indexRequest : indexRequests) {
-
-                    bulkProcessor.add(indexRequest);
+                    addRequest(indexRequest);
                 }
             }
 
             @Override
             public void add(UpdateRequest... updateRequests) {
-
+                for (UpdateRequest updateRequest : updateRequests) {
+                    addRequest(updateRequest);
+                }
             }
         };
     }
 
     @Override
-    public void open(int i, int i1) {
-
+    public void writeRecord(T record) throws IOException {
+        checkFailure();
+        retryRejected();
+        elasticsearchSinkFunction.process(record, getRuntimeContext(), requestIndexer);
     }
 
     @Override
-    public void writeRecord(T t) {
-        elasticsearchSinkFunction.process(t, getRuntimeContext(), requestIndexer);
+    public void close() throws IOException {
+        if (bulkProcessor == null) {
+            return;
+        }
+        try {
+            // the rejected documents of the last bulks make new ones, until none is left
+            do {
+                retryRejected();
+                bulkProcessor.flush();
+                awaitPendingBulks();
+                checkFailure();
+            } while (!rejected.isEmpty());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("interrupted while waiting for the Elasticsearch bulks", e);
+        } finally {
+            try {
+                bulkProcessor.awaitClose(1, TimeUnit.MINUTES);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            bulkProcessor = null;
+            client.close();
+        }
     }
 
-    @Override
-    public void close() {
-        this.bulkProcessor.flush();
+    private void addRequest(DocWriteRequest<?> request) {
+        bulkProcessor.add(request);
+    }
+
+    /**
+     * Adds the rejected documents to the next bulk after a backoff, which doubles while no bulk is fully accepted.
+     */
+    private void retryRejected() throws IOException {
+        if (rejected.isEmpty()) {
+            return;
+        }
+        if (bulkAccepted) {
+            bulkAccepted = false;
+            rejectedRetries = 0;
+        }
+        int maxRetries = config.getInt("retry_rejected_max_retries");
+        if (rejectedRetries >= maxRetries) {
+            throw new IOException("Elasticsearch still rejected " + rejected.size() + " documents after " + maxRetries + " retries");
+        }
+        long backoff = Math.min(config.getLong("bulk_flush_backoff_delay") << Math.min(rejectedRetries, 30),
+                config.getLong("retry_rejected_max_backoff"));
+        rejectedRetries++;
+        LOGGER.warn("Elasticsearch rejected {} documents, retry them in {} ms", rejected.size(), backoff);
+        try {
+            Thread.sleep(backoff);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("interrupted while waiting to retry the rejected documents");
+        }
+        DocWriteRequest<?> request;
+        while ((request = rejected.poll()) != null) {
+            addRequest(request);
+        }
+    }
+
+    private synchronized void bulkDone() {
+        pendingBulks--;
+        notifyAll();
     }
 
+    private synchronized void awaitPendingBulks() throws InterruptedException {
+        while (pendingBulks > 0) {
+            wait();
+        }
+    }
+
+    private void checkFailure() throws IOException {
+        Throwable cause = failure.get();
+        if (cause != null) {
+            throw new IOException("failed to write documents to Elasticsearch", cause);
+        }
+    }
+
+    private class BulkListener implements BulkProcessor.Listener {
+
+        @Override
+        public void beforeBulk(long executionId, BulkRequest request) {
+            synchronized (ElasticsearchOutputFormat.this) {
+                pendingBulks++;
+            }
+        }
+
+        @Override
+        public void afterBulk(long executionId, BulkRequest request, BulkResponse response) {
+            try {
+                if (response.hasFailures()) {
+                    int rejectedCount = 0;
+                    BulkItemResponse[] items = response.getItems();
+                    for (int i = 0; i < items.length; i++) {
+                        BulkItemResponse.Failure itemFailure = items[i].getFailure();
+                        if (itemFailure == null) {
+                            continue;
+                        }
+                        if (itemFailure.getStatus() == RestStatus.TOO_MANY_REQUESTS && config.getBoolean("retry_rejected")) {
+                            // added back by the task thread, adding from this callback could block on the bulks in flight
+                            rejected.add(request.requests().get(i));
+                            rejectedCount++;
+                        } else {
+                            failure.compareAndSet(null, itemFailure.getCause());
+                        }
+                    }
+                    if (rejectedCount > 0) {
+                        LOGGER.warn("Elasticsearch rejected {} of {} documents of bulk {}, they are sent again",
+                                rejectedCount, items.length, executionId);
+                    } else {
+                        bulkAccepted = true;
+                    }
+                } else {
+                    bulkAccepted = true;
+                }
+            } finally {
+                bulkDone();
+            }
+        }
+
+        @Override
+        public void afterBulk(long executionId, BulkRequest request, Throwable cause) {
+            try {
+                LOGGER.error("bulk {} of {} documents failed", executionId, request.numberOfActions(), cause);
+                failure.compareAndSet(null, cause);
+            } finally {
+                bulkDone();
+            }
+        }
+    }
 }
@@ -0,0 +1,96 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.seatunnel.flink.sink;
+
+import org.apache.flink.streaming.connectors.elasticsearch.ActionRequestFailureHandler;
+import org.apache.flink.streaming.connectors.elasticsearch.RequestIndexer;
+import org.apache.flink.util.ExceptionUtils;
+import org.elasticsearch.action.ActionRequest;
+import org.elasticsearch.action.delete.DeleteRequest;
+import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.action.update.UpdateRequest;
+import org.elasticsearch.common.util.concurrent.EsRejectedExecutionException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Adds the requests Elasticsearch rejected because its queues are full (status 429) back to the
+ * next bulk after a backoff, which doubles while the rejections go on and is reset once they stop
+ * for longer than the maximum backoff. The sink fails when the rejections go on for more than the
+ * maximum retries, and on other failures.
+ */
+public class ElasticsearchRetryFailureHandler implements ActionRequestFailureHandler {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ElasticsearchRetryFailureHandler.class);
+
+    private static final int TOO_MANY_REQUESTS = 429;
+
+    private final long initialBackoffMs;
+
+    private final long maxBackoffMs;
+
+    private final int maxRetries;
+
+    private transient long lastBackoff;
+
+    private transient int rejections;
+
+    public ElasticsearchRetryFailureHandler(long initialBackoffMs, long maxBackoffMs, int maxRetries) {
+        this.initialBackoffMs = initialBackoffMs;
+        this.maxBackoffMs = maxBackoffMs;
+        this.maxRetries = maxRetries;
+    }
+
+    @Override
+    public void onFailure(ActionRequest action, Throwable failure, int restStatusCode, RequestIndexer indexer) throws Throwable {
+        if (restStatusCode != TOO_MANY_REQUESTS
+                && !ExceptionUtils.findThrowable(failure, EsRejectedExecutionException.class).isPresent()) {
+            throw failure;
+        }
+
+        // the rejected items of one bulk response arrive one after the other, back off once for all of them
+        long now = System.currentTimeMillis();
+        if (now - lastBackoff >= initialBackoffMs) {
+            if (now - lastBackoff > maxBackoffMs) {
+                rejections = 0;
+            }
+            if (rejections >= maxRetries) {
+                LOGGER.error("Elasticsearch still rejected requests after {} retries", maxRetries);
+                throw failure;
+            }
+            long backoff = Math.min(initialBackoffMs << Math.min(rejections, 30), maxBackoffMs);
+            rejections++;
+            LOGGER.warn("Elasticsearch rejected requests, retry them in {} ms", backoff, failure);
+            // blocks the bulk processor, which throttles the sink while the cluster is overloaded
+            Thread.sleep(backoff);
+            lastBackoff = System.currentTimeMillis();
+        }
+
+        if (action instanceof IndexRequest) {
+            indexer.add((IndexRequest) action);
+        } else if (action instanceof UpdateRequest) {
+            indexer.add((UpdateRequest) action);
+        } else if (action instanceof DeleteRequest) {
+            indexer.add((DeleteRequest) action);
+        } else {
+            throw failure;
+        }
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.seatunnel.flink.sink;
+
+import org.apache.flink.api.common.functions.RuntimeContext;
+import org.apache.flink.streaming.connectors.elasticsearch.ElasticsearchSinkFunction;
+import org.apache.flink.streaming.connectors.elasticsearch.RequestIndexer;
+import org.apache.flink.types.Row;
+import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.client.Requests;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * Indexes every row as a document of the index, written by an {@link ElasticsearchRowWriter}.
+ */
+public class ElasticsearchRowSinkFunction implements ElasticsearchSinkFunction<Row> {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String indexName;
+
+    private final String indexType;
+
+    private final ElasticsearchRowWriter rowWriter;
+
+    public ElasticsearchRowSinkFunction(String indexName, String indexType, ElasticsearchRowWriter rowWriter) {
+        this.indexName = indexName;
+        this.indexType = indexType;
+        this.rowWriter = rowWriter;
+    }
+
+    @Override
+    public void process(Row element, RuntimeContext ctx, RequestIndexer indexer) {
+        indexer.add(createIndexRequest(element));
+    }
+
+    private IndexRequest createIndexRequest(Row element) {
+        try {
+            return Requests.indexRequest()
+                    .index(indexName)
+                    .type(indexType)
+                    .id(rowWriter.id(element))
+                    .source(rowWriter.toXContent(element));
+        } catch (IOException e) {
+            throw new UncheckedIOException("failed to write row " + element + " as a document", e);
+        }
+    }
+}
@@ -0,0 +1,209 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.seatunnel.flink.sink;
+
+import org.apache.flink.api.common.typeinfo.BasicArrayTypeInfo;
+import org.apache.flink.api.common.typeinfo.BasicTypeInfo;
+import org.apache.flink.api.common.typeinfo.LocalTimeTypeInfo;
+import org.apache.flink.api.common.typeinfo.PrimitiveArrayTypeInfo;
+import org.apache.flink.api.common.typeinfo.SqlTimeTypeInfo;
+import org.apache.flink.api.common.typeinfo.TypeInformation;
+import org.apache.flink.api.java.typeutils.ListTypeInfo;
+import org.apache.flink.api.java.typeutils.MapTypeInfo;
+import org.apache.flink.api.java.typeutils.ObjectArrayTypeInfo;
+import org.apache.flink.api.java.typeutils.RowTypeInfo;
+import org.apache.flink.types.Row;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.XContentFactory;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.lang.reflect.Array;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes rows as Elasticsearch documents, with one writer per field chosen from the row type when
+ * the first row is written. Nested rows become objects, arrays and lists become arrays.
+ */
+public class ElasticsearchRowWriter implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final RowTypeInfo rowTypeInfo;
+
+    private final int idIndex;
+
+    private transient FieldWriter rowWriter;
+
+    /**
+     * @param idField field holding the document id, null to let Elasticsearch generate the ids
+     */
+    public ElasticsearchRowWriter(RowTypeInfo rowTypeInfo, String idField) {
+        this.rowTypeInfo = rowTypeInfo;
+        if (idField == null) {
+            this.idIndex = -1;
+        } else {
+            this.idIndex = rowTypeInfo.getFieldIndex(idField);
+            if (idIndex < 0) {
+                throw new IllegalArgumentException("id field [" + idField + "] does not exist in " + rowTypeInfo);
+            }
+        }
+    }
+
+    public XContentBuilder toXContent(Row row) throws IOException {
+        if (rowWriter == null) {
+            rowWriter = rowWriter(rowTypeInfo);
+        }
+        XContentBuilder builder = XContentFactory.jsonBuilder();
+        rowWriter.write(builder, row);
+        return builder;
+    }
+
+    /**
+     * Id of the document of the row, null when it has to be generated.
+     */
+    public String id(Row row) {
+        if (idIndex < 0) {
+            return null;
+        }
+        Object id = row.getField(idIndex);
+        return id == null ? null : id.toString();
+    }
+
+    private interface FieldWriter {
+
+        void write(XContentBuilder builder, Object value) throws IOException;
+    }
+
+    private static FieldWriter rowWriter(RowTypeInfo typeInfo) {
+        String[] names = typeInfo.getFieldNames();
+        FieldWriter[] writers = new FieldWriter[names.length];
+        for (int i = 0; i < names.length; i++) {
+            writers[i] = nullSafe(writer(typeInfo.getTypeAt(i)));
+        }
+        return (builder, value) -> {
+            Row row = (Row) value;
+            builder.startObject();
+            for (int i = 0; i < writers.length; i++) {
+                builder.field(names[i]);
+                writers[i].write(builder, row.getField(i));
+            }
+            builder.endObject();
+        };
+    }
+
+    private static FieldWriter nullSafe(FieldWriter writer) {
+        return (builder, value) -> {
+            if (value == null) {
+                builder.nullValue();
+            } else {
+                writer.write(builder, value);
+            }
+        };
+    }
+
+    private static FieldWriter writer(TypeInformation<?> typeInfo) {
+        if (typeInfo instanceof RowTypeInfo) {
+            return rowWriter((RowTypeInfo) typeInfo);
+        }
+        if (typeInfo.equals(BasicTypeInfo.STRING_TYPE_INFO)) {
+            return (builder, value) -> builder.value((String) value);
+        }
+        if (typeInfo.equals(BasicTypeInfo.INT_TYPE_INFO)) {
+            return (builder, value) -> builder.value((int) (Integer) value);
+        }
+        if (typeInfo.equals(BasicTypeInfo.LONG_TYPE_INFO)) {
+            return (builder, value) -> builder.value((long) (Long) value);
+        }
+        if (typeInfo.equals(BasicTypeInfo.SHORT_TYPE_INFO) || typeInfo.equals(BasicTypeInfo.BYTE_TYPE_INFO)) {
+            return (builder, value) -> builder.value(((Number) value).intValue());
+        }
+        if (typeInfo.equals(BasicTypeInfo.DOUBLE_TYPE_INFO)) {
+            return (builder, value) -> builder.value((double) (Double) value);
+        }
+        if (typeInfo.equals(BasicTypeInfo.FLOAT_TYPE_INFO)) {
+            return (builder, value) -> builder.value((float) (Float) value);
+        }
+        if (typeInfo.equals(BasicTypeInfo.BOOLEAN_TYPE_INFO)) {
+            return (builder, value) -> builder.value((boolean) (Boolean) value);
+        }
+        if (typeInfo.equals(SqlTimeTypeInfo.TIMESTAMP)) {
+            // the UTC ISO 8601 instant, as Elasticsearch reads times without a zone as UTC
+            return (builder, value) -> builder.value(((Timestamp) value).toInstant().toString());
+        }
+        if (typeInfo.equals(SqlTimeTypeInfo.DATE)) {
+            return (builder, value) -> builder.value(((Date) value).toLocalDate().toString());
+        }
+        if (typeInfo instanceof SqlTimeTypeInfo || typeInfo instanceof LocalTimeTypeInfo) {
+            return (builder, value) -> builder.value(value.toString());
+        }
+        if (typeInfo.equals(PrimitiveArrayTypeInfo.BYTE_PRIMITIVE_ARRAY_TYPE_INFO)) {
+            return (builder, value) -> builder.value((byte[]) value);
+        }
+        if (typeInfo instanceof PrimitiveArrayTypeInfo) {
+            FieldWriter element = writer(((PrimitiveArrayTypeInfo<?>) typeInfo).getComponentType());
+            return (builder, value) -> {
+                builder.startArray();
+                int length = Array.getLength(value);
+                for (int i = 0; i < length; i++) {
+                    element.write(builder, Array.get(value, i));
+                }
+                builder.endArray();
+            };
+        }
+        if (typeInfo instanceof BasicArrayTypeInfo || typeInfo instanceof ObjectArrayTypeInfo) {
+            TypeInformation<?> componentType = typeInfo instanceof BasicArrayTypeInfo
+                    ? ((BasicArrayTypeInfo<?, ?>) typeInfo).getComponentInfo()
+                    : ((ObjectArrayTypeInfo<?, ?>) typeInfo).getComponentInfo();
+            FieldWriter element = nullSafe(writer(componentType));
+            return (builder, value) -> {
+                builder.startArray();
+                for (Object item : (Object[]) value) {
+                    element.write(builder, item);
+                }
+                builder.endArray();
+            };
+        }
+        if (typeInfo instanceof ListTypeInfo) {
+            FieldWriter element = nullSafe(writer(((ListTypeInfo<?>) typeInfo).getElementTypeInfo()));
+            return (builder, value) -> {
+                builder.startArray();
+                for (Object item : (List<?>) value) {
+                    element.write(builder, item);
+                }
+                builder.endArray();
+            };
+        }
+        if (typeInfo instanceof MapTypeInfo) {
+            FieldWriter entryValue = nullSafe(writer(((MapTypeInfo<?, ?>) typeInfo).getValueTypeInfo()));
+            return (builder, value) -> {
+                builder.startObject();
+                for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                    builder.field(String.valueOf(entry.getKey()));
+                    entryValue.write(builder, entry.getValue());
+                }
+                builder.endObject();
+            };
+        }
+        // BigDecimal, BigInteger and other types, written as Elasticsearch serializes them in a map
+        return (builder, value) -> builder.value(value);
+    }
+}
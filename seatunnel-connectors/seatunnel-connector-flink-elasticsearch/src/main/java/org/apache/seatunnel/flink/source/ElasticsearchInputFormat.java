@@ -0,0 +1,206 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.seatunnel.flink.source;
+
+import org.apache.flink.api.common.io.DefaultInputSplitAssigner;
+import org.apache.flink.api.common.io.RichInputFormat;
+import org.apache.flink.api.common.io.statistics.BaseStatistics;
+import org.apache.flink.api.common.typeinfo.TypeInformation;
+import org.apache.flink.api.java.typeutils.ResultTypeQueryable;
+import org.apache.flink.api.java.typeutils.RowTypeInfo;
+import org.apache.flink.configuration.Configuration;
+import org.apache.flink.core.io.InputSplitAssigner;
+import org.apache.flink.types.Row;
+import org.apache.http.HttpHost;
+import org.elasticsearch.action.search.ClearScrollRequest;
+import org.elasticsearch.action.search.SearchRequest;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.action.search.SearchScrollRequest;
+import org.elasticsearch.client.RestClient;
+import org.elasticsearch.client.RestHighLevelClient;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.index.query.QueryBuilders;
+import org.elasticsearch.search.SearchHit;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.elasticsearch.search.slice.SliceBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Reads an index with a sliced scroll, one slice per split. The splits are read in parallel by the
+ * subtasks of the source, each with its own scroll. Only the fields of the row type are fetched
+ * from the document sources, and the query is run by Elasticsearch.
+ */
+public class ElasticsearchInputFormat extends RichInputFormat<Row, ElasticsearchInputSplit> implements ResultTypeQueryable<Row> {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ElasticsearchInputFormat.class);
+
+    private final List<String> hosts;
+
+    private final String index;
+
+    private final String query;
+
+    private final RowTypeInfo rowTypeInfo;
+
+    private final int slices;
+
+    private final int scrollSize;
+
+    private final long scrollKeepAliveMs;
+
+    private transient RestHighLevelClient client;
+
+    private transient ElasticsearchRowConverter rowConverter;
+
+    private transient String scrollId;
+
+    private transient SearchHit[] hits;
+
+    private transient int position;
+
+    /**
+     * @param query   query DSL of the search, null to read every document
+     * @param slices  number of slices, 0 for one per subtask of the source
+     */
+    public ElasticsearchInputFormat(List<String> hosts, String index, String query, RowTypeInfo rowTypeInfo,
+                                    int slices, int scrollSize, long scrollKeepAliveMs) {
+        this.hosts = new ArrayList<>(hosts);
+        this.index = index;
+        this.query = query;
+        this.rowTypeInfo = rowTypeInfo;
+        this.slices = slices;
+        this.scrollSize = scrollSize;
+        this.scrollKeepAliveMs = scrollKeepAliveMs;
+    }
+
+    @Override
+    public void configure(Configuration parameters) {
+    }
+
+    @Override
+    public BaseStatistics getStatistics(BaseStatistics cachedStatistics) {
+        return cachedStatistics;
+    }
+
+    @Override
+    public ElasticsearchInputSplit[] createInputSplits(int minNumSplits) {
+        int count = slices > 0 ? slices : Math.max(minNumSplits, 1);
+        ElasticsearchInputSplit[] splits = new ElasticsearchInputSplit[count];
+        for (int i = 0; i < count; i++) {
+            splits[i] = new ElasticsearchInputSplit(i, count);
+        }
+        LOGGER.info("read index [{}] with {} slices", index, count);
+        return splits;
+    }
+
+    @Override
+    public InputSplitAssigner getInputSplitAssigner(ElasticsearchInputSplit[] inputSplits) {
+        return new DefaultInputSplitAssigner(inputSplits);
+    }
+
+    @Override
+    public void openInputFormat() {
+        HttpHost[] httpHosts = new HttpHost[hosts.size()];
+        for (int i = 0; i < httpHosts.length; i++) {
+            String host = hosts.get(i);
+            httpHosts[i] = new HttpHost(host.split(":")[0], Integer.parseInt(host.split(":")[1]), "http");
+        }
+        client = new RestHighLevelClient(RestClient.builder(httpHosts));
+        rowConverter = new ElasticsearchRowConverter(rowTypeInfo);
+    }
+
+    @Override
+    public void open(ElasticsearchInputSplit split) throws IOException {
+        String[] includes = Arrays.stream(rowTypeInfo.getFieldNames())
+                .filter(name -> !ElasticsearchRowConverter.ID_FIELD.equals(name))
+                .toArray(String[]::new);
+        SearchSourceBuilder searchSource = new SearchSourceBuilder()
+                .query(query == null ? QueryBuilders.matchAllQuery() : QueryBuilders.wrapperQuery(query))
+                .fetchSource(includes, null)
+                .size(scrollSize)
+                // index order, the cheapest one to scroll
+                .sort("_doc");
+        if (split.getSlices() > 1) {
+            searchSource.slice(new SliceBuilder(split.getSlice(), split.getSlices()));
+        }
+        SearchRequest request = new SearchRequest(index)
+                .source(searchSource)
+                .scroll(TimeValue.timeValueMillis(scrollKeepAliveMs));
+        read(client.search(request));
+    }
+
+    @Override
+    public boolean reachedEnd() throws IOException {
+        if (position < hits.length) {
+            return false;
+        }
+        if (hits.length == 0) {
+            return true;
+        }
+        SearchScrollRequest request = new SearchScrollRequest(scrollId).scroll(TimeValue.timeValueMillis(scrollKeepAliveMs));
+        read(client.searchScroll(request));
+        return hits.length == 0;
+    }
+
+    @Override
+    public Row nextRecord(Row reuse) {
+        return rowConverter.convert(hits[position++]);
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (scrollId != null) {
+            ClearScrollRequest request = new ClearScrollRequest();
+            request.addScrollId(scrollId);
+            try {
+                client.clearScroll(request);
+            } catch (IOException e) {
+                // the scroll expires after its keep alive anyway
+                LOGGER.warn("failed to clear scroll of index [{}]", index, e);
+            }
+            scrollId = null;
+        }
+    }
+
+    @Override
+    public void closeInputFormat() throws IOException {
+        if (client != null) {
+            client.close();
+            client = null;
+        }
+    }
+
+    @Override
+    public TypeInformation<Row> getProducedType() {
+        return rowTypeInfo;
+    }
+
+    private void read(SearchResponse response) {
+        scrollId = response.getScrollId();
+        hits = response.getHits().getHits();
+        position = 0;
+    }
+}
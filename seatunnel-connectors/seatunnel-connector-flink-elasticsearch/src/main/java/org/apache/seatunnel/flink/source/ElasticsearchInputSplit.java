@@ -0,0 +1,55 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.seatunnel.flink.source;
+
+import org.apache.flink.core.io.InputSplit;
+
+/**
+ * One slice of a sliced scroll over the index, the whole index when there is a single slice.
+ */
+public class ElasticsearchInputSplit implements InputSplit {
+
+    private static final long serialVersionUID = 1L;
+
+    private final int slice;
+
+    private final int slices;
+
+    public ElasticsearchInputSplit(int slice, int slices) {
+        this.slice = slice;
+        this.slices = slices;
+    }
+
+    @Override
+    public int getSplitNumber() {
+        return slice;
+    }
+
+    public int getSlice() {
+        return slice;
+    }
+
+    public int getSlices() {
+        return slices;
+    }
+
+    @Override
+    public String toString() {
+        return "ElasticsearchInputSplit{slice=" + slice + ", slices=" + slices + "}";
+    }
+}
@@ -0,0 +1,223 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.seatunnel.flink.source;
+
+import org.apache.flink.api.common.typeinfo.BasicArrayTypeInfo;
+import org.apache.flink.api.common.typeinfo.BasicTypeInfo;
+import org.apache.flink.api.common.typeinfo.PrimitiveArrayTypeInfo;
+import org.apache.flink.api.common.typeinfo.SqlTimeTypeInfo;
+import org.apache.flink.api.common.typeinfo.TypeInformation;
+import org.apache.flink.api.java.typeutils.MapTypeInfo;
+import org.apache.flink.api.java.typeutils.ObjectArrayTypeInfo;
+import org.apache.flink.api.java.typeutils.RowTypeInfo;
+import org.apache.flink.types.Row;
+import org.elasticsearch.search.SearchHit;
+
+import java.lang.reflect.Array;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.sql.Date;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Converts search hits to rows of a declared type, with one converter per field chosen from the
+ * type when the converter is created. The `_id` field of the type is the id of the hit, the other
+ * fields are read from its source, missing ones are null.
+ */
+public class ElasticsearchRowConverter {
+
+    public static final String ID_FIELD = "_id";
+
+    private final String[] names;
+
+    private final FieldConverter[] converters;
+
+    private final int idIndex;
+
+    public ElasticsearchRowConverter(RowTypeInfo rowTypeInfo) {
+        this.names = rowTypeInfo.getFieldNames();
+        this.converters = new FieldConverter[names.length];
+        for (int i = 0; i < names.length; i++) {
+            converters[i] = nullSafe(converter(rowTypeInfo.getTypeAt(i)));
+        }
+        this.idIndex = rowTypeInfo.getFieldIndex(ID_FIELD);
+    }
+
+    public Row convert(SearchHit hit) {
+        Map<String, Object> source = hit.getSourceAsMap();
+        if (source == null) {
+            source = Collections.emptyMap();
+        }
+        Row row = new Row(names.length);
+        for (int i = 0; i < names.length; i++) {
+            row.setField(i, i == idIndex ? hit.getId() : converters[i].convert(source.get(names[i])));
+        }
+        return row;
+    }
+
+    private interface FieldConverter {
+
+        Object convert(Object value);
+    }
+
+    private static FieldConverter nullSafe(FieldConverter converter) {
+        return value -> value == null ? null : converter.convert(value);
+    }
+
+    private static FieldConverter converter(TypeInformation<?> typeInfo) {
+        if (typeInfo instanceof RowTypeInfo) {
+            RowTypeInfo rowTypeInfo = (RowTypeInfo) typeInfo;
+            String[] names = rowTypeInfo.getFieldNames();
+            FieldConverter[] converters = new FieldConverter[names.length];
+            for (int i = 0; i < names.length; i++) {
+                converters[i] = nullSafe(converter(rowTypeInfo.getTypeAt(i)));
+            }
+            return value -> {
+                Map<?, ?> object = (Map<?, ?>) value;
+                Row row = new Row(names.length);
+                for (int i = 0; i < names.length; i++) {
+                    row.setField(i, converters[i].convert(object.get(names[i])));
+                }
+                return row;
+            };
+        }
+        if (typeInfo.equals(BasicTypeInfo.STRING_TYPE_INFO)) {
+            return String::valueOf;
+        }
+        if (typeInfo.equals(BasicTypeInfo.INT_TYPE_INFO)) {
+            return value -> value instanceof Number ? ((Number) value).intValue() : Integer.valueOf(value.toString());
+        }
+        if (typeInfo.equals(BasicTypeInfo.LONG_TYPE_INFO)) {
+            return value -> value instanceof Number ? ((Number) value).longValue() : Long.valueOf(value.toString());
+        }
+        if (typeInfo.equals(BasicTypeInfo.SHORT_TYPE_INFO)) {
+            return value -> value instanceof Number ? ((Number) value).shortValue() : Short.valueOf(value.toString());
+        }
+        if (typeInfo.equals(BasicTypeInfo.BYTE_TYPE_INFO)) {
+            return value -> value instanceof Number ? ((Number) value).byteValue() : Byte.valueOf(value.toString());
+        }
+        if (typeInfo.equals(BasicTypeInfo.DOUBLE_TYPE_INFO)) {
+            return value -> value instanceof Number ? ((Number) value).doubleValue() : Double.valueOf(value.toString());
+        }
+        if (typeInfo.equals(BasicTypeInfo.FLOAT_TYPE_INFO)) {
+            return value -> value instanceof Number ? ((Number) value).floatValue() : Float.valueOf(value.toString());
+        }
+        if (typeInfo.equals(BasicTypeInfo.BOOLEAN_TYPE_INFO)) {
+            return value -> value instanceof Boolean ? value : Boolean.valueOf(value.toString());
+        }
+        if (typeInfo.equals(BasicTypeInfo.BIG_DEC_TYPE_INFO)) {
+            return value -> new BigDecimal(value.toString());
+        }
+        if (typeInfo.equals(BasicTypeInfo.BIG_INT_TYPE_INFO)) {
+            return value -> new BigInteger(value.toString());
+        }
+        if (typeInfo.equals(SqlTimeTypeInfo.TIMESTAMP)) {
+            return value -> Timestamp.valueOf(dateTime(value));
+        }
+        if (typeInfo.equals(SqlTimeTypeInfo.DATE)) {
+            return value -> Date.valueOf(value instanceof Number ? dateTime(value).toLocalDate() : LocalDate.parse(value.toString().substring(0, 10)));
+        }
+        if (typeInfo.equals(SqlTimeTypeInfo.TIME)) {
+            return value -> Time.valueOf(LocalTime.parse(value.toString()));
+        }
+        if (typeInfo.equals(PrimitiveArrayTypeInfo.BYTE_PRIMITIVE_ARRAY_TYPE_INFO)) {
+            // binary fields are base64 strings in the source
+            return value -> Base64.getDecoder().decode(value.toString());
+        }
+        if (typeInfo instanceof PrimitiveArrayTypeInfo) {
+            TypeInformation<?> componentType = ((PrimitiveArrayTypeInfo<?>) typeInfo).getComponentType();
+            FieldConverter element = converter(componentType);
+            return value -> {
+                Collection<?> items = items(value);
+                Object array = Array.newInstance(componentType.getTypeClass(), items.size());
+                int i = 0;
+                for (Object item : items) {
+                    // primitive arrays have no room for nulls
+                    if (item != null) {
+                        Array.set(array, i, element.convert(item));
+                    }
+                    i++;
+                }
+                return array;
+            };
+        }
+        if (typeInfo instanceof BasicArrayTypeInfo || typeInfo instanceof ObjectArrayTypeInfo) {
+            TypeInformation<?> componentType = typeInfo instanceof BasicArrayTypeInfo
+                    ? ((BasicArrayTypeInfo<?, ?>) typeInfo).getComponentInfo()
+                    : ((ObjectArrayTypeInfo<?, ?>) typeInfo).getComponentInfo();
+            FieldConverter element = nullSafe(converter(componentType));
+            return value -> {
+                Collection<?> items = items(value);
+                Object[] array = (Object[]) Array.newInstance(componentType.getTypeClass(), items.size());
+                int i = 0;
+                for (Object item : items) {
+                    array[i++] = element.convert(item);
+                }
+                return array;
+            };
+        }
+        if (typeInfo instanceof MapTypeInfo) {
+            FieldConverter entryValue = nullSafe(converter(((MapTypeInfo<?, ?>) typeInfo).getValueTypeInfo()));
+            return value -> {
+                Map<Object, Object> map = new HashMap<>();
+                for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                    map.put(entry.getKey(), entryValue.convert(entry.getValue()));
+                }
+                return map;
+            };
+        }
+        return value -> value;
+    }
+
+    /**
+     * The values of an array field, a single value is an array of one value in Elasticsearch.
+     */
+    private static Collection<?> items(Object value) {
+        return value instanceof Collection ? (Collection<?>) value : Collections.singletonList(value);
+    }
+
+    /**
+     * UTC date time of an epoch millis number or of an ISO 8601 string, a string without offset is
+     * taken as is.
+     */
+    private static LocalDateTime dateTime(Object value) {
+        if (value instanceof Number) {
+            return LocalDateTime.ofInstant(Instant.ofEpochMilli(((Number) value).longValue()), ZoneOffset.UTC);
+        }
+        String text = value.toString();
+        if (text.length() == 10) {
+            return LocalDate.parse(text).atStartOfDay();
+        }
+        if (text.endsWith("Z") || text.lastIndexOf('+') > 10 || text.lastIndexOf('-') > 10) {
+            return OffsetDateTime.parse(text).atZoneSameInstant(ZoneOffset.UTC).toLocalDateTime();
+        }
+        return LocalDateTime.parse(text.replace(' ', 'T'));
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.seatunnel.flink.source;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONObject;
+import com.alibaba.fastjson.parser.Feature;
+import org.apache.seatunnel.config.Config;
+import org.apache.seatunnel.config.ConfigFactory;
+import org.apache.seatunnel.common.config.CheckConfigUtil;
+import org.apache.seatunnel.common.config.CheckResult;
+import org.apache.seatunnel.flink.FlinkEnvironment;
+import org.apache.seatunnel.flink.batch.FlinkBatchSource;
+import org.apache.flink.api.common.typeinfo.TypeInformation;
+import org.apache.flink.api.java.DataSet;
+import org.apache.flink.api.java.typeutils.RowTypeInfo;
+import org.apache.flink.table.utils.TypeStringUtils;
+import org.apache.flink.types.Row;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reads an Elasticsearch index as rows of the declared schema, with a sliced scroll read in
+ * parallel.
+ */
+public class ElasticsearchSource implements FlinkBatchSource<Row> {
+
+    private Config config;
+
+    private ElasticsearchInputFormat inputFormat;
+
+    @Override
+    public DataSet<Row> getData(FlinkEnvironment env) {
+        return env.getBatchEnvironment().createInput(inputFormat);
+    }
+
+    @Override
+    public void setConfig(Config config) {
+        this.config = config;
+    }
+
+    @Override
+    public Config getConfig() {
+        return config;
+    }
+
+    @Override
+    public CheckResult checkConfig() {
+        return checkConfig(config);
+    }
+
+    @Override
+    public void prepare(FlinkEnvironment env) {
+        config = withDefaults(config);
+        inputFormat = createInputFormat(config);
+    }
+
+    static CheckResult checkConfig(Config config) {
+        CheckResult result = CheckConfigUtil.check(config, "hosts", "index", "schema");
+        if (result.isSuccess() && config.getStringList("hosts").isEmpty()) {
+            return new CheckResult(false, "please specify [hosts] as a non-empty string list");
+        }
+        return result;
+    }
+
+    static Config withDefaults(Config config) {
+        Config defaultConfig = ConfigFactory.parseMap(new HashMap<String, Object>(4) {
+            {
+                put("slices", 0);
+                put("scroll_size", 1000);
+                put("scroll_keep_alive", "5m");
+            }
+        });
+        return config.withFallback(defaultConfig);
+    }
+
+    static ElasticsearchInputFormat createInputFormat(Config config) {
+        return new ElasticsearchInputFormat(
+                config.getStringList("hosts"),
+                config.getString("index"),
+                config.hasPath("query") ? config.getString("query") : null,
+                rowTypeInfo(config.getString("schema")),
+                config.getInt("slices"),
+                config.getInt("scroll_size"),
+                config.getDuration("scroll_keep_alive", TimeUnit.MILLISECONDS));
+    }
+
+    /**
+     * Row type of a json object mapping the field names to their types, in the order of the object.
+     */
+    private static RowTypeInfo rowTypeInfo(String schema) {
+        JSONObject fields = JSON.parseObject(schema, Feature.OrderedField);
+        String[] names = new String[fields.size()];
+        TypeInformation<?>[] types = new TypeInformation<?>[fields.size()];
+        int i = 0;
+        for (Map.Entry<String, Object> field : fields.entrySet()) {
+            names[i] = field.getKey();
+            types[i] = TypeStringUtils.readTypeInfo(field.getValue().toString());
+            i++;
+        }
+        return new RowTypeInfo(types, names);
+    }
+}
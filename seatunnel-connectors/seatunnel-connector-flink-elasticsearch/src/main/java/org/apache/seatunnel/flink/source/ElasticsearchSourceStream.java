@@ -0,0 +1,61 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.seatunnel.flink.source;
+
+import org.apache.seatunnel.config.Config;
+import org.apache.seatunnel.common.config.CheckResult;
+import org.apache.seatunnel.flink.FlinkEnvironment;
+import org.apache.seatunnel.flink.stream.FlinkStreamSource;
+import org.apache.flink.streaming.api.datastream.DataStream;
+import org.apache.flink.types.Row;
+
+/**
+ * Bounded stream of the rows of an Elasticsearch index, read like {@link ElasticsearchSource}.
+ */
+public class ElasticsearchSourceStream implements FlinkStreamSource<Row> {
+
+    private Config config;
+
+    private ElasticsearchInputFormat inputFormat;
+
+    @Override
+    public DataStream<Row> getData(FlinkEnvironment env) {
+        return env.getStreamExecutionEnvironment().createInput(inputFormat, inputFormat.getProducedType());
+    }
+
+    @Override
+    public void setConfig(Config config) {
+        this.config = config;
+    }
+
+    @Override
+    public Config getConfig() {
+        return config;
+    }
+
+    @Override
+    public CheckResult checkConfig() {
+        return ElasticsearchSource.checkConfig(config);
+    }
+
+    @Override
+    public void prepare(FlinkEnvironment env) {
+        config = ElasticsearchSource.withDefaults(config);
+        inputFormat = ElasticsearchSource.createInputFormat(config);
+    }
+}
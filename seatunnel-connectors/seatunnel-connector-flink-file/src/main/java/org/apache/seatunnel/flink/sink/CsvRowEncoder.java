@@ -0,0 +1,65 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.seatunnel.flink.sink;
+
+import org.apache.flink.types.Row;
+
+/**
+ * Writes rows as csv lines. Nulls are empty fields, and the values containing the field delimiter,
+ * a quote or a line break are quoted with their quotes doubled.
+ */
+public class CsvRowEncoder extends RowEncoder {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String fieldDelimiter;
+
+    public CsvRowEncoder(String fieldDelimiter) {
+        this.fieldDelimiter = fieldDelimiter;
+    }
+
+    @Override
+    protected void append(StringBuilder line, Row row) {
+        int arity = row.getArity();
+        for (int i = 0; i < arity; i++) {
+            if (i > 0) {
+                line.append(fieldDelimiter);
+            }
+            Object value = row.getField(i);
+            if (value != null) {
+                appendValue(line, value.toString());
+            }
+        }
+    }
+
+    private void appendValue(StringBuilder line, String value) {
+        if (value.contains(fieldDelimiter) || value.indexOf('"') >= 0 || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0) {
+            line.append('"');
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c == '"') {
+                    line.append('"');
+                }
+                line.append(c);
+            }
+            line.append('"');
+        } else {
+            line.append(value);
+        }
+    }
+}
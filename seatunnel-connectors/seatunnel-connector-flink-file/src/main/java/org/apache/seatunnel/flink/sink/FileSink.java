@@ -18,13 +18,14 @@
 package org.apache.seatunnel.flink.sink;
 
 import org.apache.seatunnel.config.Config;
+import org.apache.seatunnel.config.ConfigFactory;
 import org.apache.seatunnel.common.config.CheckConfigUtil;
 import org.apache.seatunnel.flink.FlinkEnvironment;
 import org.apache.seatunnel.flink.batch.FlinkBatchSink;
 import org.apache.seatunnel.flink.stream.FlinkStreamSink;
 import org.apache.seatunnel.common.config.CheckResult;
 import org.apache.flink.api.common.io.FileOutputFormat;
-import org.apache.flink.api.common.serialization.Encoder;
+import org.apache.flink.api.common.typeinfo.TypeInformation;
 import org.apache.flink.api.java.DataSet;
 import org.apache.flink.api.java.io.TextOutputFormat;
 import org.apache.flink.api.java.operators.DataSink;
@@ -33,13 +34,20 @@ import org.apache.flink.core.fs.FileSystem;
 import org.apache.flink.core.fs.Path;
 import org.apache.flink.streaming.api.datastream.DataStream;
 import org.apache.flink.streaming.api.datastream.DataStreamSink;
+import org.apache.flink.streaming.api.functions.sink.filesystem.BucketAssigner;
+import org.apache.flink.streaming.api.functions.sink.filesystem.RollingPolicy;
 import org.apache.flink.streaming.api.functions.sink.filesystem.StreamingFileSink;
+import org.apache.flink.streaming.api.functions.sink.filesystem.bucketassigners.DateTimeBucketAssigner;
+import org.apache.flink.streaming.api.functions.sink.filesystem.rollingpolicies.DefaultRollingPolicy;
 import org.apache.flink.types.Row;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.PrintStream;
+import java.time.ZoneId;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.concurrent.TimeUnit;
 
 public class FileSink implements FlinkStreamSink<Row, Row>, FlinkBatchSink<Row, Row> {
 
@@ -48,6 +56,18 @@ public class FileSink implements FlinkStreamSink<Row, Row>, FlinkBatchSink<Row,
     private static final String PATH = "path";
     private static final String FORMAT = "format";
     private static final String WRITE_MODE = "write_mode";
+    private static final String FIELD_DELIMITER = "field_delimiter";
+    private static final String COMPRESSION = "compression";
+    private static final String MAX_PART_SIZE = "max_part_size";
+    private static final String ROLLOVER_INTERVAL = "rollover_interval";
+    private static final String INACTIVITY_INTERVAL = "inactivity_interval";
+    private static final String PARTITION_TIME_FORMAT = "partition_time_format";
+    private static final String PARTITION_TIME_INTERVAL = "partition_time_interval";
+    private static final String PARTITION_TIME_ZONE = "partition_time_zone";
+    private static final String PARTITION_TIME_FIELD = "partition_time_field";
+    private static final String PARTITION_FIELDS = "partition_fields";
+    private static final String PARTITION_SUCCESS_FILE = "partition_success_file";
+    private static final String PARTITION_COMMIT_DELAY = "partition_commit_delay";
 
     private Config config;
 
@@ -57,16 +77,100 @@ public class FileSink implements FlinkStreamSink<Row, Row>, FlinkBatchSink<Row,
 
     @Override
     public DataStreamSink<Row> outputStream(FlinkEnvironment env, DataStream<Row> dataStream) {
-
-        final StreamingFileSink<Row> sink = StreamingFileSink
-                .forRowFormat(filePath, (Encoder<Row>) (element, stream) -> {
-                    PrintStream out = new PrintStream(stream);
-                    out.println(element);
-                })
-                .build();
+        String format = config.getString(FORMAT);
+        RowTypeInfo rowTypeInfo = (RowTypeInfo) dataStream.getType();
+        boolean commitPartitions = config.getBoolean(PARTITION_SUCCESS_FILE);
+        BucketAssigner<Row, String> bucketAssigner = bucketAssigner(rowTypeInfo, commitPartitions);
+        PartitionRollingPolicy partitionRollingPolicy = null;
+        final StreamingFileSink<Row> sink;
+        switch (format) {
+            case "parquet":
+                String parquetCompression = config.hasPath(COMPRESSION) ? config.getString(COMPRESSION) : "snappy";
+                // bulk formats roll their part files on every checkpoint
+                sink = StreamingFileSink
+                        .forBulkFormat(filePath, ParquetRowWriters.forRow(rowTypeInfo, parquetCompression))
+                        .withBucketAssigner(bucketAssigner)
+                        .build();
+                break;
+            case "orc":
+                String orcCompression = config.hasPath(COMPRESSION) ? config.getString(COMPRESSION) : "zlib";
+                sink = StreamingFileSink
+                        .forBulkFormat(filePath, new OrcRowWriterFactory(rowTypeInfo, orcCompression))
+                        .withBucketAssigner(bucketAssigner)
+                        .build();
+                break;
+            default:
+                RollingPolicy<Row, String> rollingPolicy = DefaultRollingPolicy.create()
+                        .withMaxPartSize(config.getBytes(MAX_PART_SIZE))
+                        .withRolloverInterval(config.getDuration(ROLLOVER_INTERVAL, TimeUnit.MILLISECONDS))
+                        .withInactivityInterval(config.getDuration(INACTIVITY_INTERVAL, TimeUnit.MILLISECONDS))
+                        .build();
+                if (commitPartitions) {
+                    partitionRollingPolicy = new PartitionRollingPolicy(rollingPolicy, (PartitionBucketAssigner) bucketAssigner,
+                            config.getDuration(PARTITION_COMMIT_DELAY, TimeUnit.MILLISECONDS));
+                    rollingPolicy = partitionRollingPolicy;
+                }
+                sink = StreamingFileSink
+                        .forRowFormat(filePath, rowEncoder(format, rowTypeInfo))
+                        .withBucketAssigner(bucketAssigner)
+                        .withRollingPolicy(rollingPolicy)
+                        .build();
+                break;
+        }
+        if (commitPartitions) {
+            return commitPartitions(dataStream, sink, (PartitionBucketAssigner) bucketAssigner, partitionRollingPolicy);
+        }
         return dataStream.addSink(sink);
     }
 
+    /**
+     * Hive style partitions when the partitions are configured, hourly directories of the processing time otherwise.
+     */
+    private BucketAssigner<Row, String> bucketAssigner(RowTypeInfo rowTypeInfo, boolean commitPartitions) {
+        if (!config.hasPath(PARTITION_TIME_FORMAT) && !config.hasPath(PARTITION_FIELDS)) {
+            return new DateTimeBucketAssigner<>();
+        }
+        return new PartitionBucketAssigner(
+                rowTypeInfo,
+                config.hasPath(PARTITION_TIME_FORMAT) ? config.getString(PARTITION_TIME_FORMAT) : null,
+                config.getDuration(PARTITION_TIME_INTERVAL, TimeUnit.MILLISECONDS),
+                config.getString(PARTITION_TIME_ZONE),
+                config.hasPath(PARTITION_TIME_FIELD) ? config.getString(PARTITION_TIME_FIELD) : null,
+                config.hasPath(PARTITION_FIELDS) ? config.getStringList(PARTITION_FIELDS) : Collections.emptyList(),
+                commitPartitions);
+    }
+
+    /**
+     * Parallel writers reporting the partitions they have written to a committer of parallelism 1, which
+     * marks them complete once the minimum watermark of the writers has passed them.
+     */
+    @SuppressWarnings("unchecked")
+    private DataStreamSink<Row> commitPartitions(DataStream<Row> dataStream, StreamingFileSink<Row> sink,
+                                                 PartitionBucketAssigner bucketAssigner, PartitionRollingPolicy rollingPolicy) {
+        long commitDelayMs = config.getDuration(PARTITION_COMMIT_DELAY, TimeUnit.MILLISECONDS);
+        DataStreamSink<PartitionCommitInfo> committer = dataStream
+                .transform("PartitionWriter", TypeInformation.of(PartitionCommitInfo.class),
+                        new PartitionWriter(sink, bucketAssigner, rollingPolicy, commitDelayMs))
+                .addSink(new PartitionCommitter(filePath, commitDelayMs))
+                .name("PartitionCommitter")
+                .setParallelism(1);
+        return (DataStreamSink<Row>) (DataStreamSink<?>) committer;
+    }
+
+    private RowEncoder rowEncoder(String format, RowTypeInfo rowTypeInfo) {
+        switch (format) {
+            case "json":
+                return new JsonRowEncoder(rowTypeInfo);
+            case "csv":
+                return new CsvRowEncoder(config.getString(FIELD_DELIMITER));
+            case "text":
+                return new TextRowEncoder();
+            default:
+                LOG.warn(" unknown file_format [{}],only support json,csv,text,parquet,orc", format);
+                return new TextRowEncoder();
+        }
+    }
+
     @Override
     public DataSink<Row> outputBatch(FlinkEnvironment env, DataSet<Row> dataSet) {
         String format = config.getString(FORMAT);
@@ -106,11 +210,29 @@ public class FileSink implements FlinkStreamSink<Row, Row>, FlinkBatchSink<Row,
 
     @Override
     public CheckResult checkConfig() {
-        return CheckConfigUtil.check(config, PATH, FORMAT);
+        CheckResult result = CheckConfigUtil.check(config, PATH, FORMAT);
+        if (result.isSuccess() && config.hasPath(PARTITION_SUCCESS_FILE) && config.getBoolean(PARTITION_SUCCESS_FILE)
+                && !config.hasPath(PARTITION_TIME_FORMAT)) {
+            return new CheckResult(false, "please specify [" + PARTITION_TIME_FORMAT + "] to write [" + PARTITION_SUCCESS_FILE + "]");
+        }
+        return result;
     }
 
     @Override
     public void prepare(FlinkEnvironment env) {
+        Config defaultConfig = ConfigFactory.parseMap(new HashMap<String, Object>(16) {
+            {
+                put(FIELD_DELIMITER, CsvRowOutputFormat.DEFAULT_FIELD_DELIMITER);
+                put(MAX_PART_SIZE, "128m");
+                put(ROLLOVER_INTERVAL, "60s");
+                put(INACTIVITY_INTERVAL, "60s");
+                put(PARTITION_TIME_INTERVAL, "1h");
+                put(PARTITION_TIME_ZONE, ZoneId.systemDefault().getId());
+                put(PARTITION_SUCCESS_FILE, false);
+                put(PARTITION_COMMIT_DELAY, "0s");
+            }
+        });
+        config = config.withFallback(defaultConfig);
         String path = config.getString(PATH);
         filePath = new Path(path);
     }
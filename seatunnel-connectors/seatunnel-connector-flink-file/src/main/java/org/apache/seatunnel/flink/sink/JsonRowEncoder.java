@@ -0,0 +1,219 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.seatunnel.flink.sink;
+
+import org.apache.flink.api.common.typeinfo.BasicArrayTypeInfo;
+import org.apache.flink.api.common.typeinfo.BasicTypeInfo;
+import org.apache.flink.api.common.typeinfo.PrimitiveArrayTypeInfo;
+import org.apache.flink.api.common.typeinfo.TypeInformation;
+import org.apache.flink.api.java.typeutils.ListTypeInfo;
+import org.apache.flink.api.java.typeutils.MapTypeInfo;
+import org.apache.flink.api.java.typeutils.ObjectArrayTypeInfo;
+import org.apache.flink.api.java.typeutils.RowTypeInfo;
+import org.apache.flink.types.Row;
+
+import java.lang.reflect.Array;
+import java.math.BigDecimal;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes rows as json lines, with one writer per field chosen from the row type when the first row
+ * is written. Nested rows and maps become objects, arrays and lists become arrays, numbers and
+ * booleans are written as such and the other values as strings.
+ */
+public class JsonRowEncoder extends RowEncoder {
+
+    private static final long serialVersionUID = 1L;
+
+    private final RowTypeInfo rowTypeInfo;
+
+    private transient ValueWriter rowWriter;
+
+    public JsonRowEncoder(RowTypeInfo rowTypeInfo) {
+        this.rowTypeInfo = rowTypeInfo;
+    }
+
+    @Override
+    protected void append(StringBuilder line, Row row) {
+        if (rowWriter == null) {
+            rowWriter = writer(rowTypeInfo);
+        }
+        rowWriter.write(line, row);
+    }
+
+    private interface ValueWriter {
+
+        void write(StringBuilder line, Object value);
+    }
+
+    private static ValueWriter nullSafe(ValueWriter writer) {
+        return (line, value) -> {
+            if (value == null) {
+                line.append("null");
+            } else {
+                writer.write(line, value);
+            }
+        };
+    }
+
+    private static ValueWriter writer(TypeInformation<?> typeInfo) {
+        if (typeInfo instanceof RowTypeInfo) {
+            RowTypeInfo rowType = (RowTypeInfo) typeInfo;
+            String[] names = rowType.getFieldNames();
+            String[] keys = new String[names.length];
+            ValueWriter[] writers = new ValueWriter[names.length];
+            for (int i = 0; i < names.length; i++) {
+                StringBuilder key = new StringBuilder();
+                appendString(key, names[i]);
+                keys[i] = key.append(':').toString();
+                writers[i] = nullSafe(writer(rowType.getTypeAt(i)));
+            }
+            return (line, value) -> {
+                Row row = (Row) value;
+                line.append('{');
+                for (int i = 0; i < keys.length; i++) {
+                    if (i > 0) {
+                        line.append(',');
+                    }
+                    line.append(keys[i]);
+                    writers[i].write(line, row.getField(i));
+                }
+                line.append('}');
+            };
+        }
+        if (typeInfo.equals(BasicTypeInfo.BOOLEAN_TYPE_INFO) || typeInfo.equals(BasicTypeInfo.BYTE_TYPE_INFO)
+                || typeInfo.equals(BasicTypeInfo.SHORT_TYPE_INFO) || typeInfo.equals(BasicTypeInfo.INT_TYPE_INFO)
+                || typeInfo.equals(BasicTypeInfo.LONG_TYPE_INFO) || typeInfo.equals(BasicTypeInfo.BIG_INT_TYPE_INFO)) {
+            return StringBuilder::append;
+        }
+        if (typeInfo.equals(BasicTypeInfo.FLOAT_TYPE_INFO) || typeInfo.equals(BasicTypeInfo.DOUBLE_TYPE_INFO)) {
+            // json has no representation of NaN and infinity
+            return (line, value) -> {
+                double number = ((Number) value).doubleValue();
+                if (Double.isNaN(number) || Double.isInfinite(number)) {
+                    line.append("null");
+                } else {
+                    line.append(value);
+                }
+            };
+        }
+        if (typeInfo.equals(BasicTypeInfo.BIG_DEC_TYPE_INFO)) {
+            return (line, value) -> line.append(((BigDecimal) value).toPlainString());
+        }
+        if (typeInfo.equals(PrimitiveArrayTypeInfo.BYTE_PRIMITIVE_ARRAY_TYPE_INFO)) {
+            return (line, value) -> appendString(line, Base64.getEncoder().encodeToString((byte[]) value));
+        }
+        if (typeInfo instanceof PrimitiveArrayTypeInfo) {
+            ValueWriter element = writer(((PrimitiveArrayTypeInfo<?>) typeInfo).getComponentType());
+            return (line, value) -> {
+                line.append('[');
+                int length = Array.getLength(value);
+                for (int i = 0; i < length; i++) {
+                    if (i > 0) {
+                        line.append(',');
+                    }
+                    element.write(line, Array.get(value, i));
+                }
+                line.append(']');
+            };
+        }
+        if (typeInfo instanceof BasicArrayTypeInfo || typeInfo instanceof ObjectArrayTypeInfo) {
+            TypeInformation<?> componentType = typeInfo instanceof BasicArrayTypeInfo
+                    ? ((BasicArrayTypeInfo<?, ?>) typeInfo).getComponentInfo()
+                    : ((ObjectArrayTypeInfo<?, ?>) typeInfo).getComponentInfo();
+            ValueWriter element = nullSafe(writer(componentType));
+            return (line, value) -> {
+                line.append('[');
+                Object[] items = (Object[]) value;
+                for (int i = 0; i < items.length; i++) {
+                    if (i > 0) {
+                        line.append(',');
+                    }
+                    element.write(line, items[i]);
+                }
+                line.append(']');
+            };
+        }
+        if (typeInfo instanceof ListTypeInfo) {
+            ValueWriter element = nullSafe(writer(((ListTypeInfo<?>) typeInfo).getElementTypeInfo()));
+            return (line, value) -> {
+                line.append('[');
+                List<?> items = (List<?>) value;
+                for (int i = 0; i < items.size(); i++) {
+                    if (i > 0) {
+                        line.append(',');
+                    }
+                    element.write(line, items.get(i));
+                }
+                line.append(']');
+            };
+        }
+        if (typeInfo instanceof MapTypeInfo) {
+            ValueWriter entryValue = nullSafe(writer(((MapTypeInfo<?, ?>) typeInfo).getValueTypeInfo()));
+            return (line, value) -> {
+                line.append('{');
+                boolean first = true;
+                for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                    if (!first) {
+                        line.append(',');
+                    }
+                    first = false;
+                    appendString(line, String.valueOf(entry.getKey()));
+                    line.append(':');
+                    entryValue.write(line, entry.getValue());
+                }
+                line.append('}');
+            };
+        }
+        // strings, dates and times, in their string representation
+        return (line, value) -> appendString(line, value.toString());
+    }
+
+    private static void appendString(StringBuilder line, String value) {
+        line.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    line.append("\\\"");
+                    break;
+                case '\\':
+                    line.append("\\\\");
+                    break;
+                case '\n':
+                    line.append("\\n");
+                    break;
+                case '\r':
+                    line.append("\\r");
+                    break;
+                case '\t':
+                    line.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        line.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        line.append(c);
+                    }
+            }
+        }
+        line.append('"');
+    }
+}
@@ -0,0 +1,212 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.seatunnel.flink.sink;
+
+import org.apache.flink.api.common.serialization.BulkWriter;
+import org.apache.flink.api.common.typeinfo.BasicTypeInfo;
+import org.apache.flink.api.common.typeinfo.PrimitiveArrayTypeInfo;
+import org.apache.flink.api.common.typeinfo.SqlTimeTypeInfo;
+import org.apache.flink.api.common.typeinfo.TypeInformation;
+import org.apache.flink.api.java.typeutils.RowTypeInfo;
+import org.apache.flink.core.fs.FSDataOutputStream;
+import org.apache.flink.types.Row;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.hive.common.type.HiveDecimal;
+import org.apache.hadoop.hive.ql.exec.vector.BytesColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.ColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.DecimalColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.DoubleColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.LongColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.TimestampColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.VectorizedRowBatch;
+import org.apache.orc.CompressionKind;
+import org.apache.orc.OrcFile;
+import org.apache.orc.TypeDescription;
+import org.apache.orc.Writer;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.util.UUID;
+
+/**
+ * ORC bulk writers of rows for the {@link org.apache.flink.streaming.api.functions.sink.filesystem.StreamingFileSink}.
+ * The rows are added to a row batch by one writer per column, chosen from the row type, and the full
+ * batches are handed to the ORC writer. The schema is flat like the parquet one: decimals have a
+ * precision of 38 and a scale of 18, nested rows, arrays and maps are written as strings.
+ */
+public class OrcRowWriterFactory implements BulkWriter.Factory<Row> {
+
+    private static final long serialVersionUID = 1L;
+
+    private final RowTypeInfo rowTypeInfo;
+
+    private final String compression;
+
+    /**
+     * @param compression ORC compression kind, eg: zlib
+     */
+    public OrcRowWriterFactory(RowTypeInfo rowTypeInfo, String compression) {
+        this.rowTypeInfo = rowTypeInfo;
+        this.compression = compression;
+    }
+
+    @Override
+    public BulkWriter<Row> create(FSDataOutputStream out) throws IOException {
+        TypeDescription schema = TypeDescription.createStruct();
+        ColumnWriter[] writers = new ColumnWriter[rowTypeInfo.getArity()];
+        for (int i = 0; i < writers.length; i++) {
+            TypeInformation<?> typeInfo = rowTypeInfo.getTypeAt(i);
+            schema.addField(rowTypeInfo.getFieldNames()[i], orcType(typeInfo));
+            writers[i] = writer(typeInfo);
+        }
+        OrcFile.WriterOptions options = OrcFile.writerOptions(new Configuration())
+                .setSchema(schema)
+                .compress(CompressionKind.valueOf(compression.toUpperCase()))
+                .fileSystem(new OrcStreamFileSystem(out));
+        // the memory manager of the writers tells them apart by path
+        Writer writer = OrcFile.createWriter(new Path("/" + UUID.randomUUID() + ".orc"), options);
+        return new OrcRowBulkWriter(writer, schema.createRowBatch(), writers);
+    }
+
+    private interface ColumnWriter {
+
+        void write(ColumnVector vector, int row, Object value);
+    }
+
+    private static TypeDescription orcType(TypeInformation<?> typeInfo) {
+        if (typeInfo.equals(BasicTypeInfo.BOOLEAN_TYPE_INFO)) {
+            return TypeDescription.createBoolean();
+        } else if (typeInfo.equals(BasicTypeInfo.BYTE_TYPE_INFO)) {
+            return TypeDescription.createByte();
+        } else if (typeInfo.equals(BasicTypeInfo.SHORT_TYPE_INFO)) {
+            return TypeDescription.createShort();
+        } else if (typeInfo.equals(BasicTypeInfo.INT_TYPE_INFO)) {
+            return TypeDescription.createInt();
+        } else if (typeInfo.equals(BasicTypeInfo.LONG_TYPE_INFO)) {
+            return TypeDescription.createLong();
+        } else if (typeInfo.equals(BasicTypeInfo.FLOAT_TYPE_INFO)) {
+            return TypeDescription.createFloat();
+        } else if (typeInfo.equals(BasicTypeInfo.DOUBLE_TYPE_INFO)) {
+            return TypeDescription.createDouble();
+        } else if (typeInfo.equals(BasicTypeInfo.BIG_DEC_TYPE_INFO)) {
+            return TypeDescription.createDecimal()
+                    .withPrecision(ParquetRowWriteSupport.DECIMAL_PRECISION)
+                    .withScale(ParquetRowWriteSupport.DECIMAL_SCALE);
+        } else if (typeInfo.equals(SqlTimeTypeInfo.DATE)) {
+            return TypeDescription.createDate();
+        } else if (typeInfo.equals(SqlTimeTypeInfo.TIMESTAMP)) {
+            return TypeDescription.createTimestamp();
+        } else if (typeInfo.equals(PrimitiveArrayTypeInfo.BYTE_PRIMITIVE_ARRAY_TYPE_INFO)) {
+            return TypeDescription.createBinary();
+        }
+        return TypeDescription.createString();
+    }
+
+    private static ColumnWriter writer(TypeInformation<?> typeInfo) {
+        if (typeInfo.equals(BasicTypeInfo.BOOLEAN_TYPE_INFO)) {
+            return (vector, row, value) -> ((LongColumnVector) vector).vector[row] = (Boolean) value ? 1 : 0;
+        }
+        if (typeInfo.equals(BasicTypeInfo.BYTE_TYPE_INFO) || typeInfo.equals(BasicTypeInfo.SHORT_TYPE_INFO)
+                || typeInfo.equals(BasicTypeInfo.INT_TYPE_INFO) || typeInfo.equals(BasicTypeInfo.LONG_TYPE_INFO)) {
+            return (vector, row, value) -> ((LongColumnVector) vector).vector[row] = ((Number) value).longValue();
+        }
+        if (typeInfo.equals(BasicTypeInfo.FLOAT_TYPE_INFO) || typeInfo.equals(BasicTypeInfo.DOUBLE_TYPE_INFO)) {
+            return (vector, row, value) -> ((DoubleColumnVector) vector).vector[row] = ((Number) value).doubleValue();
+        }
+        if (typeInfo.equals(BasicTypeInfo.BIG_DEC_TYPE_INFO)) {
+            return (vector, row, value) -> ((DecimalColumnVector) vector).set(row, HiveDecimal.create((BigDecimal) value));
+        }
+        if (typeInfo.equals(SqlTimeTypeInfo.DATE)) {
+            return (vector, row, value) -> ((LongColumnVector) vector).vector[row] = ((Date) value).toLocalDate().toEpochDay();
+        }
+        if (typeInfo.equals(SqlTimeTypeInfo.TIMESTAMP)) {
+            return (vector, row, value) -> ((TimestampColumnVector) vector).set(row, (Timestamp) value);
+        }
+        if (typeInfo.equals(PrimitiveArrayTypeInfo.BYTE_PRIMITIVE_ARRAY_TYPE_INFO)) {
+            return (vector, row, value) -> {
+                byte[] bytes = (byte[]) value;
+                ((BytesColumnVector) vector).setVal(row, bytes, 0, bytes.length);
+            };
+        }
+        return (vector, row, value) -> {
+            byte[] bytes = value.toString().getBytes(StandardCharsets.UTF_8);
+            ((BytesColumnVector) vector).setVal(row, bytes, 0, bytes.length);
+        };
+    }
+
+    private static class OrcRowBulkWriter implements BulkWriter<Row> {
+
+        private final Writer writer;
+
+        private final VectorizedRowBatch batch;
+
+        private final ColumnWriter[] writers;
+
+        OrcRowBulkWriter(Writer writer, VectorizedRowBatch batch, ColumnWriter[] writers) {
+            this.writer = writer;
+            this.batch = batch;
+            this.writers = writers;
+            reset();
+        }
+
+        @Override
+        public void addElement(Row element) throws IOException {
+            int row = batch.size++;
+            for (int i = 0; i < writers.length; i++) {
+                Object value = element.getField(i);
+                ColumnVector vector = batch.cols[i];
+                if (value == null) {
+                    vector.noNulls = false;
+                    vector.isNull[row] = true;
+                } else {
+                    writers[i].write(vector, row, value);
+                }
+            }
+            if (batch.size == batch.getMaxSize()) {
+                flush();
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (batch.size > 0) {
+                writer.addRowBatch(batch);
+                reset();
+            }
+        }
+
+        @Override
+        public void finish() throws IOException {
+            flush();
+            writer.close();
+        }
+
+        private void reset() {
+            batch.reset();
+            for (ColumnVector vector : batch.cols) {
+                if (vector instanceof BytesColumnVector) {
+                    ((BytesColumnVector) vector).initBuffer();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.seatunnel.flink.sink;
+
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.FSDataOutputStream;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.fs.permission.FsPermission;
+import org.apache.hadoop.util.Progressable;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+
+/**
+ * File system whose only file is the part file stream of the sink, so that an ORC writer can write
+ * to it. Closing the file flushes the stream, the sink closes the stream itself.
+ */
+class OrcStreamFileSystem extends FileSystem {
+
+    private final OutputStream stream;
+
+    OrcStreamFileSystem(OutputStream stream) {
+        this.stream = stream;
+    }
+
+    @Override
+    public URI getUri() {
+        return URI.create("orc-stream:///");
+    }
+
+    @Override
+    public FSDataOutputStream create(Path f, FsPermission permission, boolean overwrite, int bufferSize,
+                                     short replication, long blockSize, Progressable progress) throws IOException {
+        OutputStream unclosable = new FilterOutputStream(stream) {
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                out.write(b, off, len);
+            }
+
+            @Override
+            public void close() throws IOException {
+                flush();
+            }
+        };
+        return new FSDataOutputStream(unclosable, null);
+    }
+
+    @Override
+    public FSDataInputStream open(Path f, int bufferSize) {
+        throw new UnsupportedOperationException("the ORC part file stream can not be read");
+    }
+
+    @Override
+    public FSDataOutputStream append(Path f, int bufferSize, Progressable progress) {
+        throw new UnsupportedOperationException("the ORC part file stream can not be appended");
+    }
+
+    @Override
+    public boolean rename(Path src, Path dst) {
+        throw new UnsupportedOperationException("the ORC part file stream can not be renamed");
+    }
+
+    @Override
+    public boolean delete(Path f, boolean recursive) {
+        throw new UnsupportedOperationException("the ORC part file stream can not be deleted");
+    }
+
+    @Override
+    public FileStatus[] listStatus(Path f) {
+        throw new UnsupportedOperationException("the ORC part file stream can not be listed");
+    }
+
+    @Override
+    public void setWorkingDirectory(Path newDir) {
+    }
+
+    @Override
+    public Path getWorkingDirectory() {
+        return new Path(getUri());
+    }
+
+    @Override
+    public boolean mkdirs(Path f, FsPermission permission) {
+        return true;
+    }
+
+    @Override
+    public FileStatus getFileStatus(Path f) {
+        throw new UnsupportedOperationException("the ORC part file stream has no status");
+    }
+}
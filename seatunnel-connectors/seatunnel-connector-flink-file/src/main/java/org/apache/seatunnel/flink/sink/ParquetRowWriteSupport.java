@@ -0,0 +1,188 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.seatunnel.flink.sink;
+
+import org.apache.flink.api.common.typeinfo.BasicTypeInfo;
+import org.apache.flink.api.common.typeinfo.PrimitiveArrayTypeInfo;
+import org.apache.flink.api.common.typeinfo.SqlTimeTypeInfo;
+import org.apache.flink.api.common.typeinfo.TypeInformation;
+import org.apache.flink.api.java.typeutils.RowTypeInfo;
+import org.apache.flink.types.Row;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.parquet.hadoop.api.WriteSupport;
+import org.apache.parquet.io.api.Binary;
+import org.apache.parquet.io.api.RecordConsumer;
+import org.apache.parquet.schema.MessageType;
+import org.apache.parquet.schema.OriginalType;
+import org.apache.parquet.schema.PrimitiveType.PrimitiveTypeName;
+import org.apache.parquet.schema.Types;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.util.Collections;
+
+/**
+ * Writes rows as parquet records of a flat schema derived from the row type, with one writer per
+ * field chosen from its type. Decimals are written with a precision of 38 and a scale of 18, and
+ * timestamps as INT96 for Hive and Presto. Nested rows, arrays and maps are written as strings.
+ */
+public class ParquetRowWriteSupport extends WriteSupport<Row> {
+
+    static final int DECIMAL_PRECISION = 38;
+
+    static final int DECIMAL_SCALE = 18;
+
+    private static final long NANOS_PER_DAY = 86400_000_000_000L;
+
+    private static final long JULIAN_EPOCH_DAY = 2440588L;
+
+    private final MessageType schema;
+
+    private final String[] names;
+
+    private final FieldWriter[] writers;
+
+    private RecordConsumer recordConsumer;
+
+    public ParquetRowWriteSupport(RowTypeInfo rowTypeInfo) {
+        this.names = rowTypeInfo.getFieldNames();
+        this.writers = new FieldWriter[names.length];
+        Types.MessageTypeBuilder builder = Types.buildMessage();
+        for (int i = 0; i < names.length; i++) {
+            TypeInformation<?> typeInfo = rowTypeInfo.getTypeAt(i);
+            writers[i] = writer(typeInfo);
+            addField(builder, typeInfo, names[i]);
+        }
+        this.schema = builder.named("row");
+    }
+
+    @Override
+    public WriteContext init(Configuration configuration) {
+        return new WriteContext(schema, Collections.emptyMap());
+    }
+
+    @Override
+    public void prepareForWrite(RecordConsumer recordConsumer) {
+        this.recordConsumer = recordConsumer;
+    }
+
+    @Override
+    public void write(Row row) {
+        recordConsumer.startMessage();
+        for (int i = 0; i < writers.length; i++) {
+            Object value = row.getField(i);
+            // a null is an absent optional field
+            if (value != null) {
+                recordConsumer.startField(names[i], i);
+                writers[i].write(recordConsumer, value);
+                recordConsumer.endField(names[i], i);
+            }
+        }
+        recordConsumer.endMessage();
+    }
+
+    private interface FieldWriter {
+
+        void write(RecordConsumer consumer, Object value);
+    }
+
+    private static void addField(Types.MessageTypeBuilder builder, TypeInformation<?> typeInfo, String name) {
+        if (typeInfo.equals(BasicTypeInfo.BOOLEAN_TYPE_INFO)) {
+            builder.optional(PrimitiveTypeName.BOOLEAN).named(name);
+        } else if (typeInfo.equals(BasicTypeInfo.BYTE_TYPE_INFO)) {
+            builder.optional(PrimitiveTypeName.INT32).as(OriginalType.INT_8).named(name);
+        } else if (typeInfo.equals(BasicTypeInfo.SHORT_TYPE_INFO)) {
+            builder.optional(PrimitiveTypeName.INT32).as(OriginalType.INT_16).named(name);
+        } else if (typeInfo.equals(BasicTypeInfo.INT_TYPE_INFO)) {
+            builder.optional(PrimitiveTypeName.INT32).named(name);
+        } else if (typeInfo.equals(BasicTypeInfo.LONG_TYPE_INFO)) {
+            builder.optional(PrimitiveTypeName.INT64).named(name);
+        } else if (typeInfo.equals(BasicTypeInfo.FLOAT_TYPE_INFO)) {
+            builder.optional(PrimitiveTypeName.FLOAT).named(name);
+        } else if (typeInfo.equals(BasicTypeInfo.DOUBLE_TYPE_INFO)) {
+            builder.optional(PrimitiveTypeName.DOUBLE).named(name);
+        } else if (typeInfo.equals(BasicTypeInfo.BIG_DEC_TYPE_INFO)) {
+            builder.optional(PrimitiveTypeName.BINARY).as(OriginalType.DECIMAL)
+                    .precision(DECIMAL_PRECISION).scale(DECIMAL_SCALE).named(name);
+        } else if (typeInfo.equals(SqlTimeTypeInfo.DATE)) {
+            builder.optional(PrimitiveTypeName.INT32).as(OriginalType.DATE).named(name);
+        } else if (typeInfo.equals(SqlTimeTypeInfo.TIMESTAMP)) {
+            builder.optional(PrimitiveTypeName.INT96).named(name);
+        } else if (typeInfo.equals(PrimitiveArrayTypeInfo.BYTE_PRIMITIVE_ARRAY_TYPE_INFO)) {
+            builder.optional(PrimitiveTypeName.BINARY).named(name);
+        } else {
+            builder.optional(PrimitiveTypeName.BINARY).as(OriginalType.UTF8).named(name);
+        }
+    }
+
+    private static FieldWriter writer(TypeInformation<?> typeInfo) {
+        if (typeInfo.equals(BasicTypeInfo.BOOLEAN_TYPE_INFO)) {
+            return (consumer, value) -> consumer.addBoolean((Boolean) value);
+        }
+        if (typeInfo.equals(BasicTypeInfo.BYTE_TYPE_INFO) || typeInfo.equals(BasicTypeInfo.SHORT_TYPE_INFO)
+                || typeInfo.equals(BasicTypeInfo.INT_TYPE_INFO)) {
+            return (consumer, value) -> consumer.addInteger(((Number) value).intValue());
+        }
+        if (typeInfo.equals(BasicTypeInfo.LONG_TYPE_INFO)) {
+            return (consumer, value) -> consumer.addLong((Long) value);
+        }
+        if (typeInfo.equals(BasicTypeInfo.FLOAT_TYPE_INFO)) {
+            return (consumer, value) -> consumer.addFloat((Float) value);
+        }
+        if (typeInfo.equals(BasicTypeInfo.DOUBLE_TYPE_INFO)) {
+            return (consumer, value) -> consumer.addDouble((Double) value);
+        }
+        if (typeInfo.equals(BasicTypeInfo.BIG_DEC_TYPE_INFO)) {
+            return (consumer, value) -> {
+                BigDecimal decimal = ((BigDecimal) value).setScale(DECIMAL_SCALE, RoundingMode.HALF_UP);
+                consumer.addBinary(Binary.fromConstantByteArray(decimal.unscaledValue().toByteArray()));
+            };
+        }
+        if (typeInfo.equals(SqlTimeTypeInfo.DATE)) {
+            return (consumer, value) -> consumer.addInteger((int) ((Date) value).toLocalDate().toEpochDay());
+        }
+        if (typeInfo.equals(SqlTimeTypeInfo.TIMESTAMP)) {
+            return (consumer, value) -> consumer.addBinary(int96((Timestamp) value));
+        }
+        if (typeInfo.equals(PrimitiveArrayTypeInfo.BYTE_PRIMITIVE_ARRAY_TYPE_INFO)) {
+            return (consumer, value) -> consumer.addBinary(Binary.fromReusedByteArray((byte[]) value));
+        }
+        return (consumer, value) -> consumer.addBinary(Binary.fromString(value.toString()));
+    }
+
+    /**
+     * Nanoseconds of the day and julian day of the instant in UTC, both little endian, as Hive writes
+     * the timestamps.
+     */
+    private static Binary int96(Timestamp timestamp) {
+        long epochNanos = Math.floorDiv(timestamp.getTime(), 1000L) * 1_000_000_000L + timestamp.getNanos();
+        long epochDay = Math.floorDiv(epochNanos, NANOS_PER_DAY);
+        long nanosOfDay = Math.floorMod(epochNanos, NANOS_PER_DAY);
+        byte[] bytes = new byte[12];
+        for (int i = 0; i < 8; i++) {
+            bytes[i] = (byte) (nanosOfDay >>> (8 * i));
+        }
+        int julianDay = (int) (epochDay + JULIAN_EPOCH_DAY);
+        for (int i = 0; i < 4; i++) {
+            bytes[8 + i] = (byte) (julianDay >>> (8 * i));
+        }
+        return Binary.fromConstantByteArray(bytes);
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.seatunnel.flink.sink;
+
+import org.apache.flink.api.java.typeutils.RowTypeInfo;
+import org.apache.flink.formats.parquet.ParquetWriterFactory;
+import org.apache.flink.types.Row;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.parquet.hadoop.ParquetWriter;
+import org.apache.parquet.hadoop.api.WriteSupport;
+import org.apache.parquet.hadoop.metadata.CompressionCodecName;
+import org.apache.parquet.io.OutputFile;
+
+/**
+ * Parquet bulk writers of rows for the {@link org.apache.flink.streaming.api.functions.sink.filesystem.StreamingFileSink}.
+ */
+public class ParquetRowWriters {
+
+    private ParquetRowWriters() {
+    }
+
+    /**
+     * @param compression parquet compression codec name, eg: snappy
+     */
+    public static ParquetWriterFactory<Row> forRow(RowTypeInfo rowTypeInfo, String compression) {
+        CompressionCodecName codec = CompressionCodecName.valueOf(compression.toUpperCase());
+        return new ParquetWriterFactory<>(out -> new Builder(out, rowTypeInfo).withCompressionCodec(codec).build());
+    }
+
+    private static class Builder extends ParquetWriter.Builder<Row, Builder> {
+
+        private final RowTypeInfo rowTypeInfo;
+
+        Builder(OutputFile file, RowTypeInfo rowTypeInfo) {
+            super(file);
+            this.rowTypeInfo = rowTypeInfo;
+        }
+
+        @Override
+        protected Builder self() {
+            return this;
+        }
+
+        @Override
+        protected WriteSupport<Row> getWriteSupport(Configuration conf) {
+            return new ParquetRowWriteSupport(rowTypeInfo);
+        }
+    }
+}
@@ -0,0 +1,184 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.seatunnel.flink.sink;
+
+import org.apache.flink.api.java.typeutils.RowTypeInfo;
+import org.apache.flink.core.io.SimpleVersionedSerializer;
+import org.apache.flink.streaming.api.functions.sink.filesystem.BucketAssigner;
+import org.apache.flink.streaming.api.functions.sink.filesystem.bucketassigners.SimpleVersionedStringSerializer;
+import org.apache.flink.types.Row;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Assigns rows to Hive style partition directories, made of the time of the row formatted with a
+ * pattern, eg: `dt=2021-12-01/hour=08`, and of `name=value` directories of partition fields.
+ *
+ * <p>The time of a row is the value of the time field when there is one, or else the timestamp of
+ * the record, the rowtime of a table, or else the processing time. It is truncated to the partition
+ * interval before it is formatted. When the partitions are committed, the ends of the time partitions
+ * written to are kept until the writer reports them.
+ */
+public class PartitionBucketAssigner implements BucketAssigner<Row, String> {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final String DEFAULT_PARTITION = "__HIVE_DEFAULT_PARTITION__";
+
+    private static final String ESCAPED_CHARS = "\"#%'*/:=?\\{[]^";
+
+    private final String timeFormat;
+
+    private final long intervalMs;
+
+    private final String zoneId;
+
+    private final int timeIndex;
+
+    private final String[] partitionNames;
+
+    private final int[] partitionIndexes;
+
+    private final boolean commitPartitions;
+
+    private transient DateTimeFormatter formatter;
+
+    private transient ZoneId zone;
+
+    private transient Map<String, Long> timePartitions;
+
+    /**
+     * @param timeFormat     {@link DateTimeFormatter} pattern of the time directories, null for no time partitions
+     * @param intervalMs     length of the time partitions
+     * @param zoneId         time zone of the time partitions
+     * @param timeField      field holding the time of the rows, null for the timestamp of the records
+     * @param partitionFields fields partitioning the rows after the time
+     * @param commitPartitions whether to keep the time partitions written to for the partition commit
+     */
+    public PartitionBucketAssigner(RowTypeInfo rowTypeInfo, String timeFormat, long intervalMs, String zoneId,
+                                   String timeField, List<String> partitionFields, boolean commitPartitions) {
+        this.timeFormat = timeFormat;
+        this.intervalMs = intervalMs;
+        this.zoneId = zoneId;
+        this.timeIndex = timeField == null ? -1 : fieldIndex(rowTypeInfo, timeField);
+        this.partitionNames = partitionFields.toArray(new String[0]);
+        this.partitionIndexes = new int[partitionNames.length];
+        for (int i = 0; i < partitionNames.length; i++) {
+            partitionIndexes[i] = fieldIndex(rowTypeInfo, partitionNames[i]);
+        }
+        this.commitPartitions = commitPartitions;
+    }
+
+    @Override
+    public String getBucketId(Row element, Context context) {
+        StringBuilder bucket = new StringBuilder();
+        long end = -1;
+        if (timeFormat != null) {
+            if (formatter == null) {
+                formatter = DateTimeFormatter.ofPattern(timeFormat);
+                zone = ZoneId.of(zoneId);
+            }
+            long time = time(element, context);
+            // truncated in local time, a day lasts 23 or 25 hours when the offset changes
+            long localTime = time + zone.getRules().getOffset(Instant.ofEpochMilli(time)).getTotalSeconds() * 1000L;
+            long localStart = localTime - Math.floorMod(localTime, intervalMs);
+            bucket.append(formatter.format(localDateTime(localStart)));
+            end = localDateTime(localStart + intervalMs).atZone(zone).toInstant().toEpochMilli();
+        }
+        for (int i = 0; i < partitionIndexes.length; i++) {
+            if (bucket.length() > 0) {
+                bucket.append('/');
+            }
+            Object value = element.getField(partitionIndexes[i]);
+            bucket.append(partitionNames[i]).append('=');
+            escape(bucket, value == null || value.toString().isEmpty() ? DEFAULT_PARTITION : value.toString());
+        }
+        String bucketId = bucket.toString();
+        if (commitPartitions && end >= 0) {
+            timePartitions().put(bucketId, end);
+        }
+        return bucketId;
+    }
+
+    @Override
+    public SimpleVersionedSerializer<String> getSerializer() {
+        return SimpleVersionedStringSerializer.INSTANCE;
+    }
+
+    /**
+     * End of the time partitions written to since they were last reported complete, by bucket, when the
+     * partitions are committed.
+     */
+    Map<String, Long> timePartitions() {
+        if (timePartitions == null) {
+            timePartitions = new HashMap<>();
+        }
+        return timePartitions;
+    }
+
+    private long time(Row element, Context context) {
+        if (timeIndex >= 0) {
+            Object value = element.getField(timeIndex);
+            if (value instanceof Date) {
+                return ((Date) value).getTime();
+            } else if (value instanceof Number) {
+                return ((Number) value).longValue();
+            } else if (value instanceof LocalDateTime) {
+                return ((LocalDateTime) value).atZone(zone).toInstant().toEpochMilli();
+            } else if (value instanceof Instant) {
+                return ((Instant) value).toEpochMilli();
+            }
+        }
+        Long timestamp = context.timestamp();
+        return timestamp != null ? timestamp : context.currentProcessingTime();
+    }
+
+    private static LocalDateTime localDateTime(long localTime) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(localTime), ZoneOffset.UTC);
+    }
+
+    private static int fieldIndex(RowTypeInfo rowTypeInfo, String field) {
+        int index = rowTypeInfo.getFieldIndex(field);
+        if (index < 0) {
+            throw new IllegalArgumentException("partition field [" + field + "] does not exist in " + rowTypeInfo);
+        }
+        return index;
+    }
+
+    /**
+     * Escapes the characters Hive escapes in partition values.
+     */
+    private static void escape(StringBuilder bucket, String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < 0x20 || c == 0x7F || ESCAPED_CHARS.indexOf(c) >= 0) {
+                bucket.append('%').append(String.format("%02X", (int) c));
+            } else {
+                bucket.append(c);
+            }
+        }
+    }
+}
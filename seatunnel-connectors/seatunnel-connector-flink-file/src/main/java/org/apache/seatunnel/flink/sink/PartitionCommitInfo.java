@@ -0,0 +1,83 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.seatunnel.flink.sink;
+
+import java.io.Serializable;
+import java.util.Map;
+
+/**
+ * Time partitions a writer subtask has written to until a checkpoint, with its watermark at that
+ * checkpoint, sent to the committer once the checkpoint is complete.
+ */
+public class PartitionCommitInfo implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private int subtask;
+
+    private int numberOfSubtasks;
+
+    private long watermark;
+
+    private Map<String, Long> partitions;
+
+    public PartitionCommitInfo() {
+    }
+
+    /**
+     * @param partitions end of the time partitions, by bucket
+     */
+    public PartitionCommitInfo(int subtask, int numberOfSubtasks, long watermark, Map<String, Long> partitions) {
+        this.subtask = subtask;
+        this.numberOfSubtasks = numberOfSubtasks;
+        this.watermark = watermark;
+        this.partitions = partitions;
+    }
+
+    public int getSubtask() {
+        return subtask;
+    }
+
+    public void setSubtask(int subtask) {
+        this.subtask = subtask;
+    }
+
+    public int getNumberOfSubtasks() {
+        return numberOfSubtasks;
+    }
+
+    public void setNumberOfSubtasks(int numberOfSubtasks) {
+        this.numberOfSubtasks = numberOfSubtasks;
+    }
+
+    public long getWatermark() {
+        return watermark;
+    }
+
+    public void setWatermark(long watermark) {
+        this.watermark = watermark;
+    }
+
+    public Map<String, Long> getPartitions() {
+        return partitions;
+    }
+
+    public void setPartitions(Map<String, Long> partitions) {
+        this.partitions = partitions;
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.seatunnel.flink.sink;
+
+import org.apache.flink.api.common.state.ListState;
+import org.apache.flink.api.common.state.ListStateDescriptor;
+import org.apache.flink.api.common.typeinfo.TypeHint;
+import org.apache.flink.api.common.typeinfo.TypeInformation;
+import org.apache.flink.api.java.tuple.Tuple2;
+import org.apache.flink.core.fs.FileSystem;
+import org.apache.flink.core.fs.Path;
+import org.apache.flink.runtime.state.FunctionInitializationContext;
+import org.apache.flink.runtime.state.FunctionSnapshotContext;
+import org.apache.flink.streaming.api.checkpoint.CheckpointedFunction;
+import org.apache.flink.streaming.api.functions.sink.RichSinkFunction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Writes a `_SUCCESS` file into the time partitions reported by the {@link PartitionWriter} subtasks
+ * once they are complete: when the minimum of the watermarks the subtasks reported with their committed
+ * checkpoints, minus the commit delay, has passed their end. It runs with a parallelism of 1.
+ */
+public class PartitionCommitter extends RichSinkFunction<PartitionCommitInfo> implements CheckpointedFunction {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PartitionCommitter.class);
+
+    private static final String SUCCESS_FILE = "_SUCCESS";
+
+    private final Path basePath;
+
+    private final long commitDelayMs;
+
+    private transient ListState<Tuple2<String, Long>> partitionState;
+
+    private transient Map<String, Long> partitions;
+
+    private transient long[] watermarks;
+
+    public PartitionCommitter(Path basePath, long commitDelayMs) {
+        this.basePath = basePath;
+        this.commitDelayMs = commitDelayMs;
+    }
+
+    @Override
+    public void initializeState(FunctionInitializationContext context) throws Exception {
+        partitionState = context.getOperatorStateStore().getListState(new ListStateDescriptor<>(
+                "partition-commit-pending", TypeInformation.of(new TypeHint<Tuple2<String, Long>>() {
+                })));
+        partitions = new HashMap<>();
+        if (context.isRestored()) {
+            for (Tuple2<String, Long> partition : partitionState.get()) {
+                partitions.put(partition.f0, partition.f1);
+            }
+        }
+    }
+
+    @Override
+    public void invoke(PartitionCommitInfo info, Context context) throws Exception {
+        if (watermarks == null || watermarks.length != info.getNumberOfSubtasks()) {
+            watermarks = new long[info.getNumberOfSubtasks()];
+            Arrays.fill(watermarks, Long.MIN_VALUE);
+        }
+        watermarks[info.getSubtask()] = Math.max(watermarks[info.getSubtask()], info.getWatermark());
+        partitions.putAll(info.getPartitions());
+
+        long watermark = Arrays.stream(watermarks).min().getAsLong();
+        Iterator<Map.Entry<String, Long>> pending = partitions.entrySet().iterator();
+        while (pending.hasNext()) {
+            Map.Entry<String, Long> partition = pending.next();
+            if (partition.getValue() + commitDelayMs <= watermark) {
+                writeSuccessFile(partition.getKey());
+                pending.remove();
+            }
+        }
+    }
+
+    @Override
+    public void snapshotState(FunctionSnapshotContext context) throws Exception {
+        partitionState.clear();
+        for (Map.Entry<String, Long> partition : partitions.entrySet()) {
+            partitionState.add(Tuple2.of(partition.getKey(), partition.getValue()));
+        }
+    }
+
+    private void writeSuccessFile(String bucketId) throws IOException {
+        Path successFile = new Path(new Path(basePath, bucketId), SUCCESS_FILE);
+        FileSystem fileSystem = successFile.getFileSystem();
+        if (!fileSystem.exists(successFile)) {
+            fileSystem.create(successFile, FileSystem.WriteMode.OVERWRITE).close();
+            LOGGER.info("partition [{}] is complete, wrote {}", bucketId, successFile);
+        }
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.seatunnel.flink.sink;
+
+import org.apache.flink.streaming.api.functions.sink.filesystem.PartFileInfo;
+import org.apache.flink.streaming.api.functions.sink.filesystem.RollingPolicy;
+import org.apache.flink.types.Row;
+
+import java.io.IOException;
+
+/**
+ * Rolling policy of the row formats when the partitions are committed: the part files of the time
+ * partitions complete at a checkpoint are rolled on it so that they are committed with it, the other
+ * part files are rolled by the configured policy.
+ */
+public class PartitionRollingPolicy implements RollingPolicy<Row, String> {
+
+    private static final long serialVersionUID = 1L;
+
+    private final RollingPolicy<Row, String> rollingPolicy;
+
+    private final PartitionBucketAssigner bucketAssigner;
+
+    private final long commitDelayMs;
+
+    private transient long watermark;
+
+    public PartitionRollingPolicy(RollingPolicy<Row, String> rollingPolicy, PartitionBucketAssigner bucketAssigner,
+                                  long commitDelayMs) {
+        this.rollingPolicy = rollingPolicy;
+        this.bucketAssigner = bucketAssigner;
+        this.commitDelayMs = commitDelayMs;
+    }
+
+    /**
+     * Sets the watermark of the writer at the checkpoint being taken.
+     */
+    void setWatermark(long watermark) {
+        this.watermark = watermark;
+    }
+
+    @Override
+    public boolean shouldRollOnCheckpoint(PartFileInfo<String> partFileState) throws IOException {
+        Long end = bucketAssigner.timePartitions().get(partFileState.getBucketId());
+        return end != null && end + commitDelayMs <= watermark || rollingPolicy.shouldRollOnCheckpoint(partFileState);
+    }
+
+    @Override
+    public boolean shouldRollOnEvent(PartFileInfo<String> partFileState, Row element) throws IOException {
+        return rollingPolicy.shouldRollOnEvent(partFileState, element);
+    }
+
+    @Override
+    public boolean shouldRollOnProcessingTime(PartFileInfo<String> partFileState, long currentTime) throws IOException {
+        return rollingPolicy.shouldRollOnProcessingTime(partFileState, currentTime);
+    }
+}
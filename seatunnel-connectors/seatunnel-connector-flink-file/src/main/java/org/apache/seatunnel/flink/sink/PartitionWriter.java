@@ -0,0 +1,214 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.seatunnel.flink.sink;
+
+import org.apache.flink.api.common.state.ListState;
+import org.apache.flink.api.common.state.ListStateDescriptor;
+import org.apache.flink.api.common.typeinfo.TypeHint;
+import org.apache.flink.api.common.typeinfo.TypeInformation;
+import org.apache.flink.api.java.tuple.Tuple2;
+import org.apache.flink.runtime.state.FunctionSnapshotContext;
+import org.apache.flink.runtime.state.StateInitializationContext;
+import org.apache.flink.runtime.state.StateSnapshotContext;
+import org.apache.flink.streaming.api.functions.sink.SinkFunction;
+import org.apache.flink.streaming.api.functions.sink.filesystem.StreamingFileSink;
+import org.apache.flink.streaming.api.operators.AbstractUdfStreamOperator;
+import org.apache.flink.streaming.api.operators.ChainingStrategy;
+import org.apache.flink.streaming.api.operators.OneInputStreamOperator;
+import org.apache.flink.streaming.api.watermark.Watermark;
+import org.apache.flink.streaming.runtime.streamrecord.StreamRecord;
+import org.apache.flink.types.Row;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Writes the rows with a {@link StreamingFileSink} and reports to the {@link PartitionCommitter}, once
+ * a checkpoint is complete and its part files are committed, the time partitions written to until it
+ * with the watermark of the subtask at that checkpoint.
+ *
+ * <p>The watermark is the one of the operator, it advances without rows. When the input ends, with the
+ * maximum watermark, the part files left are committed and the partitions reported, as no checkpoint
+ * completes anymore.
+ */
+public class PartitionWriter extends AbstractUdfStreamOperator<PartitionCommitInfo, StreamingFileSink<Row>>
+        implements OneInputStreamOperator<Row, PartitionCommitInfo> {
+
+    private static final long serialVersionUID = 1L;
+
+    private final PartitionBucketAssigner bucketAssigner;
+
+    private final PartitionRollingPolicy rollingPolicy;
+
+    private final long commitDelayMs;
+
+    private transient ListState<Tuple2<String, Long>> partitionState;
+
+    private transient NavigableMap<Long, PartitionCommitInfo> checkpointPartitions;
+
+    private transient long currentWatermark;
+
+    private transient RowContext rowContext;
+
+    /**
+     * @param fileSink       sink assigning the buckets with the bucket assigner
+     * @param rollingPolicy  rolling policy of the sink, null when it rolls the part files on every checkpoint
+     */
+    public PartitionWriter(StreamingFileSink<Row> fileSink, PartitionBucketAssigner bucketAssigner,
+                           PartitionRollingPolicy rollingPolicy, long commitDelayMs) {
+        super(fileSink);
+        this.bucketAssigner = bucketAssigner;
+        this.rollingPolicy = rollingPolicy;
+        this.commitDelayMs = commitDelayMs;
+        this.chainingStrategy = ChainingStrategy.ALWAYS;
+    }
+
+    @Override
+    public void initializeState(StateInitializationContext context) throws Exception {
+        super.initializeState(context);
+        partitionState = context.getOperatorStateStore().getListState(new ListStateDescriptor<>(
+                "partition-commit-pending", TypeInformation.of(new TypeHint<Tuple2<String, Long>>() {
+                })));
+        checkpointPartitions = new TreeMap<>();
+        currentWatermark = Long.MIN_VALUE;
+        if (context.isRestored()) {
+            // reported again with the next checkpoint
+            for (Tuple2<String, Long> partition : partitionState.get()) {
+                bucketAssigner.timePartitions().put(partition.f0, partition.f1);
+            }
+        }
+    }
+
+    @Override
+    public void open() throws Exception {
+        super.open();
+        rowContext = new RowContext();
+    }
+
+    @Override
+    public void processElement(StreamRecord<Row> element) throws Exception {
+        rowContext.element = element;
+        userFunction.invoke(element.getValue(), rowContext);
+    }
+
+    @Override
+    public void processWatermark(Watermark mark) throws Exception {
+        super.processWatermark(mark);
+        currentWatermark = mark.getTimestamp();
+    }
+
+    @Override
+    public void snapshotState(StateSnapshotContext context) throws Exception {
+        long watermark = currentWatermark;
+        if (rollingPolicy != null) {
+            rollingPolicy.setWatermark(watermark);
+        }
+        super.snapshotState(context);
+
+        Map<String, Long> partitions = new HashMap<>(bucketAssigner.timePartitions());
+        partitionState.clear();
+        for (Map.Entry<String, Long> partition : partitions.entrySet()) {
+            partitionState.add(Tuple2.of(partition.getKey(), partition.getValue()));
+        }
+        checkpointPartitions.put(context.getCheckpointId(), commitInfo(watermark, partitions));
+        // the part files of the complete partitions were rolled, later rows of them add them back
+        bucketAssigner.timePartitions().values().removeIf(end -> end + commitDelayMs <= watermark);
+    }
+
+    @Override
+    public void notifyCheckpointComplete(long checkpointId) throws Exception {
+        super.notifyCheckpointComplete(checkpointId);
+        NavigableMap<Long, PartitionCommitInfo> completed = checkpointPartitions.headMap(checkpointId, true);
+        if (completed.isEmpty()) {
+            return;
+        }
+        Map<String, Long> partitions = new HashMap<>();
+        for (PartitionCommitInfo info : completed.values()) {
+            partitions.putAll(info.getPartitions());
+        }
+        long watermark = completed.lastEntry().getValue().getWatermark();
+        completed.clear();
+        output.collect(new StreamRecord<>(commitInfo(watermark, partitions)));
+    }
+
+    @Override
+    public void close() throws Exception {
+        if (currentWatermark != Long.MAX_VALUE) {
+            // stopped rather than at the end of the input, the part files left are committed with the next checkpoint
+            super.close();
+            return;
+        }
+        if (rollingPolicy != null) {
+            rollingPolicy.setWatermark(Long.MAX_VALUE);
+        }
+        userFunction.snapshotState(new EndOfInputContext());
+        userFunction.notifyCheckpointComplete(Long.MAX_VALUE);
+
+        Map<String, Long> partitions = new HashMap<>(bucketAssigner.timePartitions());
+        for (PartitionCommitInfo info : checkpointPartitions.values()) {
+            partitions.putAll(info.getPartitions());
+        }
+        checkpointPartitions.clear();
+        bucketAssigner.timePartitions().clear();
+        output.collect(new StreamRecord<>(commitInfo(Long.MAX_VALUE, partitions)));
+        super.close();
+    }
+
+    private PartitionCommitInfo commitInfo(long watermark, Map<String, Long> partitions) {
+        return new PartitionCommitInfo(getRuntimeContext().getIndexOfThisSubtask(),
+                getRuntimeContext().getNumberOfParallelSubtasks(), watermark, partitions);
+    }
+
+    private class RowContext implements SinkFunction.Context<Row> {
+
+        private StreamRecord<Row> element;
+
+        @Override
+        public long currentProcessingTime() {
+            return getProcessingTimeService().getCurrentProcessingTime();
+        }
+
+        @Override
+        public long currentWatermark() {
+            return currentWatermark;
+        }
+
+        @Override
+        public Long timestamp() {
+            return element.hasTimestamp() ? element.getTimestamp() : null;
+        }
+    }
+
+    /**
+     * Last snapshot of the file sink, taken when the input has ended to commit its part files.
+     */
+    private static class EndOfInputContext implements FunctionSnapshotContext {
+
+        @Override
+        public long getCheckpointId() {
+            return Long.MAX_VALUE;
+        }
+
+        @Override
+        public long getCheckpointTimestamp() {
+            return System.currentTimeMillis();
+        }
+    }
+}
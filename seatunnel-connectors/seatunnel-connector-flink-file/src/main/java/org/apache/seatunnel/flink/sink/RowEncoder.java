@@ -0,0 +1,90 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.seatunnel.flink.sink;
+
+import org.apache.flink.api.common.serialization.Encoder;
+import org.apache.flink.types.Row;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Encodes every row as one line of text, built in a reused buffer and written as UTF-8 by a reused encoder.
+ */
+public abstract class RowEncoder implements Encoder<Row> {
+
+    private static final long serialVersionUID = 1L;
+
+    private transient StringBuilder line;
+
+    private transient CharsetEncoder encoder;
+
+    private transient CharBuffer chars;
+
+    private transient ByteBuffer bytes;
+
+    @Override
+    public void encode(Row element, OutputStream stream) throws IOException {
+        if (line == null) {
+            line = new StringBuilder(256);
+            // unpaired surrogates are replaced like String.getBytes does
+            encoder = StandardCharsets.UTF_8.newEncoder()
+                    .onMalformedInput(CodingErrorAction.REPLACE)
+                    .onUnmappableCharacter(CodingErrorAction.REPLACE);
+            chars = CharBuffer.allocate(256);
+            bytes = ByteBuffer.allocate(1024);
+        }
+        line.setLength(0);
+        append(line, element);
+        line.append('\n');
+        utf8();
+        stream.write(bytes.array(), 0, bytes.position());
+    }
+
+    /**
+     * Appends the row to the line, without line delimiter.
+     */
+    protected abstract void append(StringBuilder line, Row row);
+
+    /**
+     * Encodes the line into the byte buffer, both buffers grow to the longest line.
+     */
+    private void utf8() {
+        int length = line.length();
+        if (chars.capacity() < length) {
+            chars = CharBuffer.allocate(Math.max(length, chars.capacity() * 2));
+        }
+        int maxBytes = (int) (length * encoder.maxBytesPerChar());
+        if (bytes.capacity() < maxBytes) {
+            bytes = ByteBuffer.allocate(Math.max(maxBytes, bytes.capacity() * 2));
+        }
+        chars.clear();
+        line.getChars(0, length, chars.array(), 0);
+        chars.limit(length);
+        bytes.clear();
+        encoder.reset();
+        // the byte buffer holds the longest encoding of the line, the encoding can not overflow
+        encoder.encode(chars, bytes, true);
+        encoder.flush(bytes);
+    }
+}
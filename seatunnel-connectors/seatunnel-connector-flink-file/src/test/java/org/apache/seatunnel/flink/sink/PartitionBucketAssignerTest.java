@@ -0,0 +1,180 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.seatunnel.flink.sink;
+
+import org.apache.flink.api.common.typeinfo.TypeInformation;
+import org.apache.flink.api.common.typeinfo.Types;
+import org.apache.flink.api.java.typeutils.RowTypeInfo;
+import org.apache.flink.streaming.api.functions.sink.filesystem.BucketAssigner;
+import org.apache.flink.types.Row;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collections;
+
+public class PartitionBucketAssignerTest {
+
+    private static final RowTypeInfo ROW_TYPE = new RowTypeInfo(
+        new TypeInformation<?>[]{Types.LONG, Types.SQL_TIMESTAMP, Types.STRING, Types.STRING},
+        new String[]{"event_time", "event_timestamp", "region", "city"});
+
+    private static final String HOURLY = "'dt='yyyy-MM-dd/'hour='HH";
+    private static final long HOUR = 60L * 60L * 1000L;
+    private static final long DAY = 24L * HOUR;
+
+    @Test
+    public void testHourlyPartitionsWhenTheClocksGoForward() {
+        PartitionBucketAssigner assigner = timeAssigner(HOUR, "event_time");
+
+        // 02:00 CET is 03:00 CEST
+        Assert.assertEquals("dt=2021-03-28/hour=01", bucket(assigner, "2021-03-28T00:30:00Z"));
+        Assert.assertEquals(millis("2021-03-28T01:00:00Z"), end(assigner, "dt=2021-03-28/hour=01"));
+        Assert.assertEquals("dt=2021-03-28/hour=03", bucket(assigner, "2021-03-28T01:30:00Z"));
+        Assert.assertEquals(millis("2021-03-28T02:00:00Z"), end(assigner, "dt=2021-03-28/hour=03"));
+    }
+
+    @Test
+    public void testHourlyPartitionsWhenTheClocksGoBack() {
+        PartitionBucketAssigner assigner = timeAssigner(HOUR, "event_time");
+
+        // 03:00 CEST is 02:00 CET, both 02 hours share the partition ending after the second one
+        Assert.assertEquals("dt=2021-10-31/hour=02", bucket(assigner, "2021-10-31T00:30:00Z"));
+        Assert.assertEquals("dt=2021-10-31/hour=02", bucket(assigner, "2021-10-31T01:30:00Z"));
+        Assert.assertEquals(millis("2021-10-31T02:00:00Z"), end(assigner, "dt=2021-10-31/hour=02"));
+    }
+
+    @Test
+    public void testDailyPartitionsWhenTheOffsetChanges() {
+        PartitionBucketAssigner assigner = timeAssigner(DAY, "event_time");
+
+        // a day of 23 hours
+        Assert.assertEquals("dt=2021-03-28/hour=00", bucket(assigner, "2021-03-27T23:30:00Z"));
+        Assert.assertEquals("dt=2021-03-28/hour=00", bucket(assigner, "2021-03-28T21:30:00Z"));
+        Assert.assertEquals(millis("2021-03-28T22:00:00Z"), end(assigner, "dt=2021-03-28/hour=00"));
+        Assert.assertEquals("dt=2021-03-29/hour=00", bucket(assigner, "2021-03-28T22:00:00Z"));
+
+        // a day of 25 hours, the end does not depend on the offset of the row
+        Assert.assertEquals("dt=2021-10-31/hour=00", bucket(assigner, "2021-10-30T22:30:00Z"));
+        Assert.assertEquals(millis("2021-10-31T23:00:00Z"), end(assigner, "dt=2021-10-31/hour=00"));
+        Assert.assertEquals("dt=2021-10-31/hour=00", bucket(assigner, "2021-10-31T22:30:00Z"));
+        Assert.assertEquals(millis("2021-10-31T23:00:00Z"), end(assigner, "dt=2021-10-31/hour=00"));
+        Assert.assertEquals("dt=2021-11-01/hour=00", bucket(assigner, "2021-10-31T23:00:00Z"));
+    }
+
+    @Test
+    public void testTimeFromATimestampField() {
+        PartitionBucketAssigner assigner = timeAssigner(HOUR, "event_timestamp");
+        Row row = Row.of(null, Timestamp.from(Instant.parse("2021-12-01T07:59:59.999Z")), "eu", "paris");
+
+        Assert.assertEquals("dt=2021-12-01/hour=08", assigner.getBucketId(row, new TestContext(null)));
+    }
+
+    @Test
+    public void testTimeFromTheRecordTimestamp() {
+        PartitionBucketAssigner assigner = timeAssigner(HOUR, null);
+        Row row = Row.of(null, null, "eu", "paris");
+
+        Assert.assertEquals("dt=2021-12-01/hour=09",
+            assigner.getBucketId(row, new TestContext(millis("2021-12-01T08:00:00Z"))));
+        Assert.assertEquals("dt=2021-12-01/hour=09",
+            timeAssigner(HOUR, "event_time").getBucketId(row, new TestContext(millis("2021-12-01T08:00:00Z"))));
+    }
+
+    @Test
+    public void testPartitionFieldsAreEscaped() {
+        PartitionBucketAssigner assigner = new PartitionBucketAssigner(
+            ROW_TYPE, null, HOUR, "UTC", null, Arrays.asList("region", "city"), false);
+
+        Assert.assertEquals("region=a%2Fb%3Dc/city=x%3Ay", assigner.getBucketId(row("a/b=c", "x:y"), new TestContext(null)));
+        Assert.assertEquals("region=%22%23%25%27%2A%3F%5C%7B%5B%5D%5E/city=%0A%09%7F",
+            assigner.getBucketId(row("\"#%'*?\\{[]^", "\n\t\u007F"), new TestContext(null)));
+        Assert.assertEquals("region=café au lait/city=a-b_c.d", assigner.getBucketId(row("café au lait", "a-b_c.d"),
+            new TestContext(null)));
+    }
+
+    @Test
+    public void testNullAndEmptyPartitionValues() {
+        PartitionBucketAssigner assigner = new PartitionBucketAssigner(
+            ROW_TYPE, HOURLY, HOUR, "UTC", "event_time", Arrays.asList("region", "city"), false);
+        Row row = Row.of(millis("2021-12-01T08:30:00Z"), null, null, "");
+
+        Assert.assertEquals("dt=2021-12-01/hour=08/region=__HIVE_DEFAULT_PARTITION__/city=__HIVE_DEFAULT_PARTITION__",
+            assigner.getBucketId(row, new TestContext(null)));
+    }
+
+    @Test
+    public void testTimePartitionsAreOnlyKeptWhenCommitted() {
+        PartitionBucketAssigner assigner = new PartitionBucketAssigner(
+            ROW_TYPE, HOURLY, HOUR, "UTC", "event_time", Collections.emptyList(), false);
+
+        Assert.assertEquals("dt=2021-12-01/hour=08", bucket(assigner, "2021-12-01T08:30:00Z"));
+        Assert.assertTrue(assigner.timePartitions().isEmpty());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownPartitionField() {
+        new PartitionBucketAssigner(ROW_TYPE, null, HOUR, "UTC", null, Collections.singletonList("country"), false);
+    }
+
+    private static PartitionBucketAssigner timeAssigner(long intervalMs, String timeField) {
+        return new PartitionBucketAssigner(ROW_TYPE, HOURLY, intervalMs, "Europe/Berlin", timeField, Collections.emptyList(), true);
+    }
+
+    private static String bucket(PartitionBucketAssigner assigner, String time) {
+        return assigner.getBucketId(Row.of(millis(time), null, null, null), new TestContext(null));
+    }
+
+    private static long end(PartitionBucketAssigner assigner, String bucket) {
+        return assigner.timePartitions().get(bucket);
+    }
+
+    private static Row row(String region, String city) {
+        return Row.of(null, null, region, city);
+    }
+
+    private static long millis(String time) {
+        return Instant.parse(time).toEpochMilli();
+    }
+
+    private static class TestContext implements BucketAssigner.Context {
+
+        private final Long timestamp;
+
+        TestContext(Long timestamp) {
+            this.timestamp = timestamp;
+        }
+
+        @Override
+        public long currentProcessingTime() {
+            throw new AssertionError("the processing time is not used");
+        }
+
+        @Override
+        public long currentWatermark() {
+            return Long.MIN_VALUE;
+        }
+
+        @Override
+        public Long timestamp() {
+            return timestamp;
+        }
+    }
+}
@@ -20,28 +20,31 @@ import org.apache.seatunnel.common.config.{CheckResult, TypesafeConfigUtils}
 import org.apache.seatunnel.config.ConfigFactory
 import org.apache.seatunnel.spark.SparkEnvironment
 import org.apache.seatunnel.spark.batch.SparkBatchSink
+import org.apache.spark.TaskContext
+import org.apache.spark.sql.functions.col
 import org.apache.spark.sql.{Dataset, Row}
-import ru.yandex.clickhouse.except.{ClickHouseException, ClickHouseUnknownException}
+import org.slf4j.LoggerFactory
 import ru.yandex.clickhouse.{BalancedClickhouseDataSource, ClickHouseConnectionImpl}
 
-import java.math.BigDecimal
-import java.sql.PreparedStatement
-import java.text.SimpleDateFormat
 import java.util
-import java.util.Properties
+import java.util.{Properties, TimeZone}
 import scala.collection.JavaConversions._
 import scala.collection.immutable.HashMap
 import scala.util.matching.Regex
-import scala.util.{Failure, Success, Try}
 
 class Clickhouse extends SparkBatchSink {
 
   var tableSchema: Map[String, String] = new HashMap[String, String]()
   var jdbcLink: String = _
-  var initSQL: String = _
   var table: String = _
   var fields: java.util.List[String] = _
   var retryCodes: java.util.List[Integer] = _
+  var distributed: ClickhouseDistributed = _
+  var splitMode: Boolean = false
+  var shardingColumn: Option[String] = None
+  var httpPort: Int = _
+  var serverTimeZone: String = _
+  var tableKey: ClickhouseTableKey = _
   //  var config: Config = ConfigFactory.empty()
   val clickhousePrefix = "clickhouse."
   val properties: Properties = new Properties()
@@ -53,27 +56,82 @@ class Clickhouse extends SparkBatchSink {
 
     if (!config.hasPath("fields")) {
       fields = dfFields.toList
-      initSQL = initPrepareSQL()
     }
-    data.foreachPartition { iter: Iterator[Row] =>
-      val executorBalanced = new BalancedClickhouseDataSource(this.jdbcLink, this.properties)
-      val executorConn = executorBalanced.getConnection.asInstanceOf[ClickHouseConnectionImpl]
-      val statement = executorConn.prepareStatement(this.initSQL)
-
-      var length = 0
-
-      for (item <- iter) {
-        length += 1
-        renderStatement(fields, item, dfFields, statement)
-        statement.addBatch()
-
-        if (length >= bulkSize) {
-          execute(statement, retry)
-          length = 0
-        }
+    val columns = ClickhouseColumn.plan(fields, tableSchema, dfFields)
+
+    // rows are grouped by clickhouse partition and sorted by the sorting key, so that every
+    // insert creates few, already sorted parts
+    val partitionKey = Option(tableKey).flatMap(_.partitionColumn(data))
+    val sortColumns = Option(tableKey).map(_.sortColumns(data)).getOrElse(Nil)
+    val keyed = partitionKey.map(data.withColumn(Clickhouse.partitionKeyColumn, _)).getOrElse(data)
+    val boundaryIndex = if (partitionKey.isDefined) keyed.schema.fieldIndex(Clickhouse.partitionKeyColumn) else -1
+    val orderBy = partitionKey.map(_ => col(Clickhouse.partitionKeyColumn)).toSeq ++ sortColumns
+    val numPartitions = data.rdd.getNumPartitions
+
+    if (splitMode) {
+      // write into the local table of every shard instead of letting the Distributed table forward rows
+      val distributed = this.distributed
+      val httpPort = this.httpPort
+      val partitionsPerShard = math.max(1, numPartitions / distributed.targets.length)
+      val localTable = distributed.database + "." + distributed.table
+      val keyMask = shardingColumn.flatMap(tableSchema.get).map(ClickhouseDistributed.keyMask).getOrElse(-1L)
+      val sharded = distributed.repartition(keyed, shardingColumn, keyMask, partitionsPerShard)
+      // sorting within partitions keeps every partition on its shard
+      val rows = if (orderBy.isEmpty) {
+        sharded
+      } else {
+        keyed.sparkSession.createDataFrame(sharded, keyed.schema).sortWithinPartitions(orderBy: _*).rdd
+      }
+      rows.foreachPartition { iter: Iterator[Row] =>
+        val link = distributed.jdbcLink(TaskContext.getPartitionId() / partitionsPerShard, httpPort)
+        writePartition(iter, link, localTable, columns, boundaryIndex, bulkSize, retry)
       }
+    } else {
+      val rows = if (orderBy.isEmpty) {
+        keyed
+      } else {
+        keyed.repartitionByRange(numPartitions, orderBy: _*).sortWithinPartitions(orderBy: _*)
+      }
+      rows.foreachPartition { iter: Iterator[Row] =>
+        writePartition(iter, this.jdbcLink, this.table, columns, boundaryIndex, bulkSize, retry)
+      }
+    }
+  }
+
+  private def writePartition(
+    iter: Iterator[Row],
+    jdbcLink: String,
+    table: String,
+    columns: Array[ClickhouseColumn],
+    boundaryIndex: Int,
+    bulkSize: Int,
+    retry: Int): Unit = {
+    val executorBalanced = new BalancedClickhouseDataSource(jdbcLink, this.properties)
+    val newBatch: () => ClickhouseBatch = config.getString("insert_format").toLowerCase match {
+      case Clickhouse.rowBinaryFormat =>
+        // the insert body is sent as is by sendRowBinaryStream, which appends the format
+        val sql = String.format("insert into %s (%s)", table, this.fields.mkString(","))
+        val encoder = new ClickhouseRowBinaryEncoder(columns, TimeZone.getTimeZone(serverTimeZone))
+        () => new RowBinaryBatch(executorBalanced.getConnection.asInstanceOf[ClickHouseConnectionImpl], sql, encoder)
+      case _ =>
+        val sql = initPrepareSQL(table)
+        val renderer = new ClickhouseStatementRenderer(columns)
+        () => new ValuesBatch(executorBalanced.getConnection.asInstanceOf[ClickHouseConnectionImpl], sql, renderer)
+    }
 
-      execute(statement, retry)
+    val writer = new ClickhouseBatchWriter(
+      newBatch,
+      config.getInt("insert_concurrency"),
+      bulkSize,
+      config.getBytes("bulk_bytes"),
+      boundaryIndex,
+      retry,
+      retryCodes.map(_.intValue()).toSet,
+      config.getLong("retry_backoff_ms"))
+    try {
+      writer.write(iter)
+    } finally {
+      writer.close()
     }
   }
 
@@ -125,8 +183,27 @@ class Clickhouse extends SparkBatchSink {
 
       this.table = config.getString("table")
       this.tableSchema = getClickHouseSchema(conn, table)
+      this.serverTimeZone = conn.getTimeZone.getID
 
-      if (this.config.hasPath("fields")) {
+      val splitModeCheck = if (config.hasPath("split_mode") && config.getBoolean("split_mode")) {
+        checkSplitMode(conn)
+      } else {
+        new CheckResult(true, "")
+      }
+
+      if (splitModeCheck.isSuccess && config.hasPath("sort_by_table_key") && config.getBoolean("sort_by_table_key")) {
+        // the keys of a Distributed table are the ones of its local table
+        val (database, name) = databaseAndTable()
+        val target = Option(distributed).orElse(ClickhouseDistributed.load(conn, database, name))
+        this.tableKey = target match {
+          case Some(d) => ClickhouseTableKey.load(conn, d.database, d.table)
+          case None => ClickhouseTableKey.load(conn, database, name)
+        }
+      }
+
+      if (!splitModeCheck.isSuccess) {
+        splitModeCheck
+      } else if (this.config.hasPath("fields")) {
         this.fields = config.getStringList("fields")
         acceptedClickHouseSchema()
       } else {
@@ -135,17 +212,54 @@ class Clickhouse extends SparkBatchSink {
     }
   }
 
-  override def prepare(env: SparkEnvironment): Unit = {
-    if (config.hasPath("fields")) {
-      this.initSQL = initPrepareSQL()
+  private def databaseAndTable(): (String, String) = {
+    if (table.contains(".")) {
+      (table.substring(0, table.indexOf(".")), table.substring(table.indexOf(".") + 1))
+    } else {
+      (config.getString("database"), table)
     }
+  }
+
+  private def checkSplitMode(conn: ClickHouseConnectionImpl): CheckResult = {
+    val (database, localTable) = databaseAndTable()
+    val firstHost = config.getString("host").split(",")(0).trim
+    this.httpPort = if (firstHost.contains(":")) firstHost.substring(firstHost.lastIndexOf(":") + 1).toInt else 8123
+
+    ClickhouseDistributed.load(conn, database, localTable) match {
+      case None =>
+        new CheckResult(false, "split_mode requires table [" + table + "] to be a Distributed table")
+      case Some(d) if !d.writable =>
+        Clickhouse.LOGGER.warn(s"local table [${d.database}.${d.table}] is replicated but cluster [${d.cluster}] " +
+          s"does not use internal_replication, rows are written through the Distributed table [$table]")
+        new CheckResult(true, "")
+      case Some(d) =>
+        this.distributed = d
+        this.splitMode = true
+        val expression = if (config.hasPath("sharding_key")) Some(config.getString("sharding_key")) else d.shardingKey
+        ClickhouseDistributed.shardingColumn(expression) match {
+          case Left(other) =>
+            new CheckResult(false, "sharding expression [" + other + "] of table [" + table + "] can not be " +
+              "evaluated by seatunnel, please specify [sharding_key] as a column of the dataset")
+          case Right(column) =>
+            this.shardingColumn = column
+            new CheckResult(true, "")
+        }
+    }
+  }
 
+  override def prepare(env: SparkEnvironment): Unit = {
     val defaultConfig = ConfigFactory.parseMap(
       Map(
         "bulk_size" -> 20000,
         // "retry_codes" -> util.Arrays.asList(ClickHouseErrorCode.NETWORK_ERROR.code),
         "retry_codes" -> util.Arrays.asList(),
-        "retry" -> 1))
+        "retry" -> 1,
+        "split_mode" -> false,
+        "sort_by_table_key" -> false,
+        "insert_format" -> "values",
+        "insert_concurrency" -> 1,
+        "bulk_bytes" -> "64m",
+        "retry_backoff_ms" -> 1000))
     config = config.withFallback(defaultConfig)
     retryCodes = config.getIntList("retry_codes")
   }
@@ -162,12 +276,12 @@ class Clickhouse extends SparkBatchSink {
     schema
   }
 
-  private def initPrepareSQL(): String = {
+  private def initPrepareSQL(table: String): String = {
 
     val prepare = List.fill(fields.size)("?")
     val sql = String.format(
       "insert into %s (%s) values (%s)",
-      this.table,
+      table,
       this.fields.map(a => a).mkString(","),
       prepare.mkString(","))
 
@@ -200,135 +314,15 @@ class Clickhouse extends SparkBatchSink {
       }
     }
   }
+}
 
-  private def renderDefaultStatement(
-                                      index: Int,
-                                      fieldType: String,
-                                      statement: PreparedStatement): Unit = {
-    fieldType match {
-      case "DateTime" | "Date" | "String" =>
-        statement.setString(index + 1, Clickhouse.renderStringDefault(fieldType))
-      case "Int8" | "UInt8" | "Int16" | "Int32" | "UInt32" | "UInt16" =>
-        statement.setInt(index + 1, 0)
-      case "UInt64" | "Int64" =>
-        statement.setLong(index + 1, 0)
-      case "Float32" => statement.setFloat(index + 1, 0)
-      case "Float64" => statement.setDouble(index + 1, 0)
-      case Clickhouse.lowCardinalityPattern(lowCardinalityType) =>
-        renderDefaultStatement(index, lowCardinalityType, statement)
-      case Clickhouse.arrayPattern(_) => statement.setNull(index, java.sql.Types.ARRAY)
-      case Clickhouse.nullablePattern(nullFieldType) =>
-        renderNullStatement(index, nullFieldType, statement)
-      case _ => statement.setString(index + 1, "")
-    }
-  }
-
-  private def renderNullStatement(
-                                   index: Int,
-                                   fieldType: String,
-                                   statement: PreparedStatement): Unit = {
-    fieldType match {
-      case "String" =>
-        statement.setNull(index + 1, java.sql.Types.VARCHAR)
-      case "DateTime" => statement.setNull(index + 1, java.sql.Types.DATE)
-      case "Date" => statement.setNull(index + 1, java.sql.Types.TIME)
-      case "Int8" | "UInt8" | "Int16" | "Int32" | "UInt32" | "UInt16" =>
-        statement.setNull(index + 1, java.sql.Types.INTEGER)
-      case "UInt64" | "Int64" =>
-        statement.setNull(index + 1, java.sql.Types.BIGINT)
-      case "Float32" => statement.setNull(index + 1, java.sql.Types.FLOAT)
-      case "Float64" => statement.setNull(index + 1, java.sql.Types.DOUBLE)
-    }
-  }
-
-  private def renderBaseTypeStatement(
-                                       index: Int,
-                                       fieldIndex: Int,
-                                       fieldType: String,
-                                       item: Row,
-                                       statement: PreparedStatement): Unit = {
-    fieldType match {
-      case "DateTime" | "Date" | "String" =>
-        statement.setString(index + 1, item.getAs[String](fieldIndex))
-      case "Int8" | "UInt8" | "Int16" | "UInt16" | "Int32" =>
-        statement.setInt(index + 1, item.getAs[Int](fieldIndex))
-      case "UInt32" | "UInt64" | "Int64" =>
-        statement.setLong(index + 1, item.getAs[Long](fieldIndex))
-      case "Float32" => statement.setFloat(index + 1, item.getAs[Float](fieldIndex))
-      case "Float64" => statement.setDouble(index + 1, item.getAs[Double](fieldIndex))
-      case Clickhouse.arrayPattern(_) =>
-        statement.setArray(index + 1, item.getAs[java.sql.Array](fieldIndex))
-      case "Decimal" => statement.setBigDecimal(index + 1, item.getAs[BigDecimal](fieldIndex))
-      case _ => statement.setString(index + 1, item.getAs[String](fieldIndex))
-    }
-  }
+object Clickhouse {
 
-  private def renderStatement(
-                               fields: util.List[String],
-                               item: Row,
-                               dsFields: Array[String],
-                               statement: PreparedStatement): Unit = {
-    for (i <- 0 until fields.size()) {
-      val field = fields.get(i)
-      val fieldType = tableSchema(field)
-      if (dsFields.indexOf(field) == -1) {
-        // specified field does not existed in row.
-        renderDefaultStatement(i, fieldType, statement)
-      } else {
-        val fieldIndex = item.fieldIndex(field)
-        if (item.isNullAt(fieldIndex)) {
-          // specified field is Null in row.
-          renderDefaultStatement(i, fieldType, statement)
-        } else {
-          fieldType match {
-            case "String" | "DateTime" | "Date" | Clickhouse.arrayPattern(_) =>
-              renderBaseTypeStatement(i, fieldIndex, fieldType, item, statement)
-            case Clickhouse.floatPattern(_) | Clickhouse.intPattern(_) | Clickhouse.uintPattern(
-            _) =>
-              renderBaseTypeStatement(i, fieldIndex, fieldType, item, statement)
-            case Clickhouse.nullablePattern(dataType) =>
-              renderBaseTypeStatement(i, fieldIndex, dataType, item, statement)
-            case Clickhouse.lowCardinalityPattern(dataType) =>
-              renderBaseTypeStatement(i, fieldIndex, dataType, item, statement)
-            case Clickhouse.decimalPattern(_) =>
-              renderBaseTypeStatement(i, fieldIndex, "Decimal", item, statement)
-            case _ => statement.setString(i + 1, item.getAs[String](field))
-          }
-        }
-      }
-    }
-  }
+  private val LOGGER = LoggerFactory.getLogger(classOf[Clickhouse])
 
-  private def execute(statement: PreparedStatement, retry: Int): Unit = {
-    val res = Try(statement.executeBatch())
-    res match {
-      case Success(_) => {
-        statement.close()
-      }
-      case Failure(e: ClickHouseException) => {
-        val errorCode = e.getErrorCode
-        if (retryCodes.contains(errorCode)) {
-          if (retry > 0) {
-            execute(statement, retry - 1)
-          } else {
-            statement.close()
-          }
-        } else {
-          throw e
-        }
-      }
-      case Failure(e: ClickHouseUnknownException) => {
-        statement.close()
-        throw e
-      }
-      case Failure(e: Exception) => {
-        throw e
-      }
-    }
-  }
-}
+  private[seatunnel] val rowBinaryFormat = "row_binary"
 
-object Clickhouse {
+  private val partitionKeyColumn = "__seatunnel_clickhouse_partition"
 
   val arrayPattern: Regex = "(Array.*)".r
   val nullablePattern: Regex = "Nullable\\((.*)\\)".r
@@ -360,17 +354,4 @@ object Clickhouse {
         false
     }
   }
-
-  private[seatunnel] def renderStringDefault(fieldType: String): String = {
-    fieldType match {
-      case "DateTime" =>
-        val dateFormat: SimpleDateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss")
-        dateFormat.format(System.currentTimeMillis())
-      case "Date" =>
-        val dateFormat: SimpleDateFormat = new SimpleDateFormat("yyyy-MM-dd")
-        dateFormat.format(System.currentTimeMillis())
-      case "String" =>
-        ""
-    }
-  }
 }
@@ -0,0 +1,235 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.seatunnel.spark.sink
+
+import org.apache.spark.sql.Row
+import org.slf4j.LoggerFactory
+import ru.yandex.clickhouse.ClickHouseConnectionImpl
+import ru.yandex.clickhouse.except.ClickHouseException
+import ru.yandex.clickhouse.util.{ClickHouseRowBinaryStream, ClickHouseStreamCallback}
+
+import java.util.concurrent.atomic.{AtomicInteger, AtomicReference}
+import java.util.concurrent.{ArrayBlockingQueue, ExecutorService, Executors, ThreadFactory}
+import scala.annotation.tailrec
+import scala.util.{Failure, Success, Try}
+
+/**
+ * Rows rendered for one insert, kept until the insert succeeded so that a retry sends them again
+ * without rendering them a second time.
+ */
+private[sink] trait ClickhouseBatch extends AutoCloseable {
+
+  def add(row: Row): Unit
+
+  def rows: Int
+
+  /**
+   * Size of the insert body, estimated for the values format.
+   */
+  def bytes: Long
+
+  def send(): Unit
+
+  def clear(): Unit
+}
+
+/**
+ * Batch of a jdbc prepared statement, the driver keeps the bound rows until `executeBatch` succeeds.
+ */
+private[sink] class ValuesBatch(conn: ClickHouseConnectionImpl, sql: String, renderer: ClickhouseStatementRenderer)
+  extends ClickhouseBatch {
+
+  private val statement = conn.prepareStatement(sql)
+
+  private var rowCount = 0
+
+  private var byteCount = 0L
+
+  override def add(row: Row): Unit = {
+    renderer.render(row, statement)
+    statement.addBatch()
+    rowCount += 1
+    byteCount += renderer.estimateSize(row)
+  }
+
+  override def rows: Int = rowCount
+
+  override def bytes: Long = byteCount
+
+  override def send(): Unit = statement.executeBatch()
+
+  override def clear(): Unit = {
+    rowCount = 0
+    byteCount = 0
+  }
+
+  override def close(): Unit = {
+    statement.close()
+    conn.close()
+  }
+}
+
+/**
+ * Batch encoded in the RowBinary format into a buffer reused by the following batches.
+ */
+private[sink] class RowBinaryBatch(conn: ClickHouseConnectionImpl, sql: String, encoder: ClickhouseRowBinaryEncoder)
+  extends ClickhouseBatch {
+
+  private val statement = conn.createStatement()
+
+  private val buffer = new ClickhouseRowBinaryBuffer(ClickhouseBatchWriter.rowBinaryBufferSize)
+
+  private val callback = new ClickHouseStreamCallback {
+    override def writeTo(stream: ClickHouseRowBinaryStream): Unit = stream.writeBytes(buffer.array, 0, buffer.size)
+  }
+
+  private var rowCount = 0
+
+  override def add(row: Row): Unit = {
+    encoder.encode(row, buffer)
+    rowCount += 1
+  }
+
+  override def rows: Int = rowCount
+
+  override def bytes: Long = buffer.size
+
+  override def send(): Unit = statement.sendRowBinaryStream(sql, callback)
+
+  override def clear(): Unit = {
+    buffer.reset()
+    rowCount = 0
+  }
+
+  override def close(): Unit = {
+    statement.close()
+    conn.close()
+  }
+}
+
+/**
+ * Writes the rows of a partition while up to `concurrency` batches are being inserted, each batch
+ * on its own connection. Rendering continues into a free batch while the others are in flight and
+ * only waits when all of them are. A batch is flushed when it reaches `bulkSize` rows or `bulkBytes`
+ * bytes, or before the first row of another table partition when `boundaryIndex` points to the
+ * partition key of the rows. A failed insert with one of the `retryCodes` is sent again after an
+ * exponential backoff.
+ */
+private[sink] class ClickhouseBatchWriter(
+  newBatch: () => ClickhouseBatch,
+  concurrency: Int,
+  bulkSize: Int,
+  bulkBytes: Long,
+  boundaryIndex: Int,
+  retry: Int,
+  retryCodes: Set[Int],
+  retryBackoffMs: Long) extends AutoCloseable {
+
+  private val LOGGER = LoggerFactory.getLogger(classOf[ClickhouseBatchWriter])
+
+  // one more batch than the inserts in flight, it is the one being filled
+  private val batches = (0 to concurrency).map(_ => newBatch())
+
+  private val free = new ArrayBlockingQueue[ClickhouseBatch](batches.size)
+  batches.foreach(free.put)
+
+  private val failure = new AtomicReference[Throwable]()
+
+  private val executor: ExecutorService = Executors.newFixedThreadPool(concurrency, new ThreadFactory {
+    private val threadNumber = new AtomicInteger()
+
+    override def newThread(r: Runnable): Thread = {
+      val thread = new Thread(r, "seatunnel-clickhouse-insert-" + threadNumber.getAndIncrement())
+      thread.setDaemon(true)
+      thread
+    }
+  })
+
+  def write(iter: Iterator[Row]): Unit = {
+    var batch = takeFree()
+    var partition: Any = null
+    for (row <- iter) {
+      if (boundaryIndex >= 0) {
+        val rowPartition = row.get(boundaryIndex)
+        if (batch.rows > 0 && rowPartition != partition) {
+          submit(batch)
+          batch = takeFree()
+        }
+        partition = rowPartition
+      }
+      batch.add(row)
+      if (batch.rows >= bulkSize || batch.bytes >= bulkBytes) {
+        submit(batch)
+        batch = takeFree()
+      }
+    }
+    if (batch.rows > 0) submit(batch) else free.put(batch)
+
+    // every batch is back once all inserts have finished
+    val finished = batches.map(_ => takeFree())
+    finished.foreach(free.put)
+  }
+
+  override def close(): Unit = {
+    executor.shutdownNow()
+    batches.foreach(batch => Try(batch.close()))
+  }
+
+  private def submit(batch: ClickhouseBatch): Unit = {
+    executor.submit(new Runnable {
+      override def run(): Unit = {
+        try {
+          send(batch, 0)
+          batch.clear()
+        } catch {
+          case e: Throwable => failure.compareAndSet(null, e)
+        } finally {
+          free.put(batch)
+        }
+      }
+    })
+  }
+
+  private def takeFree(): ClickhouseBatch = {
+    val batch = free.take()
+    val error = failure.get()
+    if (error != null) {
+      throw error
+    }
+    batch
+  }
+
+  @tailrec
+  private def send(batch: ClickhouseBatch, attempt: Int): Unit = {
+    Try(batch.send()) match {
+      case Success(_) =>
+      case Failure(e: ClickHouseException) if retryCodes.contains(e.getErrorCode) && attempt < retry =>
+        val backoff = math.min(retryBackoffMs << attempt, ClickhouseBatchWriter.maxRetryBackoffMs)
+        LOGGER.warn(s"insert of ${batch.rows} rows failed with code ${e.getErrorCode}, retry in $backoff ms", e)
+        Thread.sleep(backoff)
+        send(batch, attempt + 1)
+      case Failure(e) => throw e
+    }
+  }
+}
+
+object ClickhouseBatchWriter {
+
+  private[sink] val rowBinaryBufferSize = 1 << 20
+
+  private val maxRetryBackoffMs = 60000L
+}
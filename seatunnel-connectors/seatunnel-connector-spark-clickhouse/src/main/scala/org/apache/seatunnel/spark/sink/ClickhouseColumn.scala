@@ -0,0 +1,166 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.seatunnel.spark.sink
+
+import org.apache.spark.sql.Row
+
+import java.math.BigDecimal
+import java.sql.{PreparedStatement, Types}
+import java.text.SimpleDateFormat
+
+/**
+ * A column of the insert statement, resolved once from the clickhouse `desc` type and the dataset schema.
+ *
+ * @param name      column name
+ * @param fieldType clickhouse type as returned by `desc`
+ * @param baseType  clickhouse type without the Nullable and LowCardinality wrappers
+ * @param nullable  whether the clickhouse type is Nullable
+ * @param rowIndex  index of the column in the rows, -1 if the dataset does not have it
+ */
+case class ClickhouseColumn(name: String, fieldType: String, baseType: String, nullable: Boolean, rowIndex: Int)
+
+object ClickhouseColumn {
+
+  def plan(fields: Seq[String], tableSchema: collection.Map[String, String], dsFields: Array[String]): Array[ClickhouseColumn] = {
+    fields.map(field => {
+      val fieldType = tableSchema(field)
+      val (baseType, nullable) = unwrap(fieldType)
+      ClickhouseColumn(field, fieldType, baseType, nullable, dsFields.indexOf(field))
+    }).toArray
+  }
+
+  private[seatunnel] def unwrap(fieldType: String): (String, Boolean) = {
+    fieldType match {
+      case Clickhouse.nullablePattern(dataType) => (unwrap(dataType)._1, true)
+      case Clickhouse.lowCardinalityPattern(dataType) => unwrap(dataType)
+      case _ => (fieldType, false)
+    }
+  }
+}
+
+/**
+ * Binds rows to the insert statement. The setter of every column is chosen once, when the renderer
+ * is created, so rendering a row is a plain loop over the columns without any type matching.
+ */
+class ClickhouseStatementRenderer(columns: Array[ClickhouseColumn]) {
+
+  private val setters: Array[ColumnSetter] = columns.zipWithIndex.map { case (column, i) =>
+    new ColumnSetter(column.rowIndex, valueSetter(column, i + 1), defaultSetter(column, i + 1))
+  }
+
+  def render(row: Row, statement: PreparedStatement): Unit = {
+    var i = 0
+    while (i < setters.length) {
+      setters(i).set(row, statement)
+      i += 1
+    }
+  }
+
+  // row indexes of the columns bound as strings, every other value is counted with a fixed size
+  private val textIndexes: Array[Int] = columns.filter(column => column.rowIndex >= 0 && (column.baseType match {
+    case "Int8" | "UInt8" | "Int16" | "UInt16" | "Int32" | "UInt32" | "UInt64" | "Int64" | "Float32" | "Float64" => false
+    case Clickhouse.arrayPattern(_) | Clickhouse.decimalPattern(_) => false
+    case _ => true
+  })).map(_.rowIndex)
+
+  private val fixedSize = (columns.length - textIndexes.length) * 8
+
+  /**
+   * Approximate size of the row in the values text the driver sends.
+   */
+  def estimateSize(row: Row): Int = {
+    var size = fixedSize
+    var i = 0
+    while (i < textIndexes.length) {
+      val value = row.get(textIndexes(i))
+      size += (if (value == null) 4 else value.toString.length + 3)
+      i += 1
+    }
+    size
+  }
+
+  private def valueSetter(column: ClickhouseColumn, parameterIndex: Int): (Row, PreparedStatement) => Unit = {
+    val i = column.rowIndex
+    column.baseType match {
+      case "DateTime" | "Date" | "String" =>
+        (row, statement) => statement.setString(parameterIndex, row.getAs[String](i))
+      case "Int8" | "UInt8" | "Int16" | "UInt16" | "Int32" =>
+        (row, statement) => statement.setInt(parameterIndex, row.getAs[Int](i))
+      case "UInt32" | "UInt64" | "Int64" =>
+        (row, statement) => statement.setLong(parameterIndex, row.getAs[Long](i))
+      case "Float32" =>
+        (row, statement) => statement.setFloat(parameterIndex, row.getAs[Float](i))
+      case "Float64" =>
+        (row, statement) => statement.setDouble(parameterIndex, row.getAs[Double](i))
+      case Clickhouse.arrayPattern(_) =>
+        (row, statement) => statement.setArray(parameterIndex, row.getAs[java.sql.Array](i))
+      case Clickhouse.decimalPattern(_) =>
+        (row, statement) => statement.setBigDecimal(parameterIndex, row.getAs[BigDecimal](i))
+      case _ =>
+        (row, statement) => statement.setString(parameterIndex, row.getAs[String](i))
+    }
+  }
+
+  /**
+   * Value bound when the dataset does not have the column or the value is null.
+   */
+  private def defaultSetter(column: ClickhouseColumn, parameterIndex: Int): PreparedStatement => Unit = {
+    if (column.nullable) {
+      val sqlType = column.baseType match {
+        case "String" => Types.VARCHAR
+        case "DateTime" => Types.DATE
+        case "Date" => Types.TIME
+        case "Int8" | "UInt8" | "Int16" | "Int32" | "UInt32" | "UInt16" => Types.INTEGER
+        case "UInt64" | "Int64" => Types.BIGINT
+        case "Float32" => Types.FLOAT
+        case "Float64" => Types.DOUBLE
+        case _ => Types.VARCHAR
+      }
+      statement => statement.setNull(parameterIndex, sqlType)
+    } else {
+      column.baseType match {
+        case "DateTime" =>
+          val dateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss")
+          statement => statement.setString(parameterIndex, dateFormat.format(System.currentTimeMillis()))
+        case "Date" =>
+          val dateFormat = new SimpleDateFormat("yyyy-MM-dd")
+          statement => statement.setString(parameterIndex, dateFormat.format(System.currentTimeMillis()))
+        case "Int8" | "UInt8" | "Int16" | "Int32" | "UInt32" | "UInt16" =>
+          statement => statement.setInt(parameterIndex, 0)
+        case "UInt64" | "Int64" => statement => statement.setLong(parameterIndex, 0)
+        case "Float32" => statement => statement.setFloat(parameterIndex, 0)
+        case "Float64" => statement => statement.setDouble(parameterIndex, 0)
+        case Clickhouse.arrayPattern(_) => statement => statement.setNull(parameterIndex, Types.ARRAY)
+        case _ => statement => statement.setString(parameterIndex, "")
+      }
+    }
+  }
+}
+
+private class ColumnSetter(
+  rowIndex: Int,
+  setValue: (Row, PreparedStatement) => Unit,
+  setDefault: PreparedStatement => Unit) {
+
+  def set(row: Row, statement: PreparedStatement): Unit = {
+    if (rowIndex < 0 || row.isNullAt(rowIndex)) {
+      setDefault(statement)
+    } else {
+      setValue(row, statement)
+    }
+  }
+}
@@ -0,0 +1,284 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.seatunnel.spark.sink
+
+import org.apache.seatunnel.common.config.ConfigRuntimeException
+import org.apache.spark.Partitioner
+import org.apache.spark.rdd.RDD
+import org.apache.spark.sql.types.{ByteType, IntegerType, LongType, ShortType}
+import org.apache.spark.sql.{Dataset, Row}
+import org.slf4j.LoggerFactory
+import ru.yandex.clickhouse.ClickHouseConnectionImpl
+
+import java.util.concurrent.ThreadLocalRandom
+import scala.collection.mutable
+import scala.collection.mutable.ArrayBuffer
+import scala.util.matching.Regex
+
+/**
+ * Shard of a clickhouse cluster.
+ *
+ * @param shardNum shard number in `system.clusters`
+ * @param weight   shard weight, the share of rows the Distributed engine sends to it
+ * @param hosts    addresses of the shard replicas
+ */
+case class ClickhouseShard(shardNum: Int, weight: Int, hosts: Seq[String])
+
+/**
+ * The local table behind a Distributed table and the shards it is spread over.
+ *
+ * Rows are routed as the Distributed engine does: the sharding key value modulo the total weight
+ * of the shards selects a slot, every shard owning as many consecutive slots as its weight.
+ *
+ * @param replicated          the local table uses a Replicated* engine
+ * @param internalReplication `internal_replication` of the cluster, the replicas of a shard copy
+ *                            inserts between themselves
+ */
+case class ClickhouseDistributed(
+  cluster: String,
+  database: String,
+  table: String,
+  shardingKey: Option[String],
+  shards: Array[ClickhouseShard],
+  replicated: Boolean,
+  internalReplication: Boolean) {
+
+  private val slots: Array[Int] = shards.zipWithIndex.flatMap { case (shard, i) => Array.fill(shard.weight)(i) }
+
+  /**
+   * Whether rows can be written straight into the local tables. A replicated local table without
+   * `internal_replication` relies on the Distributed table sending identical blocks to every replica,
+   * direct writes can not reproduce those blocks and replicas would duplicate each other's rows.
+   */
+  def writable: Boolean = !replicated || internalReplication || shards.forall(_.hosts.length <= 1)
+
+  /**
+   * Shards and hosts the partitions are written to, in partition order. A replicated local table
+   * copies rows itself so one replica of every shard is written, otherwise every replica is written
+   * on its own as the Distributed table would do.
+   */
+  val targets: Array[(Int, Seq[String])] = shards.zipWithIndex.flatMap { case (shard, i) =>
+    if (replicated) Seq((i, shard.hosts)) else shard.hosts.map(host => (i, Seq(host)))
+  }
+
+  private val targetsOfShard: Array[Array[Int]] =
+    shards.indices.map(i => targets.indices.filter(targets(_)._1 == i).toArray).toArray
+
+  /**
+   * The shard of a sharding key value, `mask` keeps the bits of the clickhouse column type as
+   * signed values are reinterpreted as unsigned ones of the same width before the remainder.
+   */
+  def shardOf(value: Long, mask: Long = -1L): Int = {
+    slots(java.lang.Long.remainderUnsigned(value & mask, slots.length).toInt)
+  }
+
+  def jdbcLink(target: Int, httpPort: Int): String = {
+    "jdbc:clickhouse://" + targets(target)._2.map(_ + ":" + httpPort).mkString(",") + "/" + database
+  }
+
+  /**
+   * Move every row to the partitions of its shard, partition `i` belongs to target `i / partitionsPerShard`,
+   * rows of a shard whose replicas are written one by one are copied to the partitions of each replica.
+   *
+   * An integer sharding key column gives the same shard as an insert into the Distributed table,
+   * other columns keep equal keys on the same shard, without a column rows are spread by weight.
+   *
+   * @param keyMask mask of the clickhouse type of the sharding key, see [[ClickhouseDistributed.keyMask]]
+   */
+  def repartition(
+    data: Dataset[Row],
+    column: Option[String],
+    keyMask: Long,
+    partitionsPerShard: Int): RDD[Row] = {
+    column.foreach(c => {
+      if (!data.schema.fieldNames.contains(c)) {
+        throw new ConfigRuntimeException("sharding key [" + c + "] is not a column of the dataset")
+      }
+    })
+    val keyIndex = column.map(data.schema.fieldIndex).getOrElse(-1)
+    val exact = column.exists(c => data.schema(c).dataType match {
+      case ByteType | ShortType | IntegerType | LongType => true
+      case _ => false
+    })
+    if (column.isDefined && !exact) {
+      ClickhouseDistributed.LOGGER.warn(s"sharding key [${column.get}] is not an integer column, rows are not " +
+        s"routed to the shard the Distributed table [$cluster] would choose")
+    }
+
+    data.rdd.mapPartitions(iter => {
+      var counter = 0
+      iter.flatMap(row => {
+        val shard = if (keyIndex < 0) {
+          slots(ThreadLocalRandom.current().nextInt(slots.length))
+        } else if (row.isNullAt(keyIndex)) {
+          slots(0)
+        } else if (exact) {
+          shardOf(row.get(keyIndex).asInstanceOf[Number].longValue(), keyMask)
+        } else {
+          slots(Math.floorMod(row.get(keyIndex).hashCode(), slots.length))
+        }
+        counter += 1
+        targetsOfShard(shard).map(target => (target * partitionsPerShard + counter % partitionsPerShard, row))
+      })
+    }).partitionBy(new ShardPartitioner(targets.length * partitionsPerShard)).values
+  }
+}
+
+object ClickhouseDistributed {
+
+  private val LOGGER = LoggerFactory.getLogger(classOf[ClickhouseDistributed])
+
+  private val enginePattern: Regex = "(?s)Distributed\\((.*)\\)(\\s+SETTINGS.*)?".r
+
+  private[sink] val identifierPattern: Regex = "[`\"]?([A-Za-z_][A-Za-z0-9_]*)[`\"]?".r
+
+  /**
+   * Read the cluster layout of a Distributed table, None if the table uses another engine.
+   */
+  def load(conn: ClickHouseConnectionImpl, database: String, table: String): Option[ClickhouseDistributed] = {
+    val tableStatement = conn.prepareStatement("select engine_full from system.tables where database = ? and name = ?")
+    tableStatement.setString(1, database)
+    tableStatement.setString(2, table)
+    val tables = tableStatement.executeQuery()
+    val engine = if (tables.next()) tables.getString(1) else ""
+    tableStatement.close()
+
+    engine match {
+      case enginePattern(arguments, _) =>
+        val args = splitArguments(arguments)
+        val cluster = unquote(args.head)
+        val localDatabase = if (args(1).endsWith(")")) database else unquote(args(1))
+        val localTable = unquote(args(2))
+        val (shards, internalReplication) = loadShards(conn, cluster)
+        if (shards.isEmpty) {
+          throw new ConfigRuntimeException("cluster [" + cluster + "] of table [" + table + "] has no shard")
+        }
+        val replicated = localEngine(conn, localDatabase, localTable).startsWith("Replicated")
+        Some(ClickhouseDistributed(
+          cluster, localDatabase, localTable, args.lift(3), shards, replicated, internalReplication))
+      case _ => None
+    }
+  }
+
+  /**
+   * The dataset column a sharding expression reads, None for `rand()`, error for other expressions
+   * as they can not be evaluated outside of clickhouse.
+   */
+  def shardingColumn(expression: Option[String]): Either[String, Option[String]] = {
+    expression.map(_.trim) match {
+      case None | Some("rand()") => Right(None)
+      case Some(identifierPattern(column)) => Right(Some(column))
+      case Some(other) => Left(other)
+    }
+  }
+
+  /**
+   * The mask of the bits a value of a clickhouse integer type occupies.
+   */
+  def keyMask(clickhouseType: String): Long = {
+    clickhouseType match {
+      case Clickhouse.nullablePattern(inner) => keyMask(inner)
+      case Clickhouse.lowCardinalityPattern(inner) => keyMask(inner)
+      case "Int8" | "UInt8" => 0xFFL
+      case "Int16" | "UInt16" => 0xFFFFL
+      case "Int32" | "UInt32" => 0xFFFFFFFFL
+      case _ => -1L
+    }
+  }
+
+  private def localEngine(conn: ClickHouseConnectionImpl, database: String, table: String): String = {
+    val statement = conn.prepareStatement("select engine from system.tables where database = ? and name = ?")
+    statement.setString(1, database)
+    statement.setString(2, table)
+    val resultSet = statement.executeQuery()
+    val engine = if (resultSet.next()) resultSet.getString(1) else ""
+    statement.close()
+    if (engine.isEmpty) {
+      throw new ConfigRuntimeException("local table [" + database + "." + table + "] does not exist")
+    }
+    engine
+  }
+
+  /**
+   * The shards of a cluster and its `internal_replication` setting, servers that do not expose the
+   * setting in `system.clusters` are taken as not replicating internally.
+   */
+  private def loadShards(conn: ClickHouseConnectionImpl, cluster: String): (Array[ClickhouseShard], Boolean) = {
+    val statement = conn.prepareStatement(
+      "select * from system.clusters where cluster = ? order by shard_num, replica_num")
+    statement.setString(1, cluster)
+    val resultSet = statement.executeQuery()
+    val metaData = resultSet.getMetaData
+    val hasInternalReplication =
+      (1 to metaData.getColumnCount).exists(metaData.getColumnName(_) == "internal_replication")
+    var internalReplication = hasInternalReplication
+    val shards = mutable.LinkedHashMap[Int, (Int, ArrayBuffer[String])]()
+    while (resultSet.next()) {
+      val (_, hosts) = shards.getOrElseUpdate(
+        resultSet.getInt("shard_num"), (resultSet.getInt("shard_weight"), ArrayBuffer[String]()))
+      hosts += resultSet.getString("host_address")
+      if (hasInternalReplication && !resultSet.getBoolean("internal_replication")) {
+        internalReplication = false
+      }
+    }
+    statement.close()
+    if (!hasInternalReplication) {
+      LOGGER.warn(s"system.clusters does not expose internal_replication, cluster [$cluster] is taken as not " +
+        "replicating internally")
+    }
+    val clusterShards = shards.map { case (num, (weight, hosts)) => ClickhouseShard(num, weight, hosts.toList) }
+    (clusterShards.toArray, internalReplication)
+  }
+
+  /**
+   * Split engine arguments on the commas that are not nested in parentheses or quotes.
+   */
+  private[sink] def splitArguments(arguments: String): Seq[String] = {
+    val args = ArrayBuffer[String]()
+    val current = new StringBuilder
+    var depth = 0
+    var quote: Option[Char] = None
+    arguments.foreach(c => {
+      quote match {
+        case Some(q) => if (c == q) quote = None
+        case None => c match {
+          case '\'' | '`' | '"' => quote = Some(c)
+          case '(' => depth += 1
+          case ')' => depth -= 1
+          case _ =>
+        }
+      }
+      if (c == ',' && depth == 0 && quote.isEmpty) {
+        args += current.toString.trim
+        current.clear()
+      } else {
+        current += c
+      }
+    })
+    args += current.toString.trim
+    args.toList
+  }
+
+  private def unquote(value: String): String = value.stripPrefix("'").stripSuffix("'")
+}
+
+private class ShardPartitioner(partitions: Int) extends Partitioner {
+
+  override def numPartitions: Int = partitions
+
+  override def getPartition(key: Any): Int = key.asInstanceOf[Int]
+}
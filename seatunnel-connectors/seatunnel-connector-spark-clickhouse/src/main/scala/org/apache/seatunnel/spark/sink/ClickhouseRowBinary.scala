@@ -0,0 +1,285 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.seatunnel.spark.sink
+
+import org.apache.seatunnel.common.config.ConfigRuntimeException
+import org.apache.spark.sql.Row
+
+import java.math.{BigDecimal, RoundingMode}
+import java.nio.charset.StandardCharsets
+import java.sql.{Date, Timestamp}
+import java.time.format.DateTimeFormatter
+import java.time.{LocalDate, LocalDateTime}
+import java.util.{Arrays, TimeZone}
+import scala.util.matching.Regex
+
+/**
+ * Growable little endian buffer holding the RowBinary encoding of a batch, reset and reused
+ * between batches.
+ */
+class ClickhouseRowBinaryBuffer(initialCapacity: Int) {
+
+  private var bytes = new Array[Byte](initialCapacity)
+
+  private var length = 0
+
+  def array: Array[Byte] = bytes
+
+  def size: Int = length
+
+  def reset(): Unit = length = 0
+
+  def writeByte(value: Int): Unit = {
+    ensureCapacity(1)
+    bytes(length) = value.toByte
+    length += 1
+  }
+
+  def writeShort(value: Int): Unit = {
+    ensureCapacity(2)
+    bytes(length) = value.toByte
+    bytes(length + 1) = (value >> 8).toByte
+    length += 2
+  }
+
+  def writeInt(value: Int): Unit = {
+    ensureCapacity(4)
+    var i = 0
+    while (i < 4) {
+      bytes(length + i) = (value >> (8 * i)).toByte
+      i += 1
+    }
+    length += 4
+  }
+
+  def writeLong(value: Long): Unit = {
+    ensureCapacity(8)
+    var i = 0
+    while (i < 8) {
+      bytes(length + i) = (value >> (8 * i)).toByte
+      i += 1
+    }
+    length += 8
+  }
+
+  def writeFloat(value: Float): Unit = writeInt(java.lang.Float.floatToIntBits(value))
+
+  def writeDouble(value: Double): Unit = writeLong(java.lang.Double.doubleToLongBits(value))
+
+  /**
+   * Unsigned LEB128, used for string lengths and array sizes.
+   */
+  def writeVarInt(value: Int): Unit = {
+    var remaining = value
+    while ((remaining & ~0x7F) != 0) {
+      writeByte((remaining & 0x7F) | 0x80)
+      remaining >>>= 7
+    }
+    writeByte(remaining)
+  }
+
+  def writeBytes(value: Array[Byte], offset: Int, count: Int): Unit = {
+    ensureCapacity(count)
+    System.arraycopy(value, offset, bytes, length, count)
+    length += count
+  }
+
+  def writeString(value: String): Unit = {
+    val utf8 = value.getBytes(StandardCharsets.UTF_8)
+    writeVarInt(utf8.length)
+    writeBytes(utf8, 0, utf8.length)
+  }
+
+  private def ensureCapacity(count: Int): Unit = {
+    if (length + count > bytes.length) {
+      bytes = Arrays.copyOf(bytes, math.max(bytes.length * 2, length + count))
+    }
+  }
+}
+
+/**
+ * Encodes rows in the clickhouse RowBinary format, with one writer per column chosen when the
+ * encoder is created, like [[ClickhouseStatementRenderer]] does for the jdbc insert.
+ *
+ * @param timeZone time zone of the server, used to convert Date and DateTime strings
+ */
+class ClickhouseRowBinaryEncoder(columns: Array[ClickhouseColumn], timeZone: TimeZone) {
+
+  private type ValueWriter = (Any, ClickhouseRowBinaryBuffer) => Unit
+
+  private val zone = timeZone.toZoneId
+
+  private val dateTimeFormatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")
+
+  private val writers: Array[ColumnWriter] = columns.map(column =>
+    new ColumnWriter(column.rowIndex, column.nullable, valueWriter(column.baseType), defaultWriter(column.baseType)))
+
+  def encode(row: Row, buffer: ClickhouseRowBinaryBuffer): Unit = {
+    var i = 0
+    while (i < writers.length) {
+      writers(i).write(row, buffer)
+      i += 1
+    }
+  }
+
+  private def valueWriter(fieldType: String): ValueWriter = {
+    fieldType match {
+      case "String" => (value, buffer) => buffer.writeString(value.toString)
+      case "Int8" | "UInt8" => (value, buffer) => buffer.writeByte(number(value).intValue())
+      case "Int16" | "UInt16" => (value, buffer) => buffer.writeShort(number(value).intValue())
+      case "Int32" | "UInt32" => (value, buffer) => buffer.writeInt(number(value).longValue().toInt)
+      case "Int64" | "UInt64" => (value, buffer) => buffer.writeLong(number(value).longValue())
+      case "Float32" => (value, buffer) => buffer.writeFloat(number(value).floatValue())
+      case "Float64" => (value, buffer) => buffer.writeDouble(number(value).doubleValue())
+      case "Date" => (value, buffer) => buffer.writeShort(epochDay(value))
+      case "DateTime" => (value, buffer) => buffer.writeInt(epochSecond(value).toInt)
+      case ClickhouseRowBinaryEncoder.decimalPattern(precision, scale) =>
+        decimalWriter(ClickhouseRowBinaryEncoder.decimalSize(precision.toInt), scale.toInt)
+      case ClickhouseRowBinaryEncoder.sizedDecimalPattern(bits, scale) =>
+        decimalWriter(bits.toInt / 8, scale.toInt)
+      case Clickhouse.nullablePattern(dataType) =>
+        val writer = valueWriter(dataType)
+        (value, buffer) => {
+          if (value == null) {
+            buffer.writeByte(1)
+          } else {
+            buffer.writeByte(0)
+            writer(value, buffer)
+          }
+        }
+      case Clickhouse.lowCardinalityPattern(dataType) => valueWriter(dataType)
+      case ClickhouseRowBinaryEncoder.arrayPattern(elementType) =>
+        val writer = valueWriter(elementType)
+        (value, buffer) => {
+          val elements = value match {
+            case seq: Seq[_] => seq
+            case array: Array[_] => array.toSeq
+            case array: java.sql.Array => array.getArray.asInstanceOf[Array[_]].toSeq
+          }
+          buffer.writeVarInt(elements.size)
+          elements.foreach(element => writer(element, buffer))
+        }
+      case other =>
+        throw new ConfigRuntimeException("clickhouse type [" + other + "] is not supported by RowBinary insert")
+    }
+  }
+
+  /**
+   * Value written when the dataset does not have the column or the value is null, the same
+   * defaults as the jdbc insert.
+   */
+  private def defaultWriter(fieldType: String): ClickhouseRowBinaryBuffer => Unit = {
+    fieldType match {
+      case "Date" => buffer => buffer.writeShort(LocalDate.now(zone).toEpochDay.toInt)
+      case "DateTime" => buffer => buffer.writeInt((System.currentTimeMillis() / 1000).toInt)
+      case "String" | ClickhouseRowBinaryEncoder.arrayPattern(_) => buffer => buffer.writeVarInt(0)
+      case _ =>
+        val writer = valueWriter(fieldType)
+        buffer => writer(0, buffer)
+    }
+  }
+
+  private def decimalWriter(size: Int, scale: Int): ValueWriter = {
+    (value, buffer) => {
+      val unscaled = decimal(value).setScale(scale, RoundingMode.HALF_UP).unscaledValue()
+      size match {
+        case 4 => buffer.writeInt(unscaled.intValue())
+        case 8 => buffer.writeLong(unscaled.longValue())
+        case _ =>
+          // two's complement, little endian and sign extended to the decimal width
+          val bigEndian = unscaled.toByteArray
+          var i = bigEndian.length - 1
+          while (i >= 0) {
+            buffer.writeByte(bigEndian(i))
+            i -= 1
+          }
+          val sign = if (unscaled.signum() < 0) 0xFF else 0
+          for (_ <- bigEndian.length until size) {
+            buffer.writeByte(sign)
+          }
+      }
+    }
+  }
+
+  private def number(value: Any): Number = {
+    value match {
+      case n: Number => n
+      case b: Boolean => Integer.valueOf(if (b) 1 else 0)
+      case other => new BigDecimal(other.toString)
+    }
+  }
+
+  private def decimal(value: Any): BigDecimal = {
+    value match {
+      case d: BigDecimal => d
+      case d: scala.math.BigDecimal => d.bigDecimal
+      case other => new BigDecimal(other.toString)
+    }
+  }
+
+  private def epochDay(value: Any): Int = {
+    value match {
+      case d: Date => d.toLocalDate.toEpochDay.toInt
+      case t: Timestamp => t.toLocalDateTime.toLocalDate.toEpochDay.toInt
+      case n: Number => n.intValue()
+      case other => LocalDate.parse(other.toString.substring(0, 10)).toEpochDay.toInt
+    }
+  }
+
+  private def epochSecond(value: Any): Long = {
+    value match {
+      case t: Timestamp => t.getTime / 1000
+      case d: Date => d.getTime / 1000
+      case n: Number => n.longValue()
+      case other =>
+        val text = other.toString
+        val dateTime = if (text.length == 10) {
+          LocalDate.parse(text).atStartOfDay()
+        } else {
+          LocalDateTime.parse(text, dateTimeFormatter)
+        }
+        dateTime.atZone(zone).toEpochSecond
+    }
+  }
+}
+
+object ClickhouseRowBinaryEncoder {
+
+  private val arrayPattern: Regex = "Array\\((.*)\\)".r
+  private val decimalPattern: Regex = "Decimal\\((\\d+),\\s*(\\d+)\\)".r
+  private val sizedDecimalPattern: Regex = "Decimal(32|64|128|256)\\((\\d+)\\)".r
+
+  private def decimalSize(precision: Int): Int = {
+    if (precision <= 9) 4 else if (precision <= 18) 8 else if (precision <= 38) 16 else 32
+  }
+}
+
+private class ColumnWriter(
+  rowIndex: Int,
+  nullable: Boolean,
+  writeValue: (Any, ClickhouseRowBinaryBuffer) => Unit,
+  writeDefault: ClickhouseRowBinaryBuffer => Unit) {
+
+  def write(row: Row, buffer: ClickhouseRowBinaryBuffer): Unit = {
+    if (rowIndex < 0 || row.isNullAt(rowIndex)) {
+      if (nullable) buffer.writeByte(1) else writeDefault(buffer)
+    } else {
+      if (nullable) buffer.writeByte(0)
+      writeValue(row.get(rowIndex), buffer)
+    }
+  }
+}
@@ -0,0 +1,119 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.seatunnel.spark.sink
+
+import org.apache.spark.sql.functions.{col, date_format, struct, to_date, trunc}
+import org.apache.spark.sql.{Column, Dataset, Row}
+import org.slf4j.LoggerFactory
+import ru.yandex.clickhouse.ClickHouseConnectionImpl
+
+import scala.util.matching.Regex
+
+/**
+ * Partition key and sorting key of a MergeTree table, as the expressions listed by `system.tables`.
+ *
+ * Only the expressions Spark can reproduce are used: columns, and the usual monotonic date
+ * functions of a column (toYYYYMM, toYYYYMMDD, toDate, toStartOfMonth).
+ */
+case class ClickhouseTableKey(partitionKey: Seq[String], sortingKey: Seq[String]) {
+
+  /**
+   * Spark expression of the partition key, None if one of its elements can not be evaluated.
+   */
+  def partitionColumn(data: Dataset[Row]): Option[Column] = {
+    val elements = partitionKey.map(ClickhouseTableKey.evaluate(_, data))
+    if (elements.isEmpty || elements.exists(_.isEmpty)) {
+      if (elements.nonEmpty) {
+        ClickhouseTableKey.LOGGER.warn(s"partition key [${partitionKey.mkString(", ")}] can not be evaluated, " +
+          "batches are not split on partition changes")
+      }
+      None
+    } else if (elements.size == 1) {
+      elements.head
+    } else {
+      Some(struct(elements.flatten: _*))
+    }
+  }
+
+  /**
+   * Columns giving the sorting key order, the longest prefix of the sorting key made of columns or
+   * monotonic functions of a column.
+   */
+  def sortColumns(data: Dataset[Row]): Seq[Column] = {
+    sortingKey
+      .map(element => ClickhouseTableKey.sourceColumn(element).filter(data.schema.fieldNames.contains))
+      .takeWhile(_.isDefined)
+      .map(c => col(c.get))
+  }
+}
+
+object ClickhouseTableKey {
+
+  private val LOGGER = LoggerFactory.getLogger(classOf[ClickhouseTableKey])
+
+  private val functionPattern: Regex = "(toYYYYMM|toYYYYMMDD|toDate|toStartOfMonth)\\(\\s*(.*?)\\s*\\)".r
+
+  def load(conn: ClickHouseConnectionImpl, database: String, table: String): ClickhouseTableKey = {
+    val statement = conn.prepareStatement("select partition_key, sorting_key from system.tables where database = ? and name = ?")
+    statement.setString(1, database)
+    statement.setString(2, table)
+    val resultSet = statement.executeQuery()
+    val key = if (resultSet.next()) {
+      ClickhouseTableKey(elements(resultSet.getString(1)), elements(resultSet.getString(2)))
+    } else {
+      ClickhouseTableKey(Nil, Nil)
+    }
+    statement.close()
+    LOGGER.info(s"table [$database.$table] partition key: [${key.partitionKey.mkString(", ")}], " +
+      s"sorting key: [${key.sortingKey.mkString(", ")}]")
+    key
+  }
+
+  private def elements(expression: String): Seq[String] = {
+    val trimmed = Option(expression).map(_.trim).getOrElse("")
+    if (trimmed.isEmpty || trimmed == "tuple()") {
+      Nil
+    } else if (trimmed.startsWith("(") && trimmed.endsWith(")")) {
+      ClickhouseDistributed.splitArguments(trimmed.substring(1, trimmed.length - 1))
+    } else {
+      ClickhouseDistributed.splitArguments(trimmed)
+    }
+  }
+
+  /**
+   * The column an element is a monotonic function of.
+   */
+  private def sourceColumn(element: String): Option[String] = {
+    element match {
+      case ClickhouseDistributed.identifierPattern(column) => Some(column)
+      case functionPattern(_, ClickhouseDistributed.identifierPattern(column)) => Some(column)
+      case _ => None
+    }
+  }
+
+  private def evaluate(element: String, data: Dataset[Row]): Option[Column] = {
+    sourceColumn(element).filter(data.schema.fieldNames.contains).map(column => {
+      element match {
+        case functionPattern("toYYYYMM", _) => date_format(col(column), "yyyyMM")
+        case functionPattern("toYYYYMMDD", _) => date_format(col(column), "yyyyMMdd")
+        case functionPattern("toDate", _) => to_date(col(column))
+        case functionPattern("toStartOfMonth", _) => trunc(to_date(col(column)), "MM")
+        case _ => col(column)
+      }
+    })
+  }
+}
@@ -0,0 +1,213 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.seatunnel.spark.source
+
+import org.apache.seatunnel.common.config.{CheckResult, ConfigRuntimeException, TypesafeConfigUtils}
+import org.apache.seatunnel.spark.SparkEnvironment
+import org.apache.seatunnel.spark.batch.SparkBatchSource
+import org.apache.seatunnel.spark.sink.ClickhouseDistributed
+import org.apache.spark.sql.types.{StructField, StructType}
+import org.apache.spark.sql.{Dataset, Row}
+import org.slf4j.LoggerFactory
+import ru.yandex.clickhouse.{BalancedClickhouseDataSource, ClickHouseConnectionImpl}
+
+import java.sql.SQLException
+import java.util.Properties
+import scala.collection.JavaConversions._
+import scala.collection.mutable.ArrayBuffer
+
+/**
+ * Reads a clickhouse table with one Spark partition per table partition and shard.
+ *
+ * The partitions are listed from the active parts of `system.parts`. A Distributed table is read
+ * through the local table of each of its shards, from one of the shard replicas. Columns are
+ * selected with `fields` and rows filtered with `where` on the clickhouse side.
+ *
+ * The partitions are read with a filter on the `_partition_id` virtual column. Older servers do
+ * not have it, their tables are read with a single query per shard instead.
+ */
+class Clickhouse extends SparkBatchSource {
+
+  private val LOGGER = LoggerFactory.getLogger(classOf[Clickhouse])
+
+  private val clickhousePrefix = "clickhouse."
+
+  private val properties: Properties = new Properties()
+
+  override def checkConfig(): CheckResult = {
+    val requiredOptions = List("host", "table", "database")
+    val nonExistsOptions = requiredOptions.filter(optionName => !config.hasPath(optionName))
+
+    if (nonExistsOptions.nonEmpty) {
+      new CheckResult(
+        false,
+        "please specify " + nonExistsOptions.map("[" + _ + "]").mkString(", ") + " as non-empty string")
+    } else if (config.hasPath("username") != config.hasPath("password")) {
+      new CheckResult(false, "please specify username and password at the same time")
+    } else {
+      new CheckResult(true, "")
+    }
+  }
+
+  override def prepare(env: SparkEnvironment): Unit = {
+    if (TypesafeConfigUtils.hasSubConfig(config, clickhousePrefix)) {
+      TypesafeConfigUtils
+        .extractSubConfig(config, clickhousePrefix, false)
+        .entrySet()
+        .foreach(entry => properties.put(entry.getKey, String.valueOf(entry.getValue.unwrapped())))
+    }
+    if (config.hasPath("username")) {
+      properties.put("user", config.getString("username"))
+      properties.put("password", config.getString("password"))
+    }
+  }
+
+  override def getData(env: SparkEnvironment): Dataset[Row] = {
+    val hosts = config.getString("host").split(",").map(_.trim)
+    val database = config.getString("database")
+    val table = config.getString("table")
+    val conn = connect(hosts, database)
+
+    val columns = describe(conn, database + "." + table)
+    val selected = if (config.hasPath("fields")) {
+      config.getStringList("fields").map(field => field -> columns.toMap.getOrElse(field,
+        throw new ConfigRuntimeException("field [" + field + "] does not exist in table " + table))).toList
+    } else {
+      columns
+    }
+
+    // types the reader can not decode are read as their string representation
+    val readColumns = selected.map { case (name, fieldType) =>
+      if (ClickhouseRowBinaryReader.supports(fieldType)) {
+        ("`" + name + "`", name, fieldType)
+      } else {
+        val stringType = if (ClickhouseRowBinaryReader.isNullable(fieldType)) "Nullable(String)" else "String"
+        ("toString(`" + name + "`) AS `" + name + "`", name, stringType)
+      }
+    }
+    val schema = StructType(readColumns.map { case (_, name, fieldType) =>
+      StructField(name, ClickhouseRowBinaryReader.sparkType(fieldType), ClickhouseRowBinaryReader.isNullable(fieldType))
+    })
+
+    val splits = listSplits(conn, hosts, database, table)
+    conn.close()
+    LOGGER.info(s"read clickhouse table [$database.$table] with ${splits.size} partitions")
+
+    val rdd = new ClickhousePartitionRDD(
+      env.getSparkSession.sparkContext,
+      splits,
+      readColumns.map(_._1).mkString(", "),
+      readColumns.map(_._3).toArray,
+      if (config.hasPath("where")) Some(config.getString("where")) else None,
+      if (config.hasPath("username")) Some(config.getString("username")) else None,
+      if (config.hasPath("password")) Some(config.getString("password")) else None)
+    env.getSparkSession.createDataFrame(rdd, schema)
+  }
+
+  private def connect(hosts: Seq[String], database: String): ClickHouseConnectionImpl = {
+    val jdbcLink = "jdbc:clickhouse://" + hosts.mkString(",") + "/" + database
+    new BalancedClickhouseDataSource(jdbcLink, properties).getConnection.asInstanceOf[ClickHouseConnectionImpl]
+  }
+
+  /**
+   * Columns of the table that `select *` returns, MATERIALIZED and ALIAS columns are left out.
+   */
+  private def describe(conn: ClickHouseConnectionImpl, table: String): List[(String, String)] = {
+    val resultSet = conn.createStatement.executeQuery("desc " + table)
+    val columns = ArrayBuffer[(String, String)]()
+    while (resultSet.next()) {
+      val defaultType = resultSet.getString(3)
+      if (defaultType != "MATERIALIZED" && defaultType != "ALIAS") {
+        columns += (resultSet.getString(1) -> resultSet.getString(2))
+      }
+    }
+    columns.toList
+  }
+
+  private def listSplits(
+    conn: ClickHouseConnectionImpl,
+    hosts: Seq[String],
+    database: String,
+    table: String): Seq[ClickhouseSplit] = {
+    val firstHost = hosts.head
+    val httpPort = if (firstHost.contains(":")) firstHost.substring(firstHost.lastIndexOf(":") + 1) else "8123"
+
+    ClickhouseDistributed.load(conn, database, table) match {
+      case Some(distributed) =>
+        distributed.shards.flatMap(shard => {
+          val shardHosts = shard.hosts.map(_ + ":" + httpPort)
+          val shardConn = connect(shardHosts, distributed.database)
+          val partitions = listPartitions(shardConn, distributed.database, distributed.table)
+          shardConn.close()
+          partitions.map(id => ClickhouseSplit(shardHosts, distributed.database, distributed.table, id))
+        }).toSeq
+      case None =>
+        listPartitions(conn, database, table).map(id => ClickhouseSplit(hosts, database, table, id))
+    }
+  }
+
+  /**
+   * Ids of the partitions with active parts, a table without parts at all, not a MergeTree one for
+   * example, or without the `_partition_id` virtual column is read as a whole.
+   */
+  private def listPartitions(conn: ClickHouseConnectionImpl, database: String, table: String): Seq[Option[String]] = {
+    val statement = conn.prepareStatement("select partition_id from system.parts " +
+      "where database = ? and table = ? and active group by partition_id order by partition_id")
+    statement.setString(1, database)
+    statement.setString(2, table)
+    val resultSet = statement.executeQuery()
+    val partitions = ArrayBuffer[Option[String]]()
+    while (resultSet.next()) {
+      partitions += Some(resultSet.getString(1))
+    }
+    statement.close()
+
+    if (partitions.isEmpty) {
+      if (isMergeTree(conn, database, table)) Nil else Seq(None)
+    } else if (!hasPartitionIdColumn(conn, database, table)) {
+      LOGGER.warn(s"table [$database.$table] has no _partition_id column, the server is too old to read it " +
+        s"by partition, reading its ${partitions.size} partitions with a single query")
+      Seq(None)
+    } else {
+      partitions.toList
+    }
+  }
+
+  private def hasPartitionIdColumn(conn: ClickHouseConnectionImpl, database: String, table: String): Boolean = {
+    val statement = conn.createStatement
+    try {
+      statement.executeQuery("select _partition_id from " + database + "." + table + " where 0")
+      true
+    } catch {
+      case e: SQLException =>
+        LOGGER.debug(s"_partition_id of [$database.$table] can not be selected", e)
+        false
+    } finally {
+      statement.close()
+    }
+  }
+
+  private def isMergeTree(conn: ClickHouseConnectionImpl, database: String, table: String): Boolean = {
+    val statement = conn.prepareStatement("select engine from system.tables where database = ? and name = ?")
+    statement.setString(1, database)
+    statement.setString(2, table)
+    val resultSet = statement.executeQuery()
+    val mergeTree = resultSet.next() && resultSet.getString(1).endsWith("MergeTree")
+    statement.close()
+    mergeTree
+  }
+}
@@ -0,0 +1,115 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.seatunnel.spark.source
+
+import org.apache.http.HttpHeaders
+import org.apache.http.client.methods.{CloseableHttpResponse, HttpPost}
+import org.apache.http.entity.StringEntity
+import org.apache.http.impl.client.{CloseableHttpClient, HttpClients}
+import org.apache.http.util.EntityUtils
+import org.apache.spark.rdd.RDD
+import org.apache.spark.sql.Row
+import org.apache.spark.{Partition, SparkContext, TaskContext}
+import org.slf4j.LoggerFactory
+
+import java.io.IOException
+import java.nio.charset.StandardCharsets
+import java.util.Base64
+import scala.util.{Failure, Success, Try}
+
+/**
+ * A partition of a clickhouse table on one shard.
+ *
+ * @param hosts       `host:port` http addresses of the shard replicas, all of them hold the partition
+ * @param partitionId clickhouse partition id, None reads the whole table of the shard
+ */
+case class ClickhouseSplit(hosts: Seq[String], database: String, table: String, partitionId: Option[String])
+
+private case class ClickhouseRDDPartition(index: Int, split: ClickhouseSplit) extends Partition
+
+/**
+ * Reads every split with its own `FORMAT RowBinary` http query, sent to the replicas of the split
+ * shard in turn until one answers.
+ *
+ * @param selectList select expressions of the query
+ * @param fieldTypes clickhouse types of the select expressions, in order
+ * @param where      optional filter added to the query of every split
+ */
+class ClickhousePartitionRDD(
+  sc: SparkContext,
+  splits: Seq[ClickhouseSplit],
+  selectList: String,
+  fieldTypes: Array[String],
+  where: Option[String],
+  user: Option[String],
+  password: Option[String]) extends RDD[Row](sc, Nil) {
+
+  override protected def getPartitions: Array[Partition] = {
+    splits.zipWithIndex.map { case (split, i) => ClickhouseRDDPartition(i, split) }.toArray
+  }
+
+  override def getPreferredLocations(partition: Partition): Seq[String] = {
+    partition.asInstanceOf[ClickhouseRDDPartition].split.hosts.map(host => host.substring(0, host.lastIndexOf(":")))
+  }
+
+  override def compute(partition: Partition, context: TaskContext): Iterator[Row] = {
+    val rddPartition = partition.asInstanceOf[ClickhouseRDDPartition]
+    val split = rddPartition.split
+    val conditions = split.partitionId.map(id => "_partition_id = '" + id + "'").toSeq ++ where.map("(" + _ + ")")
+    val sql = "select " + selectList + " from " + split.database + "." + split.table +
+      (if (conditions.isEmpty) "" else " where " + conditions.mkString(" and ")) + " FORMAT RowBinary"
+
+    val client = HttpClients.createDefault()
+    context.addTaskCompletionListener[Unit](_ => client.close())
+    // start on a different replica for every partition to spread the reads
+    val hosts = split.hosts.indices.map(i => split.hosts((rddPartition.index + i) % split.hosts.size))
+    val response = query(client, hosts, sql)
+    new ClickhouseRowBinaryReader(response.getEntity.getContent, fieldTypes)
+  }
+
+  private def query(client: CloseableHttpClient, hosts: Seq[String], sql: String): CloseableHttpResponse = {
+    Try(send(client, hosts.head, sql)) match {
+      case Success(response) => response
+      case Failure(e: IOException) if hosts.size > 1 =>
+        ClickhousePartitionRDD.LOGGER.warn(s"query on replica [${hosts.head}] failed, try the next replica", e)
+        query(client, hosts.tail, sql)
+      case Failure(e) => throw e
+    }
+  }
+
+  private def send(client: CloseableHttpClient, host: String, sql: String): CloseableHttpResponse = {
+    val post = new HttpPost("http://" + host + "/")
+    user.foreach(u => {
+      val credentials = u + ":" + password.getOrElse("")
+      post.setHeader(HttpHeaders.AUTHORIZATION,
+        "Basic " + Base64.getEncoder.encodeToString(credentials.getBytes(StandardCharsets.UTF_8)))
+    })
+    post.setEntity(new StringEntity(sql, StandardCharsets.UTF_8))
+    val response = client.execute(post)
+    if (response.getStatusLine.getStatusCode != 200) {
+      val message = EntityUtils.toString(response.getEntity, StandardCharsets.UTF_8)
+      response.close()
+      throw new IOException("clickhouse query on [" + host + "] failed: " + message)
+    }
+    response
+  }
+}
+
+object ClickhousePartitionRDD {
+
+  private val LOGGER = LoggerFactory.getLogger(classOf[ClickhousePartitionRDD])
+}
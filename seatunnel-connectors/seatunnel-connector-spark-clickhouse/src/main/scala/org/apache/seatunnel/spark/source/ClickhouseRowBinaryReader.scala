@@ -0,0 +1,220 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.seatunnel.spark.source
+
+import org.apache.spark.sql.Row
+import org.apache.spark.sql.catalyst.expressions.GenericRow
+import org.apache.spark.sql.types._
+
+import java.io.{BufferedInputStream, EOFException, InputStream}
+import java.math.{BigDecimal, BigInteger}
+import java.nio.charset.StandardCharsets
+import java.sql.{Date, Timestamp}
+import java.time.LocalDate
+import scala.util.matching.Regex
+
+/**
+ * Decodes a clickhouse RowBinary response into rows, one reader per column chosen from the column
+ * types when the reader is created.
+ */
+class ClickhouseRowBinaryReader(input: InputStream, fieldTypes: Array[String]) extends Iterator[Row] {
+
+  private val in = new BufferedInputStream(input, 1 << 16)
+
+  private val buffer = new Array[Byte](32)
+
+  private val readers: Array[() => Any] = fieldTypes.map(reader)
+
+  override def hasNext: Boolean = {
+    in.mark(1)
+    val next = in.read()
+    if (next >= 0) {
+      in.reset()
+    }
+    next >= 0
+  }
+
+  override def next(): Row = {
+    val values = new Array[Any](readers.length)
+    var i = 0
+    while (i < readers.length) {
+      values(i) = readers(i)()
+      i += 1
+    }
+    new GenericRow(values)
+  }
+
+  private def reader(fieldType: String): () => Any = {
+    fieldType match {
+      case "String" => () => new String(readBytes(readVarInt()), StandardCharsets.UTF_8)
+      case ClickhouseRowBinaryReader.fixedStringPattern(size) =>
+        val length = size.toInt
+        () => new String(readBytes(length), StandardCharsets.UTF_8).replace("\u0000", "")
+      case "Int8" => () => readFixed(1).toByte.toInt
+      case "UInt8" => () => readFixed(1).toInt
+      case "Int16" => () => readFixed(2).toShort.toInt
+      case "UInt16" => () => readFixed(2).toInt
+      case "Int32" => () => readFixed(4).toInt
+      case "UInt32" => () => readFixed(4)
+      case "Int64" => () => readFixed(8)
+      case "UInt64" => () => new BigDecimal(new BigInteger(java.lang.Long.toUnsignedString(readFixed(8))))
+      case "Float32" => () => java.lang.Float.intBitsToFloat(readFixed(4).toInt)
+      case "Float64" => () => java.lang.Double.longBitsToDouble(readFixed(8))
+      case "Date" => () => Date.valueOf(LocalDate.ofEpochDay(readFixed(2)))
+      case ClickhouseRowBinaryReader.dateTimePattern(_*) => () => new Timestamp(readFixed(4) * 1000)
+      case ClickhouseRowBinaryReader.SupportedDecimal(size, scale) => () => readDecimal(size, scale)
+      case ClickhouseRowBinaryReader.nullablePattern(dataType) =>
+        val nested = reader(dataType)
+        () => if (readFixed(1) != 0) null else nested()
+      case ClickhouseRowBinaryReader.lowCardinalityPattern(dataType) => reader(dataType)
+      case ClickhouseRowBinaryReader.arrayPattern(dataType) =>
+        val nested = reader(dataType)
+        () => {
+          val size = readVarInt()
+          val elements = new Array[Any](size)
+          for (i <- 0 until size) {
+            elements(i) = nested()
+          }
+          elements.toSeq
+        }
+    }
+  }
+
+  /**
+   * Unsigned little endian value of `size` bytes.
+   */
+  private def readFixed(size: Int): Long = {
+    readFully(buffer, size)
+    var value = 0L
+    var i = size - 1
+    while (i >= 0) {
+      value = (value << 8) | (buffer(i) & 0xFF)
+      i -= 1
+    }
+    value
+  }
+
+  private def readDecimal(size: Int, scale: Int): BigDecimal = {
+    if (size <= 8) {
+      val value = readFixed(size)
+      // sign extend the 4 bytes of a Decimal32
+      val unscaled = if (size == 4) value.toInt.toLong else value
+      BigDecimal.valueOf(unscaled, scale)
+    } else {
+      readFully(buffer, size)
+      val bigEndian = Array.tabulate[Byte](size)(i => buffer(size - 1 - i))
+      new BigDecimal(new BigInteger(bigEndian), scale)
+    }
+  }
+
+  private def readVarInt(): Int = {
+    var value = 0
+    var shift = 0
+    var byte = 0x80
+    while ((byte & 0x80) != 0) {
+      byte = readFixed(1).toInt
+      value |= (byte & 0x7F) << shift
+      shift += 7
+    }
+    value
+  }
+
+  private def readBytes(length: Int): Array[Byte] = {
+    val bytes = new Array[Byte](length)
+    readFully(bytes, length)
+    bytes
+  }
+
+  private def readFully(bytes: Array[Byte], length: Int): Unit = {
+    var read = 0
+    while (read < length) {
+      val count = in.read(bytes, read, length - read)
+      if (count < 0) {
+        throw new EOFException("unexpected end of clickhouse RowBinary response")
+      }
+      read += count
+    }
+  }
+}
+
+object ClickhouseRowBinaryReader {
+
+  private val fixedStringPattern: Regex = "FixedString\\((\\d+)\\)".r
+  private val dateTimePattern: Regex = "DateTime(\\(.*\\))?".r
+  private val decimalPattern: Regex = "Decimal\\((\\d+),\\s*(\\d+)\\)".r
+  private val sizedDecimalPattern: Regex = "Decimal(32|64|128)\\((\\d+)\\)".r
+  private val nullablePattern: Regex = "Nullable\\((.*)\\)".r
+  private val lowCardinalityPattern: Regex = "LowCardinality\\((.*)\\)".r
+  private val arrayPattern: Regex = "Array\\((.*)\\)".r
+
+  /**
+   * Width in bytes and scale of a decimal type that fits a Spark decimal.
+   */
+  private object SupportedDecimal {
+    def unapply(fieldType: String): Option[(Int, Int)] = {
+      fieldType match {
+        case decimalPattern(precision, scale) if precision.toInt <= 38 =>
+          val size = if (precision.toInt <= 9) 4 else if (precision.toInt <= 18) 8 else 16
+          Some((size, scale.toInt))
+        case sizedDecimalPattern(bits, scale) => Some((bits.toInt / 8, scale.toInt))
+        case _ => None
+      }
+    }
+  }
+
+  /**
+   * Whether values of the type can be decoded, other columns are read as their `toString`.
+   */
+  def supports(fieldType: String): Boolean = {
+    fieldType match {
+      case "String" | "Int8" | "UInt8" | "Int16" | "UInt16" | "Int32" | "UInt32" | "Int64" | "UInt64" |
+           "Float32" | "Float64" | "Date" => true
+      case fixedStringPattern(_) | dateTimePattern(_*) | SupportedDecimal(_, _) => true
+      case nullablePattern(dataType) => supports(dataType)
+      case lowCardinalityPattern(dataType) => supports(dataType)
+      case arrayPattern(dataType) => supports(dataType)
+      case _ => false
+    }
+  }
+
+  def sparkType(fieldType: String): DataType = {
+    fieldType match {
+      case "String" | fixedStringPattern(_) => StringType
+      case "Int8" | "UInt8" | "Int16" | "UInt16" | "Int32" => IntegerType
+      case "UInt32" | "Int64" => LongType
+      case "UInt64" => DecimalType(20, 0)
+      case "Float32" => FloatType
+      case "Float64" => DoubleType
+      case "Date" => DateType
+      case dateTimePattern(_*) => TimestampType
+      case decimalPattern(precision, scale) => DecimalType(precision.toInt, scale.toInt)
+      case sizedDecimalPattern(bits, scale) => DecimalType(Map("32" -> 9, "64" -> 18, "128" -> 38)(bits), scale.toInt)
+      case nullablePattern(dataType) => sparkType(dataType)
+      case lowCardinalityPattern(dataType) => sparkType(dataType)
+      case arrayPattern(dataType) => ArrayType(sparkType(dataType), isNullable(dataType))
+      case _ => StringType
+    }
+  }
+
+  def isNullable(fieldType: String): Boolean = {
+    fieldType match {
+      case nullablePattern(_) => true
+      case lowCardinalityPattern(dataType) => isNullable(dataType)
+      case _ => false
+    }
+  }
+}
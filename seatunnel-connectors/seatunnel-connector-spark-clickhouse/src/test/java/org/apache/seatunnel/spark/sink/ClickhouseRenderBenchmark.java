@@ -0,0 +1,274 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.seatunnel.spark.sink;
+
+import org.apache.spark.sql.Row;
+import org.apache.spark.sql.catalyst.expressions.GenericRowWithSchema;
+import org.apache.spark.sql.types.DataTypes;
+import org.apache.spark.sql.types.StructField;
+import org.apache.spark.sql.types.StructType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import scala.collection.JavaConverters;
+
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Compares the per-row statement rendering of the clickhouse sink before and after the columns
+ * were resolved once per partition.
+ *
+ * <p>Run with {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=org.apache.seatunnel.spark.sink.ClickhouseRenderBenchmark}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ClickhouseRenderBenchmark {
+
+    private static final int ROWS = 1024;
+
+    private static final Pattern ARRAY_PATTERN = Pattern.compile("(Array.*)");
+    private static final Pattern NULLABLE_PATTERN = Pattern.compile("Nullable\\((.*)\\)");
+    private static final Pattern LOW_CARDINALITY_PATTERN = Pattern.compile("LowCardinality\\((.*)\\)");
+    private static final Pattern INT_PATTERN = Pattern.compile("(Int.*)");
+    private static final Pattern UINT_PATTERN = Pattern.compile("(UInt.*)");
+    private static final Pattern FLOAT_PATTERN = Pattern.compile("(Float.*)");
+    private static final Pattern DECIMAL_PATTERN = Pattern.compile("(Decimal.*)");
+
+    private List<String> fields;
+    private Map<String, String> tableSchema;
+    private String[] dsFields;
+    private Row[] rows;
+    private PreparedStatement statement;
+    private ClickhouseStatementRenderer renderer;
+
+    @Setup
+    public void setup() {
+        tableSchema = new HashMap<>();
+        tableSchema.put("id", "UInt64");
+        tableSchema.put("name", "String");
+        tableSchema.put("city", "LowCardinality(String)");
+        tableSchema.put("age", "Int32");
+        tableSchema.put("score", "Float64");
+        tableSchema.put("ratio", "Nullable(Float32)");
+        tableSchema.put("amount", "Decimal(18, 4)");
+        tableSchema.put("event_time", "DateTime");
+        tableSchema.put("comment", "Nullable(String)");
+        tableSchema.put("missing", "Int64");
+        fields = Arrays.asList("id", "name", "city", "age", "score", "ratio", "amount", "event_time", "comment",
+            "missing");
+
+        StructType schema = new StructType(new StructField[]{
+            DataTypes.createStructField("id", DataTypes.LongType, false),
+            DataTypes.createStructField("name", DataTypes.StringType, true),
+            DataTypes.createStructField("city", DataTypes.StringType, true),
+            DataTypes.createStructField("age", DataTypes.IntegerType, false),
+            DataTypes.createStructField("score", DataTypes.DoubleType, false),
+            DataTypes.createStructField("ratio", DataTypes.FloatType, true),
+            DataTypes.createStructField("amount", DataTypes.createDecimalType(18, 4), true),
+            DataTypes.createStructField("event_time", DataTypes.StringType, true),
+            DataTypes.createStructField("comment", DataTypes.StringType, true)
+        });
+        dsFields = schema.fieldNames();
+
+        rows = new Row[ROWS];
+        for (int i = 0; i < ROWS; i++) {
+            rows[i] = new GenericRowWithSchema(new Object[]{
+                (long) i,
+                "name-" + i,
+                "city-" + (i % 16),
+                i % 100,
+                i * 0.5d,
+                i % 3 == 0 ? null : i * 0.25f,
+                BigDecimal.valueOf(i, 4),
+                "2021-12-01 00:00:00",
+                i % 2 == 0 ? null : "comment-" + i
+            }, schema);
+        }
+
+        statement = (PreparedStatement) Proxy.newProxyInstance(
+            ClickhouseRenderBenchmark.class.getClassLoader(),
+            new Class<?>[]{PreparedStatement.class},
+            (proxy, method, args) -> null);
+
+        renderer = new ClickhouseStatementRenderer(ClickhouseColumn$.MODULE$.plan(
+            JavaConverters.asScalaBufferConverter(fields).asScala(),
+            JavaConverters.mapAsScalaMapConverter(tableSchema).asScala(),
+            dsFields));
+    }
+
+    @Benchmark
+    public PreparedStatement perRowResolution() throws SQLException {
+        for (Row row : rows) {
+            legacyRender(row);
+        }
+        return statement;
+    }
+
+    @Benchmark
+    public PreparedStatement compiledSetters() {
+        for (Row row : rows) {
+            renderer.render(row, statement);
+        }
+        return statement;
+    }
+
+    /**
+     * Port of the rendering done for every row before the column plan, kept here as the baseline.
+     */
+    private void legacyRender(Row item) throws SQLException {
+        for (int i = 0; i < fields.size(); i++) {
+            String field = fields.get(i);
+            String fieldType = tableSchema.get(field);
+            if (Arrays.asList(dsFields).indexOf(field) == -1) {
+                legacyDefault(i, fieldType);
+            } else {
+                int fieldIndex = item.fieldIndex(field);
+                if (item.isNullAt(fieldIndex)) {
+                    legacyDefault(i, fieldType);
+                } else if ("String".equals(fieldType) || "DateTime".equals(fieldType) || "Date".equals(fieldType)
+                    || ARRAY_PATTERN.matcher(fieldType).matches()
+                    || FLOAT_PATTERN.matcher(fieldType).matches()
+                    || INT_PATTERN.matcher(fieldType).matches()
+                    || UINT_PATTERN.matcher(fieldType).matches()) {
+                    legacyBaseType(i, fieldIndex, fieldType, item);
+                } else if (NULLABLE_PATTERN.matcher(fieldType).matches()) {
+                    legacyBaseType(i, fieldIndex, unwrap(NULLABLE_PATTERN, fieldType), item);
+                } else if (LOW_CARDINALITY_PATTERN.matcher(fieldType).matches()) {
+                    legacyBaseType(i, fieldIndex, unwrap(LOW_CARDINALITY_PATTERN, fieldType), item);
+                } else if (DECIMAL_PATTERN.matcher(fieldType).matches()) {
+                    legacyBaseType(i, fieldIndex, "Decimal", item);
+                } else {
+                    statement.setString(i + 1, item.getAs(field));
+                }
+            }
+        }
+    }
+
+    private void legacyDefault(int index, String fieldType) throws SQLException {
+        switch (fieldType) {
+            case "DateTime":
+            case "Date":
+            case "String":
+                statement.setString(index + 1, "");
+                break;
+            case "Int8":
+            case "UInt8":
+            case "Int16":
+            case "Int32":
+            case "UInt32":
+            case "UInt16":
+                statement.setInt(index + 1, 0);
+                break;
+            case "UInt64":
+            case "Int64":
+                statement.setLong(index + 1, 0);
+                break;
+            case "Float32":
+                statement.setFloat(index + 1, 0);
+                break;
+            case "Float64":
+                statement.setDouble(index + 1, 0);
+                break;
+            default:
+                if (LOW_CARDINALITY_PATTERN.matcher(fieldType).matches()) {
+                    legacyDefault(index, unwrap(LOW_CARDINALITY_PATTERN, fieldType));
+                } else if (ARRAY_PATTERN.matcher(fieldType).matches()) {
+                    statement.setNull(index, Types.ARRAY);
+                } else if (NULLABLE_PATTERN.matcher(fieldType).matches()) {
+                    statement.setNull(index + 1, Types.VARCHAR);
+                } else {
+                    statement.setString(index + 1, "");
+                }
+        }
+    }
+
+    private void legacyBaseType(int index, int fieldIndex, String fieldType, Row item) throws SQLException {
+        switch (fieldType) {
+            case "DateTime":
+            case "Date":
+            case "String":
+                statement.setString(index + 1, item.getAs(fieldIndex));
+                break;
+            case "Int8":
+            case "UInt8":
+            case "Int16":
+            case "UInt16":
+            case "Int32":
+                statement.setInt(index + 1, item.<Integer>getAs(fieldIndex));
+                break;
+            case "UInt32":
+            case "UInt64":
+            case "Int64":
+                statement.setLong(index + 1, item.<Long>getAs(fieldIndex));
+                break;
+            case "Float32":
+                statement.setFloat(index + 1, item.<Float>getAs(fieldIndex));
+                break;
+            case "Float64":
+                statement.setDouble(index + 1, item.<Double>getAs(fieldIndex));
+                break;
+            case "Decimal":
+                statement.setBigDecimal(index + 1, item.getAs(fieldIndex));
+                break;
+            default:
+                if (ARRAY_PATTERN.matcher(fieldType).matches()) {
+                    statement.setArray(index + 1, item.getAs(fieldIndex));
+                } else {
+                    statement.setString(index + 1, item.getAs(fieldIndex));
+                }
+        }
+    }
+
+    private static String unwrap(Pattern pattern, String fieldType) {
+        Matcher matcher = pattern.matcher(fieldType);
+        matcher.matches();
+        return matcher.group(1);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+            .include(ClickhouseRenderBenchmark.class.getSimpleName())
+            .build()).run();
+    }
+}
@@ -0,0 +1,311 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.seatunnel.spark.sink;
+
+import org.apache.seatunnel.spark.source.ClickhouseRowBinaryReader;
+import org.apache.spark.sql.Row;
+import org.apache.spark.sql.RowFactory;
+import org.junit.Assert;
+import org.junit.Test;
+import scala.collection.JavaConverters;
+import scala.collection.Seq;
+
+import java.io.ByteArrayInputStream;
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TimeZone;
+
+public class ClickhouseRowBinaryTest {
+
+    private static final String ZONE = "Asia/Shanghai";
+
+    @Test
+    public void testStrings() {
+        String text = "tab\tquote'\"back\\slash\nnull\u0000 é € 😀";
+        List<Row> rows = roundTrip(schema("s", "String", "t", "String"),
+            RowFactory.create(text, 42),
+            RowFactory.create("", ""));
+
+        Assert.assertEquals(text, rows.get(0).get(0));
+        Assert.assertEquals("42", rows.get(0).get(1));
+        Assert.assertEquals("", rows.get(1).get(0));
+        Assert.assertEquals("", rows.get(1).get(1));
+    }
+
+    @Test
+    public void testIntegers() {
+        List<Row> rows = roundTrip(
+            schema("i8", "Int8", "u8", "UInt8", "i16", "Int16", "u16", "UInt16", "i32", "Int32", "u32", "UInt32",
+                "i64", "Int64", "u64", "UInt64"),
+            RowFactory.create(-5, 200, -300, 60000, Integer.MIN_VALUE, 4000000000L, Long.MIN_VALUE,
+                new BigDecimal("18446744073709551615")));
+
+        Row row = rows.get(0);
+        Assert.assertEquals(-5, row.get(0));
+        Assert.assertEquals(200, row.get(1));
+        Assert.assertEquals(-300, row.get(2));
+        Assert.assertEquals(60000, row.get(3));
+        Assert.assertEquals(Integer.MIN_VALUE, row.get(4));
+        Assert.assertEquals(4000000000L, row.get(5));
+        Assert.assertEquals(Long.MIN_VALUE, row.get(6));
+        Assert.assertEquals(new BigDecimal("18446744073709551615"), row.get(7));
+    }
+
+    @Test
+    public void testFloats() {
+        List<Row> rows = roundTrip(schema("f32", "Float32", "f64", "Float64"),
+            RowFactory.create(1.5f, -0.1d),
+            RowFactory.create(Float.NaN, Double.NEGATIVE_INFINITY));
+
+        Assert.assertEquals(1.5f, rows.get(0).get(0));
+        Assert.assertEquals(-0.1d, rows.get(0).get(1));
+        Assert.assertTrue(Float.isNaN((Float) rows.get(1).get(0)));
+        Assert.assertEquals(Double.NEGATIVE_INFINITY, rows.get(1).get(1));
+    }
+
+    @Test
+    public void testNullable() {
+        List<Row> rows = roundTrip(
+            schema("s", "Nullable(String)", "i", "Nullable(Int32)", "a", "Array(Nullable(String))"),
+            RowFactory.create(null, null, new Object[]{"x", null, "z"}),
+            RowFactory.create("value", 7, new Object[0]));
+
+        Assert.assertNull(rows.get(0).get(0));
+        Assert.assertNull(rows.get(0).get(1));
+        Assert.assertEquals(Arrays.asList("x", null, "z"), list(rows.get(0).get(2)));
+        Assert.assertEquals("value", rows.get(1).get(0));
+        Assert.assertEquals(7, rows.get(1).get(1));
+        Assert.assertEquals(new ArrayList<>(), list(rows.get(1).get(2)));
+    }
+
+    @Test
+    public void testLowCardinality() {
+        List<Row> rows = roundTrip(schema("c", "LowCardinality(String)", "n", "LowCardinality(Nullable(String))"),
+            RowFactory.create("city", null),
+            RowFactory.create("town", "name"));
+
+        Assert.assertEquals("city", rows.get(0).get(0));
+        Assert.assertNull(rows.get(0).get(1));
+        Assert.assertEquals("town", rows.get(1).get(0));
+        Assert.assertEquals("name", rows.get(1).get(1));
+    }
+
+    @Test
+    public void testDecimals() {
+        List<Row> rows = roundTrip(
+            schema("d9", "Decimal(9, 2)", "d18", "Decimal(18, 4)", "d38", "Decimal(38, 10)", "d64", "Decimal64(3)"),
+            RowFactory.create(new BigDecimal("-12345.67"), new BigDecimal("3.5"),
+                new BigDecimal("-1234567890123456789012345.0123456789"), "42.125"),
+            RowFactory.create(new BigDecimal("0.005"), new BigDecimal("-0.00005"),
+                new BigDecimal("9999999999999999999999999999.9999999999"), new BigDecimal("-1")));
+
+        Assert.assertEquals(new BigDecimal("-12345.67"), rows.get(0).get(0));
+        Assert.assertEquals(new BigDecimal("3.5000"), rows.get(0).get(1));
+        Assert.assertEquals(new BigDecimal("-1234567890123456789012345.0123456789"), rows.get(0).get(2));
+        Assert.assertEquals(new BigDecimal("42.125"), rows.get(0).get(3));
+        // values are rounded half up to the scale of the column
+        Assert.assertEquals(new BigDecimal("0.01"), rows.get(1).get(0));
+        Assert.assertEquals(new BigDecimal("-0.0001"), rows.get(1).get(1));
+        Assert.assertEquals(new BigDecimal("9999999999999999999999999999.9999999999"), rows.get(1).get(2));
+        Assert.assertEquals(new BigDecimal("-1.000"), rows.get(1).get(3));
+    }
+
+    @Test
+    public void testDateAndDateTime() {
+        Timestamp expected = Timestamp.from(LocalDateTime.of(2021, 12, 1, 8, 30).atZone(ZoneId.of(ZONE)).toInstant());
+        List<Row> rows = roundTrip(schema("d", "Date", "t", "DateTime"),
+            RowFactory.create(Date.valueOf("2021-12-01"), expected),
+            RowFactory.create("2021-12-01", "2021-12-01 08:30:00"),
+            RowFactory.create("1970-01-01", "2021-12-01"));
+
+        Assert.assertEquals(Date.valueOf("2021-12-01"), rows.get(0).get(0));
+        Assert.assertEquals(expected, rows.get(0).get(1));
+        Assert.assertEquals(Date.valueOf("2021-12-01"), rows.get(1).get(0));
+        // strings are read in the server time zone
+        Assert.assertEquals(expected, rows.get(1).get(1));
+        Assert.assertEquals(Date.valueOf("1970-01-01"), rows.get(2).get(0));
+        Assert.assertEquals(
+            Timestamp.from(LocalDateTime.of(2021, 12, 1, 0, 0).atZone(ZoneId.of(ZONE)).toInstant()),
+            rows.get(2).get(1));
+    }
+
+    @Test
+    public void testNullablePrefixBytes() {
+        Map<String, String> tableSchema = schema("s", "Nullable(String)", "i", "Nullable(Int32)");
+
+        Assert.assertArrayEquals(bytes(1, 0, 7, 0, 0, 0), encode(tableSchema, RowFactory.create(null, 7)));
+        Assert.assertArrayEquals(bytes(0, 1, 'a', 1), encode(tableSchema, RowFactory.create("a", null)));
+    }
+
+    @Test
+    public void testStringLengthIsLeb128Bytes() {
+        Map<String, String> tableSchema = schema("s", "String");
+
+        Assert.assertArrayEquals(bytes(0), encode(tableSchema, RowFactory.create("")));
+        // the length counts utf-8 bytes, not characters
+        Assert.assertArrayEquals(bytes(2, 0xC3, 0xA9), encode(tableSchema, RowFactory.create("é")));
+        byte[] encoded = encode(tableSchema, RowFactory.create(repeat('a', 127)));
+        Assert.assertEquals(128, encoded.length);
+        Assert.assertEquals(0x7F, encoded[0]);
+        encoded = encode(tableSchema, RowFactory.create(repeat('a', 200)));
+        Assert.assertEquals(202, encoded.length);
+        Assert.assertArrayEquals(bytes(0xC8, 0x01, 'a'), Arrays.copyOf(encoded, 3));
+        encoded = encode(tableSchema, RowFactory.create(repeat('a', 16384)));
+        Assert.assertEquals(16387, encoded.length);
+        Assert.assertArrayEquals(bytes(0x80, 0x80, 0x01, 'a'), Arrays.copyOf(encoded, 4));
+    }
+
+    @Test
+    public void testDecimalWidthBytes() {
+        Map<String, String> tableSchema = schema("d9", "Decimal(9, 2)", "d18", "Decimal(18, 4)",
+            "d38", "Decimal(38, 10)", "d32", "Decimal32(1)");
+
+        byte[] encoded = encode(tableSchema,
+            RowFactory.create(new BigDecimal("-1.5"), new BigDecimal("3.5"), new BigDecimal("-1"), 2));
+        Assert.assertArrayEquals(bytes(
+            // -150 as Int32
+            0x6A, 0xFF, 0xFF, 0xFF,
+            // 35000 as Int64
+            0xB8, 0x88, 0, 0, 0, 0, 0, 0,
+            // -10^10 as Int128, sign extended
+            0x00, 0x1C, 0xF4, 0xAB, 0xFD, 0xFF, 0xFF, 0xFF, 0xFF, 0xFF, 0xFF, 0xFF, 0xFF, 0xFF, 0xFF, 0xFF,
+            // 20 as Int32
+            20, 0, 0, 0),
+            encoded);
+    }
+
+    @Test
+    public void testDateAndDateTimeEpochBytes() {
+        Map<String, String> tableSchema = schema("d", "Date", "t", "DateTime");
+        Timestamp timestamp = Timestamp.from(
+            LocalDateTime.of(2021, 12, 1, 8, 30).atZone(ZoneId.of(ZONE)).toInstant());
+
+        Assert.assertArrayEquals(bytes(0, 0, 1, 0, 0, 0),
+            encode(tableSchema, RowFactory.create("1970-01-01", "1970-01-01 08:00:01")));
+        // 18962 days and 1638318600 seconds since the epoch
+        Assert.assertArrayEquals(bytes(0x12, 0x4A, 0x08, 0xC2, 0xA6, 0x61),
+            encode(tableSchema, RowFactory.create(Date.valueOf("2021-12-01"), timestamp)));
+        // days are unsigned, 47482 does not fit an Int16
+        Assert.assertArrayEquals(bytes(0x7A, 0xB9), Arrays.copyOf(
+            encode(tableSchema, RowFactory.create("2100-01-01", timestamp)), 2));
+    }
+
+    @Test
+    public void testArrays() {
+        List<Row> rows = roundTrip(schema("i", "Array(Int32)", "s", "Array(String)", "n", "Array(Array(Int64))"),
+            RowFactory.create(new Object[]{1, -2, 3},
+                JavaConverters.asScalaBufferConverter(Arrays.asList("a", "b\nc")).asScala(),
+                new Object[]{new Object[]{1L, 2L}, new Object[0]}));
+
+        Row row = rows.get(0);
+        Assert.assertEquals(Arrays.asList(1, -2, 3), list(row.get(0)));
+        Assert.assertEquals(Arrays.asList("a", "b\nc"), list(row.get(1)));
+        List<Object> nested = list(row.get(2));
+        Assert.assertEquals(2, nested.size());
+        Assert.assertEquals(Arrays.asList(1L, 2L), list(nested.get(0)));
+        Assert.assertEquals(new ArrayList<>(), list(nested.get(1)));
+    }
+
+    @Test
+    public void testMissingAndNullColumnsGetDefaults() {
+        Map<String, String> tableSchema = schema("id", "Int64", "name", "String", "tags", "Array(String)",
+            "missing", "Int32");
+        List<Row> rows = roundTrip(tableSchema, new String[]{"id", "name", "tags"},
+            RowFactory.create(null, null, null));
+
+        Row row = rows.get(0);
+        Assert.assertEquals(0L, row.get(0));
+        Assert.assertEquals("", row.get(1));
+        Assert.assertEquals(new ArrayList<>(), list(row.get(2)));
+        Assert.assertEquals(0, row.get(3));
+    }
+
+    private static List<Row> roundTrip(Map<String, String> tableSchema, Row... rows) {
+        return roundTrip(tableSchema, tableSchema.keySet().toArray(new String[0]), rows);
+    }
+
+    /**
+     * Encodes the rows of a dataset with the columns {@code dsFields} into the table, then decodes
+     * the RowBinary bytes with the types of the table.
+     */
+    private static List<Row> roundTrip(Map<String, String> tableSchema, String[] dsFields, Row... rows) {
+        byte[] encoded = encode(tableSchema, dsFields, rows);
+
+        String[] fieldTypes = tableSchema.values().toArray(new String[0]);
+        ClickhouseRowBinaryReader reader = new ClickhouseRowBinaryReader(new ByteArrayInputStream(encoded), fieldTypes);
+        List<Row> decoded = new ArrayList<>();
+        while (reader.hasNext()) {
+            decoded.add(reader.next());
+        }
+        Assert.assertEquals(rows.length, decoded.size());
+        return decoded;
+    }
+
+    private static byte[] encode(Map<String, String> tableSchema, Row... rows) {
+        return encode(tableSchema, tableSchema.keySet().toArray(new String[0]), rows);
+    }
+
+    private static byte[] encode(Map<String, String> tableSchema, String[] dsFields, Row... rows) {
+        List<String> fields = new ArrayList<>(tableSchema.keySet());
+        ClickhouseColumn[] columns = ClickhouseColumn$.MODULE$.plan(
+            JavaConverters.asScalaBufferConverter(fields).asScala(),
+            JavaConverters.mapAsScalaMapConverter(tableSchema).asScala(),
+            dsFields);
+        ClickhouseRowBinaryEncoder encoder = new ClickhouseRowBinaryEncoder(columns, TimeZone.getTimeZone(ZONE));
+        ClickhouseRowBinaryBuffer buffer = new ClickhouseRowBinaryBuffer(16);
+        for (Row row : rows) {
+            encoder.encode(row, buffer);
+        }
+        return Arrays.copyOf(buffer.array(), buffer.size());
+    }
+
+    private static byte[] bytes(int... values) {
+        byte[] bytes = new byte[values.length];
+        for (int i = 0; i < values.length; i++) {
+            bytes[i] = (byte) values[i];
+        }
+        return bytes;
+    }
+
+    private static String repeat(char c, int count) {
+        char[] chars = new char[count];
+        Arrays.fill(chars, c);
+        return new String(chars);
+    }
+
+    private static Map<String, String> schema(String... namesAndTypes) {
+        Map<String, String> schema = new LinkedHashMap<>();
+        for (int i = 0; i < namesAndTypes.length; i += 2) {
+            schema.put(namesAndTypes[i], namesAndTypes[i + 1]);
+        }
+        return schema;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Object> list(Object value) {
+        return new ArrayList<>(JavaConverters.seqAsJavaListConverter((Seq<Object>) value).asJava());
+    }
+}
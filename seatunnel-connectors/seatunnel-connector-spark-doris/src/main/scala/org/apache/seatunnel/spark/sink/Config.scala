@@ -25,6 +25,10 @@ object Config extends Serializable {
   val USER = "user"
   val PASSWORD = "password"
   val BULK_SIZE = "batch_size"
+  val BATCH_BYTES = "batch_bytes"
+  val ADAPTIVE_BATCH_SIZE = "adaptive_batch_size"
+  val ADAPTIVE_LOAD_LATENCY_MS = "adaptive_load_latency_ms"
+  val MAX_RETRIES = "max_retries"
   val ARGS_PREFIX = "doris."
   val COLUMN_SEPARATOR = "column_separator"
 
@@ -32,6 +36,14 @@ object Config extends Serializable {
   val BINARY_CT = "application/octet-stream"
   val CONTENT_TYPE = "text/plain"
   var TIMEOUT = 30000
+  val SOCKET_TIMEOUT = 600000
+  val FORMAT = "format"
+  val FORMAT_JSON = "json"
+  val LINE_DELIMITER = "line_delimiter"
+  val STRIP_OUTER_ARRAY = "strip_outer_array"
+  val ENCLOSE = "enclose"
+  val ESCAPE = "escape"
+  val LABEL = "label"
 
   val CHECK_INT_ERROR = "Please check bulk_size is larger than 0"
   val CHECK_USER_ERROR = "Please check username and password at the same time"
@@ -17,18 +17,26 @@
 
 package org.apache.seatunnel.spark.sink
 
-import org.apache.seatunnel.common.config.CheckResult
+import org.apache.seatunnel.common.config.{CheckResult, TypesafeConfigUtils}
 import org.apache.seatunnel.spark.SparkEnvironment
 import org.apache.seatunnel.spark.batch.SparkBatchSink
+import org.apache.spark.TaskContext
 import org.apache.spark.sql.{Dataset, Row}
+import org.slf4j.LoggerFactory
 
-import scala.collection.mutable.ListBuffer
-import scala.collection.{JavaConversions, mutable}
+import java.nio.charset.StandardCharsets
+import java.util.UUID
+import scala.collection.JavaConversions._
+import scala.collection.mutable
 
 class Doris extends SparkBatchSink with Serializable {
 
   var apiUrl: String = _
   var batch_size: Int = 100
+  var batch_bytes: Long = 64L * 1024 * 1024
+  var adaptive_batch_size: Boolean = false
+  var adaptive_load_latency_ms: Long = 10000
+  var max_retries: Int = 1
   var column_separator: String = "\t"
   var propertiesMap = new mutable.HashMap[String, String]()
 
@@ -38,23 +46,75 @@ class Doris extends SparkBatchSink with Serializable {
     if (propertiesMap.contains(Config.COLUMN_SEPARATOR)) {
       column_separator = propertiesMap(Config.COLUMN_SEPARATOR)
     }
-    val sparkSession = env.getSparkSession
-    import sparkSession.implicits._
-    val dataFrame = data.map(x => x.toString().replaceAll("\\[|\\]", "").replace(",", column_separator))
-    dataFrame.foreachPartition { partition =>
-      var count: Int = 0
-      val buffer = new ListBuffer[String]
-      val dorisUtil = new DorisUtil(propertiesMap.toMap, apiUrl, user, password)
-      for (message <- partition) {
-        count += 1
-        buffer += message
-        if (count > batch_size) {
-          dorisUtil.saveMessages(buffer.mkString("\n"))
-          buffer.clear()
-          count = 0
+    val json = propertiesMap.get(Config.FORMAT).contains(Config.FORMAT_JSON)
+    // the rows of a json load are sent as one array
+    val headers = if (json && !propertiesMap.contains(Config.STRIP_OUTER_ARRAY)) {
+      propertiesMap.toMap + (Config.STRIP_OUTER_ARRAY -> "true")
+    } else {
+      propertiesMap.toMap
+    }
+    val lineDelimiter = headers.getOrElse(Config.LINE_DELIMITER, "\n").getBytes(StandardCharsets.UTF_8)
+    val enclose = headers.get(Config.ENCLOSE).filter(_.nonEmpty).map(_.charAt(0))
+    val escape = headers.get(Config.ESCAPE).filter(_.nonEmpty).map(_.charAt(0)).getOrElse('\\')
+    val schema = data.schema
+    val columnSeparator = column_separator
+    val api = apiUrl
+    val maxRetries = max_retries
+    val batchSizer = new DorisBatchSizer(batch_size, batch_bytes, adaptive_batch_size, adaptive_load_latency_ms)
+    val labelPrefix = Doris.labelPrefix + "_" + UUID.randomUUID().toString.replaceAll("-", "")
+
+    data.foreachPartition { partition =>
+      val encoder = new DorisRowEncoder(schema, json, columnSeparator, enclose, escape)
+      val buffer = new DorisLoadBuffer(Doris.bufferInitialCapacity)
+      var rows = 0
+      var loads = 0
+      // one label per task attempt and batch, kept by the retries of the batch
+      val taskLabelPrefix = s"${labelPrefix}_${TaskContext.get().taskAttemptId()}"
+      // the batch sizer is deserialized with the task, the loads of a partition are retried here so that
+      // its later batches follow the target the failures resized
+      def flush(): Unit = {
+        if (json) {
+          buffer.write(']')
+        }
+        val label = s"${taskLabelPrefix}_$loads"
+        var retries = 0
+        var loaded = false
+        while (!loaded) {
+          val start = System.currentTimeMillis()
+          try {
+            val status = DorisUtil.streamLoad(api, headers, user, password, label, buffer)
+            batchSizer.onLoaded(buffer.size, System.currentTimeMillis() - start, status)
+            loaded = true
+          } catch {
+            case e: Exception =>
+              batchSizer.onFailure(e)
+              if (retries >= maxRetries) {
+                throw e
+              }
+              Doris.LOGGER.warn(s"doris stream load of label $label failed, retry times = $retries", e)
+              retries += 1
+              Thread.sleep(1000L * retries)
+          }
         }
+        buffer.reset()
+        rows = 0
+        loads += 1
+      }
+      for (row <- partition) {
+        if (json) {
+          buffer.write(if (rows == 0) '[' else ',')
+        } else if (rows > 0) {
+          buffer.write(lineDelimiter)
+        }
+        encoder.encode(row, buffer)
+        rows += 1
+        if (batchSizer.isFull(rows, buffer.size)) {
+          flush()
+        }
+      }
+      if (rows > 0) {
+        flush()
       }
-      dorisUtil.saveMessages(buffer.mkString("\n"))
     }
   }
 
@@ -78,13 +138,9 @@ class Doris extends SparkBatchSink with Serializable {
       val dataBase: String = config.getString(Config.DATABASE)
       val tableName: String = config.getString(Config.TABLE_NAME)
       this.apiUrl = s"http://$host/api/$dataBase/$tableName/_stream_load"
-      val httpConfig = JavaConversions.asScalaSet(config.entrySet()).filter(x => x.getKey.startsWith(Config.ARGS_PREFIX))
-      if (httpConfig.nonEmpty) {
-        httpConfig.foreach(tuple => {
-          val split = tuple.getKey.split(".")
-          if (split.size == 2) {
-            propertiesMap.put(split(1), tuple.getValue.render())
-          }
+      if (TypesafeConfigUtils.hasSubConfig(config, Config.ARGS_PREFIX)) {
+        TypesafeConfigUtils.extractSubConfig(config, Config.ARGS_PREFIX, false).entrySet().foreach(entry => {
+          propertiesMap.put(entry.getKey, String.valueOf(entry.getValue.unwrapped()))
         })
       }
       new CheckResult(true, Config.CHECK_SUCCESS)
@@ -95,5 +151,26 @@ class Doris extends SparkBatchSink with Serializable {
     if (config.hasPath(Config.BULK_SIZE) && config.getInt(Config.BULK_SIZE) > 0) {
       batch_size = config.getInt(Config.BULK_SIZE)
     }
+    if (config.hasPath(Config.BATCH_BYTES) && config.getBytes(Config.BATCH_BYTES) > 0) {
+      batch_bytes = config.getBytes(Config.BATCH_BYTES)
+    }
+    if (config.hasPath(Config.ADAPTIVE_BATCH_SIZE)) {
+      adaptive_batch_size = config.getBoolean(Config.ADAPTIVE_BATCH_SIZE)
+    }
+    if (config.hasPath(Config.ADAPTIVE_LOAD_LATENCY_MS) && config.getLong(Config.ADAPTIVE_LOAD_LATENCY_MS) > 0) {
+      adaptive_load_latency_ms = config.getLong(Config.ADAPTIVE_LOAD_LATENCY_MS)
+    }
+    if (config.hasPath(Config.MAX_RETRIES) && config.getInt(Config.MAX_RETRIES) >= 0) {
+      max_retries = config.getInt(Config.MAX_RETRIES)
+    }
   }
 }
+
+object Doris {
+
+  private val LOGGER = LoggerFactory.getLogger(classOf[Doris])
+
+  private val bufferInitialCapacity = 1 << 16
+
+  private val labelPrefix = "seatunnel"
+}
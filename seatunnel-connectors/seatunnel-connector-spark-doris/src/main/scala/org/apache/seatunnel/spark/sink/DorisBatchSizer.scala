@@ -0,0 +1,79 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.seatunnel.spark.sink
+
+import org.slf4j.LoggerFactory
+
+/**
+ * Decides when a stream load batch is full.
+ *
+ * A batch is cut at `maxRows` rows or `maxBytes` bytes. In adaptive mode the row limit is not used, the
+ * batch is cut at a byte target between 1MB and `maxBytes` that follows the loads: it shrinks when a load
+ * is slower than `targetLatencyMs` or times out, and grows when full batches load quickly or Doris reports
+ * a publish timeout or too many versions, both caused by frequent small loads.
+ */
+class DorisBatchSizer(maxRows: Int, maxBytes: Long, adaptive: Boolean, targetLatencyMs: Long) extends Serializable {
+
+  private val minBytes = math.min(DorisBatchSizer.minAdaptiveBytes, maxBytes)
+
+  @volatile private var targetBytes = math.max(minBytes, maxBytes / 8)
+
+  def isFull(rows: Int, bytes: Long): Boolean = {
+    if (adaptive) bytes >= targetBytes else (maxRows > 0 && rows >= maxRows) || bytes >= maxBytes
+  }
+
+  def onLoaded(bytes: Long, latencyMs: Long, status: String): Unit = synchronized {
+    if (adaptive) {
+      if (status == DorisBatchSizer.publishTimeoutStatus) {
+        resize(targetBytes * 2, "publish timeout")
+      } else if (latencyMs > targetLatencyMs) {
+        resize(bytes * targetLatencyMs / latencyMs, s"load of $bytes bytes took $latencyMs ms")
+      } else if (bytes >= targetBytes * 9 / 10 && latencyMs < targetLatencyMs / 2) {
+        resize(targetBytes * 3 / 2, s"load of $bytes bytes took $latencyMs ms")
+      }
+    }
+  }
+
+  def onFailure(e: Throwable): Unit = synchronized {
+    if (adaptive) {
+      val message = Iterator.iterate(e)(_.getCause).takeWhile(_ != null).map(_.getMessage).mkString("\n").toLowerCase
+      if (message.contains("too many versions") || message.contains("-235")) {
+        resize(targetBytes * 2, "too many versions")
+      } else if (message.contains("timeout") || message.contains("timed out")) {
+        resize(targetBytes / 2, "load timeout")
+      }
+    }
+  }
+
+  private def resize(bytes: Long, reason: String): Unit = {
+    val resized = math.max(minBytes, math.min(maxBytes, bytes))
+    if (resized != targetBytes) {
+      DorisBatchSizer.LOGGER.info(s"doris batch target resized from $targetBytes to $resized bytes, $reason")
+      targetBytes = resized
+    }
+  }
+}
+
+object DorisBatchSizer {
+
+  private val LOGGER = LoggerFactory.getLogger(classOf[DorisBatchSizer])
+
+  private val minAdaptiveBytes = 1L << 20
+
+  private val publishTimeoutStatus = "Publish Timeout"
+}
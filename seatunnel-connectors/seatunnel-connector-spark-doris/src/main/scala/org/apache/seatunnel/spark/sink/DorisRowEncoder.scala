@@ -0,0 +1,349 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.seatunnel.spark.sink
+
+import org.apache.spark.sql.Row
+import org.apache.spark.sql.types._
+
+import java.io.OutputStream
+import java.nio.charset.StandardCharsets
+import java.sql.{Date, Timestamp}
+import java.time.{LocalDate, LocalDateTime}
+import java.util
+
+/**
+ * Growable byte buffer holding the body of a stream load, reset and reused by the following loads.
+ */
+class DorisLoadBuffer(initialCapacity: Int) {
+
+  private var buf = new Array[Byte](initialCapacity)
+
+  private var count = 0
+
+  def array: Array[Byte] = buf
+
+  def size: Int = count
+
+  def reset(): Unit = count = 0
+
+  def write(b: Int): Unit = {
+    ensureCapacity(count + 1)
+    buf(count) = b.toByte
+    count += 1
+  }
+
+  def write(bytes: Array[Byte]): Unit = {
+    ensureCapacity(count + bytes.length)
+    System.arraycopy(bytes, 0, buf, count, bytes.length)
+    count += bytes.length
+  }
+
+  def writeAscii(s: String): Unit = {
+    ensureCapacity(count + s.length)
+    var i = 0
+    while (i < s.length) {
+      buf(count) = s.charAt(i).toByte
+      count += 1
+      i += 1
+    }
+  }
+
+  /**
+   * Writes the utf-8 bytes of the character at `index`, returns the index of the next character.
+   */
+  def writeUtf8Char(s: String, index: Int): Int = {
+    val c = s.charAt(index)
+    if (c < 0x80) {
+      write(c)
+      index + 1
+    } else if (c < 0x800) {
+      write(0xC0 | (c >> 6))
+      write(0x80 | (c & 0x3F))
+      index + 1
+    } else if (Character.isHighSurrogate(c) && index + 1 < s.length && Character.isLowSurrogate(s.charAt(index + 1))) {
+      val codePoint = Character.toCodePoint(c, s.charAt(index + 1))
+      write(0xF0 | (codePoint >> 18))
+      write(0x80 | ((codePoint >> 12) & 0x3F))
+      write(0x80 | ((codePoint >> 6) & 0x3F))
+      write(0x80 | (codePoint & 0x3F))
+      index + 2
+    } else if (Character.isSurrogate(c)) {
+      // unpaired surrogate, replaced like String.getBytes does
+      write('?')
+      index + 1
+    } else {
+      write(0xE0 | (c >> 12))
+      write(0x80 | ((c >> 6) & 0x3F))
+      write(0x80 | (c & 0x3F))
+      index + 1
+    }
+  }
+
+  def writeUtf8(s: String): Unit = {
+    var i = 0
+    while (i < s.length) {
+      i = writeUtf8Char(s, i)
+    }
+  }
+
+  def writePadded(value: Int, width: Int): Unit = {
+    val digits = value.toString
+    var i = digits.length
+    while (i < width) {
+      write('0')
+      i += 1
+    }
+    writeAscii(digits)
+  }
+
+  def writeTo(out: OutputStream): Unit = out.write(buf, 0, count)
+
+  private def ensureCapacity(minCapacity: Int): Unit = {
+    if (minCapacity < 0) {
+      throw new IllegalStateException("stream load body exceeds 2GB, lower the batch size")
+    }
+    if (minCapacity > buf.length) {
+      buf = util.Arrays.copyOf(buf, math.max(math.min(buf.length.toLong << 1, Int.MaxValue - 8).toInt, minCapacity))
+    }
+  }
+}
+
+/**
+ * Writes rows as csv lines or json objects into a [[DorisLoadBuffer]], with a writer per field chosen
+ * once from the schema.
+ *
+ * Dates and timestamps are written in the Doris formats, decimals without exponent and csv nulls as `\N`.
+ * Csv strings are written as they are, or enclosed in `enclose` with `escape` before the enclose and
+ * escape characters they contain. Arrays, maps and structs are written as json values in both formats.
+ */
+class DorisRowEncoder(schema: StructType, json: Boolean, columnSeparator: String, enclose: Option[Char], escape: Char) {
+
+  private val separator = columnSeparator.getBytes(StandardCharsets.UTF_8)
+
+  private val keys = jsonKeys(schema)
+
+  private val writers: Array[(Any, DorisLoadBuffer) => Unit] = schema.fields.map(f => writer(f.dataType, json))
+
+  def encode(row: Row, buffer: DorisLoadBuffer): Unit = {
+    if (json) {
+      writeObject(row, keys, writers, buffer)
+    } else {
+      var i = 0
+      while (i < writers.length) {
+        if (i > 0) {
+          buffer.write(separator)
+        }
+        if (row.isNullAt(i)) {
+          buffer.write(DorisRowEncoder.csvNull)
+        } else {
+          writers(i)(row.get(i), buffer)
+        }
+        i += 1
+      }
+    }
+  }
+
+  private def writeObject(
+    row: Row,
+    fieldKeys: Array[Array[Byte]],
+    fieldWriters: Array[(Any, DorisLoadBuffer) => Unit],
+    buffer: DorisLoadBuffer): Unit = {
+    if (fieldWriters.isEmpty) {
+      buffer.write('{')
+    }
+    var i = 0
+    while (i < fieldWriters.length) {
+      buffer.write(fieldKeys(i))
+      if (row.isNullAt(i)) {
+        buffer.write(DorisRowEncoder.jsonNull)
+      } else {
+        fieldWriters(i)(row.get(i), buffer)
+      }
+      i += 1
+    }
+    buffer.write('}')
+  }
+
+  /**
+   * The key of every field with what precedes it, `{"a":` then `,"b":`.
+   */
+  private def jsonKeys(struct: StructType): Array[Array[Byte]] = {
+    struct.fieldNames.zipWithIndex.map { case (name, i) =>
+      val key = new DorisLoadBuffer(64)
+      key.write(if (i == 0) '{' else ',')
+      writeJsonString(name, key)
+      key.write(':')
+      util.Arrays.copyOf(key.array, key.size)
+    }
+  }
+
+  /**
+   * @param quoted whether strings, dates and timestamps are written as json strings
+   */
+  private def writer(dataType: DataType, quoted: Boolean): (Any, DorisLoadBuffer) => Unit = {
+    dataType match {
+      case StringType if quoted => (value, buffer) => writeJsonString(value.asInstanceOf[String], buffer)
+      case StringType => (value, buffer) => writeCsvString(value.asInstanceOf[String], buffer)
+      case ByteType | ShortType | IntegerType | LongType =>
+        (value, buffer) => buffer.writeAscii(value.toString)
+      case BooleanType => (value, buffer) => buffer.writeAscii(if (value.asInstanceOf[Boolean]) "true" else "false")
+      case FloatType | DoubleType => (value, buffer) => writeFloating(value, buffer)
+      case _: DecimalType => (value, buffer) => buffer.writeAscii(value.asInstanceOf[java.math.BigDecimal].toPlainString)
+      case DateType => quote(quoted, (value, buffer) => writeDate(value.asInstanceOf[Date].toLocalDate, buffer))
+      case TimestampType =>
+        quote(quoted, (value, buffer) => writeTimestamp(value.asInstanceOf[Timestamp].toLocalDateTime, buffer))
+      case ArrayType(elementType, _) =>
+        val elementWriter = writer(elementType, quoted = true)
+        (value, buffer) => {
+          buffer.write('[')
+          var first = true
+          value.asInstanceOf[Seq[Any]].foreach(element => {
+            if (!first) {
+              buffer.write(',')
+            }
+            first = false
+            if (element == null) buffer.write(DorisRowEncoder.jsonNull) else elementWriter(element, buffer)
+          })
+          buffer.write(']')
+        }
+      case MapType(_, valueType, _) =>
+        val valueWriter = writer(valueType, quoted = true)
+        (value, buffer) => {
+          buffer.write('{')
+          var first = true
+          value.asInstanceOf[scala.collection.Map[Any, Any]].foreach { case (k, v) =>
+            if (!first) {
+              buffer.write(',')
+            }
+            first = false
+            writeJsonString(String.valueOf(k), buffer)
+            buffer.write(':')
+            if (v == null) buffer.write(DorisRowEncoder.jsonNull) else valueWriter(v, buffer)
+          }
+          buffer.write('}')
+        }
+      case struct: StructType =>
+        val structKeys = jsonKeys(struct)
+        val structWriters = struct.fields.map(f => writer(f.dataType, quoted = true))
+        (value, buffer) => writeObject(value.asInstanceOf[Row], structKeys, structWriters, buffer)
+      case BinaryType if quoted =>
+        (value, buffer) => writeJsonString(new String(value.asInstanceOf[Array[Byte]], StandardCharsets.UTF_8), buffer)
+      case BinaryType => (value, buffer) => buffer.write(value.asInstanceOf[Array[Byte]])
+      case _ if quoted => (value, buffer) => writeJsonString(value.toString, buffer)
+      case _ => (value, buffer) => writeCsvString(value.toString, buffer)
+    }
+  }
+
+  private def quote(
+    quoted: Boolean,
+    writer: (Any, DorisLoadBuffer) => Unit): (Any, DorisLoadBuffer) => Unit = {
+    if (quoted) {
+      (value, buffer) => {
+        buffer.write('"')
+        writer(value, buffer)
+        buffer.write('"')
+      }
+    } else {
+      writer
+    }
+  }
+
+  private def writeFloating(value: Any, buffer: DorisLoadBuffer): Unit = {
+    val double = value.asInstanceOf[Number].doubleValue()
+    if (json && (double.isNaN || double.isInfinity)) {
+      // not representable in json
+      buffer.write(DorisRowEncoder.jsonNull)
+    } else {
+      buffer.writeAscii(value.toString)
+    }
+  }
+
+  private def writeCsvString(s: String, buffer: DorisLoadBuffer): Unit = {
+    enclose match {
+      case None => buffer.writeUtf8(s)
+      case Some(encloseChar) =>
+        buffer.write(encloseChar)
+        var i = 0
+        while (i < s.length) {
+          val c = s.charAt(i)
+          if (c == encloseChar || c == escape) {
+            buffer.write(escape)
+          }
+          i = buffer.writeUtf8Char(s, i)
+        }
+        buffer.write(encloseChar)
+    }
+  }
+
+  private def writeJsonString(s: String, buffer: DorisLoadBuffer): Unit = {
+    buffer.write('"')
+    var i = 0
+    while (i < s.length) {
+      val c = s.charAt(i)
+      if (c >= 0x80) {
+        i = buffer.writeUtf8Char(s, i)
+      } else {
+        c match {
+          case '"' | '\\' =>
+            buffer.write('\\')
+            buffer.write(c)
+          case '\n' => buffer.writeAscii("\\n")
+          case '\r' => buffer.writeAscii("\\r")
+          case '\t' => buffer.writeAscii("\\t")
+          case _ if c < 0x20 => buffer.writeAscii("\\u%04x".format(c.toInt))
+          case _ => buffer.write(c)
+        }
+        i += 1
+      }
+    }
+    buffer.write('"')
+  }
+
+  private def writeDate(date: LocalDate, buffer: DorisLoadBuffer): Unit = {
+    buffer.writePadded(date.getYear, 4)
+    buffer.write('-')
+    buffer.writePadded(date.getMonthValue, 2)
+    buffer.write('-')
+    buffer.writePadded(date.getDayOfMonth, 2)
+  }
+
+  /**
+   * Writes `yyyy-MM-dd HH:mm:ss` with the microseconds when there are any, the precision of Doris.
+   */
+  private def writeTimestamp(dateTime: LocalDateTime, buffer: DorisLoadBuffer): Unit = {
+    writeDate(dateTime.toLocalDate, buffer)
+    buffer.write(' ')
+    buffer.writePadded(dateTime.getHour, 2)
+    buffer.write(':')
+    buffer.writePadded(dateTime.getMinute, 2)
+    buffer.write(':')
+    buffer.writePadded(dateTime.getSecond, 2)
+    val micros = dateTime.getNano / 1000
+    if (micros > 0) {
+      buffer.write('.')
+      buffer.writePadded(micros, 6)
+    }
+  }
+}
+
+object DorisRowEncoder {
+
+  private val csvNull = "\\N".getBytes(StandardCharsets.UTF_8)
+
+  private val jsonNull = "null".getBytes(StandardCharsets.UTF_8)
+}
@@ -17,103 +17,101 @@
 
 package org.apache.seatunnel.spark.sink
 
-import org.apache.commons.net.util.Base64
+import com.fasterxml.jackson.databind.ObjectMapper
 import org.apache.http.HttpHeaders
 import org.apache.http.client.config.RequestConfig
-import org.apache.http.client.methods.{CloseableHttpResponse, HttpPut}
-import org.apache.http.entity.StringEntity
-import org.apache.http.impl.client.{CloseableHttpClient, DefaultConnectionKeepAliveStrategy, DefaultRedirectStrategy, HttpClientBuilder}
-import org.apache.log4j.Logger
+import org.apache.http.client.methods.HttpPut
+import org.apache.http.entity.ByteArrayEntity
+import org.apache.http.impl.client.{CloseableHttpClient, DefaultRedirectStrategy, HttpClients}
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager
+import org.apache.http.util.EntityUtils
+import org.slf4j.LoggerFactory
 
-import java.io.{BufferedReader, InputStreamReader}
-import java.nio.charset.{Charset, StandardCharsets}
-import scala.util.{Failure, Success, Try}
+import java.nio.charset.StandardCharsets
+import java.util.Base64
 
 object DorisUtil extends Serializable {
 
-  private val LOG = Logger.getLogger(this.getClass)
+  private val LOG = LoggerFactory.getLogger(this.getClass)
 
-  def createClient: CloseableHttpClient =
-    HttpClientBuilder.create()
-      .setKeepAliveStrategy(new DefaultConnectionKeepAliveStrategy)
+  private val objectMapper = new ObjectMapper()
+
+  private val successStatus = Set("Success", "Publish Timeout")
+
+  private val labelExistsStatus = "Label Already Exists"
+
+  private val finishedJobStatus = "FINISHED"
+
+  /**
+   * Client shared by the tasks of the executor, its pool keeps the connections to the FEs and BEs alive
+   * between loads.
+   */
+  lazy val httpClient: CloseableHttpClient = {
+    val connectionManager = new PoolingHttpClientConnectionManager()
+    connectionManager.setMaxTotal(256)
+    connectionManager.setDefaultMaxPerRoute(32)
+    HttpClients.custom()
+      .setConnectionManager(connectionManager)
+      .setDefaultRequestConfig(RequestConfig.custom()
+        .setExpectContinueEnabled(true)
+        .setConnectTimeout(Config.TIMEOUT)
+        .setConnectionRequestTimeout(Config.TIMEOUT)
+        .setSocketTimeout(Config.SOCKET_TIMEOUT)
+        .build())
       .setRedirectStrategy(new DefaultRedirectStrategy() {
-        override def isRedirectable(method: String): Boolean = {
-          super.isRedirectable(method)
-          true
-        }
-      }).build()
+        // the FE redirects stream loads to a BE with a 307, which is not followed for PUT by default
+        override def isRedirectable(method: String): Boolean = true
+      })
+      .build()
+  }
 
-  def streamLoad(httpclient: CloseableHttpClient,
-                 headers: Map[String, String],
-                 messages: String,
-                 api: String,
-                 user: String,
-                 password: String): (Boolean, CloseableHttpClient, CloseableHttpResponse) = {
+  /**
+   * Loads the buffered rows under the label, the body is written from the buffer as it is. Doris loads a
+   * label at most once, a label that has already been loaded was loaded by an earlier attempt of this load.
+   *
+   * @return the status of the load, `Success`, `Publish Timeout` or `Label Already Exists`
+   */
+  def streamLoad(
+    api: String,
+    headers: Map[String, String],
+    user: String,
+    password: String,
+    label: String,
+    buffer: DorisLoadBuffer): String = {
+    val httpPut = new HttpPut(api)
+    httpPut.setHeader(HttpHeaders.EXPECT, "100-continue")
+    httpPut.setHeader(HttpHeaders.AUTHORIZATION, basicAuthHeader(user, password))
+    headers.foreach { case (name, value) => httpPut.setHeader(name, value) }
+    httpPut.setHeader(Config.LABEL, label)
+    val entity = new ByteArrayEntity(buffer.array, 0, buffer.size)
+    entity.setContentType(Config.CONTENT_TYPE)
+    httpPut.setEntity(entity)
 
-    var response: CloseableHttpResponse = null
-    var status = true
+    val response = httpClient.execute(httpPut)
     try {
-      val httpPut = new HttpPut(api)
-      val requestConfig = RequestConfig.custom()
-        .setAuthenticationEnabled(true)
-        .setCircularRedirectsAllowed(true)
-        .setRedirectsEnabled(true)
-        .setRelativeRedirectsAllowed(true)
-        .setExpectContinueEnabled(true)
-        .setConnectTimeout(Config.TIMEOUT).setConnectionRequestTimeout(Config.TIMEOUT)
-        .setSocketTimeout(Config.TIMEOUT).build()
-      httpPut.setConfig(requestConfig)
-      httpPut.setHeader(HttpHeaders.EXPECT, "100-continue")
-      httpPut.setHeader(HttpHeaders.AUTHORIZATION, basicAuthHeader(user, password))
-      if (headers != null && headers.nonEmpty) {
-        headers.foreach(entry => {
-          httpPut.setHeader(entry._1, entry._2)
-        })
+      // reading the whole entity releases the connection back to the pool
+      val content = if (response.getEntity == null) "" else EntityUtils.toString(response.getEntity, StandardCharsets.UTF_8)
+      LOG.info(s"Batch Messages Response: $content")
+      val statusCode = response.getStatusLine.getStatusCode
+      if (statusCode != 200) {
+        throw new RuntimeException(s"stream load failed with http status $statusCode: $content")
       }
-      val content = new StringEntity(messages, Charset.forName(Config.CHARSET))
-      content.setContentType(Config.CONTENT_TYPE)
-      content.setContentEncoding(Config.CHARSET)
-      httpPut.setEntity(content)
-      response = httpclient.execute(httpPut)
-      val bufferReader = new BufferedReader(new InputStreamReader(response.getEntity.getContent))
-      val stringBuffer = new StringBuffer()
-      var str = ""
-      while (str != null) {
-        stringBuffer.append(str.trim)
-        str = bufferReader.readLine()
+      val result = objectMapper.readTree(content)
+      val status = result.path("Status").asText()
+      if (status == labelExistsStatus && result.path("ExistingJobStatus").asText() == finishedJobStatus) {
+        LOG.info(s"label $label has already been loaded, skip it")
+      } else if (!successStatus.contains(status)) {
+        throw new RuntimeException(s"stream load failed with status $status: ${result.path("Message").asText()}, " +
+          s"see more in ${result.path("ErrorURL").asText()}")
       }
-      LOG.info(
-        s"""
-           |Batch Messages Response:
-           |${stringBuffer.toString}
-           |""".stripMargin)
-    } catch {
-      case e: Exception => status = false
-        (status, httpclient, response)
+      status
+    } finally {
+      response.close()
     }
-    (status, httpclient, response)
   }
 
   def basicAuthHeader(username: String, password: String): String = {
     val tobeEncode: String = username + ":" + password
-    val encoded = Base64.encodeBase64(tobeEncode.getBytes(StandardCharsets.UTF_8))
-    val res = "Basic " + new String(encoded)
-    res
-  }
-}
-
-class DorisUtil(httpHeader: Map[String, String], apiUrl: String, user: String, password: String) {
-  def saveMessages(messages: String): Unit = {
-    val httpClient = DorisUtil.createClient
-    val result = Try(DorisUtil.streamLoad(httpClient, httpHeader, messages, apiUrl, user, password))
-    result match {
-      case Success(_) =>
-        httpClient.close()
-        result.get._2.close()
-      case Failure(var1: Exception) =>
-        httpClient.close()
-        result.get._2.close()
-        throw new RuntimeException(var1.getMessage)
-    }
+    "Basic " + Base64.getEncoder.encodeToString(tobeEncode.getBytes(StandardCharsets.UTF_8))
   }
 }
@@ -0,0 +1,138 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.seatunnel.spark.sink;
+
+import org.apache.spark.sql.Row;
+import org.apache.spark.sql.RowFactory;
+import org.apache.spark.sql.types.DataTypes;
+import org.apache.spark.sql.types.StructField;
+import org.apache.spark.sql.types.StructType;
+import org.junit.Assert;
+import org.junit.Test;
+import scala.Option;
+import scala.collection.JavaConverters;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.util.Arrays;
+import java.util.Collections;
+
+public class DorisRowEncoderTest {
+
+    private static final StructType SCHEMA = new StructType(new StructField[]{
+        DataTypes.createStructField("id", DataTypes.LongType, false),
+        DataTypes.createStructField("name", DataTypes.StringType, true),
+        DataTypes.createStructField("price", DataTypes.createDecimalType(10, 2), true),
+        DataTypes.createStructField("day", DataTypes.DateType, true),
+        DataTypes.createStructField("time", DataTypes.TimestampType, true)
+    });
+
+    @Test
+    public void testCsvNulls() {
+        DorisRowEncoder encoder = new DorisRowEncoder(SCHEMA, false, "\t", Option.empty(), '\\');
+
+        Assert.assertEquals("1\t\\N\t\\N\t\\N\t\\N", encode(encoder, RowFactory.create(1L, null, null, null, null)));
+    }
+
+    @Test
+    public void testCsvValues() {
+        DorisRowEncoder encoder = new DorisRowEncoder(SCHEMA, false, ",", Option.empty(), '\\');
+        Row row = RowFactory.create(-42L, "a\tb", new BigDecimal("1E+3"), Date.valueOf("0999-01-02"),
+            Timestamp.valueOf("2021-12-01 08:30:00.123456"));
+
+        Assert.assertEquals("-42,a\tb,1000,0999-01-02,2021-12-01 08:30:00.123456", encode(encoder, row));
+    }
+
+    @Test
+    public void testCsvStringsAreWrittenAsTheyAreWithoutEnclose() {
+        DorisRowEncoder encoder = new DorisRowEncoder(schema("s"), false, ",", Option.empty(), '\\');
+
+        Assert.assertEquals("say \"hi\", \\ é 😀", encode(encoder, RowFactory.create("say \"hi\", \\ é 😀")));
+    }
+
+    @Test
+    public void testCsvEncloseAndEscape() {
+        DorisRowEncoder encoder = new DorisRowEncoder(schema("s", "t"), false, ",", Option.<Object>apply('"'), '\\');
+
+        Assert.assertEquals("\"say \\\"hi\\\", \\\\ é 😀\",\\N",
+            encode(encoder, RowFactory.create("say \"hi\", \\ é 😀", null)));
+        Assert.assertEquals("\"line\nbreak\",\"\"", encode(encoder, RowFactory.create("line\nbreak", "")));
+    }
+
+    @Test
+    public void testCsvCustomEscape() {
+        DorisRowEncoder encoder = new DorisRowEncoder(schema("s"), false, "|", Option.<Object>apply('\''), '\'');
+
+        Assert.assertEquals("'it''s'", encode(encoder, RowFactory.create("it's")));
+    }
+
+    @Test
+    public void testJsonEscaping() {
+        StructType schema = new StructType(new StructField[]{
+            DataTypes.createStructField("na\"me", DataTypes.StringType, true),
+            DataTypes.createStructField("n", DataTypes.IntegerType, true),
+            DataTypes.createStructField("d", DataTypes.DoubleType, true),
+            DataTypes.createStructField("tags", DataTypes.createArrayType(DataTypes.StringType), true)
+        });
+        DorisRowEncoder encoder = new DorisRowEncoder(schema, true, "\t", Option.empty(), '\\');
+        Row row = RowFactory.create("a\"b\\c\n\r\t\u0001 é 😀", null, Double.NaN,
+            JavaConverters.asScalaBufferConverter(Arrays.asList("x", null)).asScala());
+
+        Assert.assertEquals(
+            "{\"na\\\"me\":\"a\\\"b\\\\c\\n\\r\\t\\u0001 é 😀\",\"n\":null,\"d\":null,\"tags\":[\"x\",null]}",
+            encode(encoder, row));
+    }
+
+    @Test
+    public void testJsonNestedValues() {
+        StructType struct = new StructType(new StructField[]{
+            DataTypes.createStructField("day", DataTypes.DateType, true),
+            DataTypes.createStructField("ok", DataTypes.BooleanType, true)
+        });
+        StructType schema = new StructType(new StructField[]{
+            DataTypes.createStructField("r", struct, true),
+            DataTypes.createStructField("m", DataTypes.createMapType(DataTypes.StringType, DataTypes.LongType), true),
+            DataTypes.createStructField("t", DataTypes.TimestampType, true)
+        });
+        DorisRowEncoder encoder = new DorisRowEncoder(schema, true, "\t", Option.empty(), '\\');
+        Row row = RowFactory.create(
+            RowFactory.create(Date.valueOf("2021-12-01"), true),
+            JavaConverters.mapAsScalaMapConverter(Collections.singletonMap("k\"", 1L)).asScala(),
+            Timestamp.valueOf("2021-12-01 08:30:00"));
+
+        Assert.assertEquals(
+            "{\"r\":{\"day\":\"2021-12-01\",\"ok\":true},\"m\":{\"k\\\"\":1},\"t\":\"2021-12-01 08:30:00\"}",
+            encode(encoder, row));
+    }
+
+    private static StructType schema(String... stringFields) {
+        StructField[] fields = new StructField[stringFields.length];
+        for (int i = 0; i < fields.length; i++) {
+            fields[i] = DataTypes.createStructField(stringFields[i], DataTypes.StringType, true);
+        }
+        return new StructType(fields);
+    }
+
+    private static String encode(DorisRowEncoder encoder, Row row) {
+        DorisLoadBuffer buffer = new DorisLoadBuffer(4);
+        encoder.encode(row, buffer);
+        return new String(buffer.array(), 0, buffer.size(), StandardCharsets.UTF_8);
+    }
+}
@@ -20,9 +20,10 @@ import org.apache.seatunnel.common.config.{CheckResult, TypesafeConfigUtils}
 import org.apache.seatunnel.config.ConfigFactory
 import org.apache.seatunnel.spark.SparkEnvironment
 import org.apache.seatunnel.spark.batch.SparkBatchSink
-import org.apache.spark.broadcast.Broadcast
 import org.apache.spark.internal.Logging
-import org.apache.spark.sql.{Dataset, Row}
+import org.apache.spark.sql.functions.{col, lit, struct, to_json}
+import org.apache.spark.sql.types.{BinaryType, StringType}
+import org.apache.spark.sql.{Column, Dataset, Row}
 
 import java.util.Properties
 import scala.collection.JavaConversions._
@@ -31,7 +32,7 @@ class Kafka extends SparkBatchSink with Logging {
 
   val producerPrefix = "producer."
 
-  var kafkaSink: Option[Broadcast[KafkaProducerUtil]] = None
+  var kafkaSink: Option[KafkaProducerUtil] = None
 
   override def checkConfig(): CheckResult = {
 
@@ -47,9 +48,7 @@ class Kafka extends SparkBatchSink with Logging {
   override def prepare(env: SparkEnvironment): Unit = {
     val defaultConfig = ConfigFactory.parseMap(
       Map(
-        "format" -> "json",
-        producerPrefix + "key.serializer" -> "org.apache.kafka.common.serialization.StringSerializer",
-        producerPrefix + "value.serializer" -> "org.apache.kafka.common.serialization.StringSerializer"))
+        "format" -> "json"))
 
     config = config.withFallback(defaultConfig)
 
@@ -69,7 +68,7 @@ class Kafka extends SparkBatchSink with Logging {
       log.info(key + " = " + value)
     })
 
-    kafkaSink = Some(env.getSparkSession.sparkContext.broadcast(KafkaProducerUtil(props)))
+    kafkaSink = Some(KafkaProducerUtil(props))
   }
 
   override def output(df: Dataset[Row], environment: SparkEnvironment): Unit = {
@@ -79,28 +78,34 @@ class Kafka extends SparkBatchSink with Logging {
     if (config.hasPath("serializer")) {
       format = config.getString("serializer")
     }
-    format match {
-      case "text" => {
+
+    // key and value are encoded to bytes by catalyst, the writer only hands them to the producer
+    val key = if (config.hasPath("key_field")) {
+      toBytes(df, col(config.getString("key_field")))
+    } else {
+      lit(null).cast(BinaryType)
+    }
+    val value = format match {
+      case "text" | "binary" => {
         if (df.schema.size != 1) {
           throw new Exception(
-            s"Text data source supports only a single column," +
+            s"${format} data source supports only a single column," +
               s" and you have ${df.schema.size} columns.")
-        } else {
-          df.foreach { row =>
-            kafkaSink.foreach { ks =>
-              ks.value.send(topic, row.getAs[String](0))
-            }
-          }
-        }
-      }
-      case _ => {
-        val dataSet = df.toJSON
-        dataSet.foreach { row =>
-          kafkaSink.foreach { ks =>
-            ks.value.send(topic, row)
-          }
         }
+        toBytes(df, col(df.columns.head))
       }
+      case _ => to_json(struct(df.columns.map(col): _*)).cast(BinaryType)
+    }
+
+    kafkaSink.foreach { ks =>
+      df.select(key, value).foreachPartition(rows => ks.send(topic, rows))
+    }
+  }
+
+  private def toBytes(df: Dataset[Row], column: Column): Column = {
+    df.select(column).schema.head.dataType match {
+      case BinaryType => column
+      case _ => column.cast(StringType).cast(BinaryType)
     }
   }
 }
@@ -17,28 +17,81 @@
 package org.apache.seatunnel.spark.sink
 
 import java.util.Properties
+import java.util.concurrent.ConcurrentHashMap
 
-import org.apache.kafka.clients.producer.{KafkaProducer, ProducerRecord}
+import org.apache.kafka.clients.producer.{Callback, KafkaProducer, ProducerRecord, RecordMetadata}
+import org.apache.kafka.common.serialization.ByteArraySerializer
+import org.apache.spark.sql.Row
 
-class KafkaProducerUtil(createProducer: () => KafkaProducer[String, String]) extends Serializable {
+/**
+ * Writes partitions to kafka with the producer shared by all tasks of the executor JVM.
+ */
+class KafkaProducerUtil(config: Map[String, String]) extends Serializable {
 
-  lazy val producer = createProducer()
+  def producer: KafkaProducer[Array[Byte], Array[Byte]] = KafkaProducerUtil.getOrCreate(config)
 
-  def send(topic: String, value: String): Unit =
-    producer.send(new ProducerRecord(topic, value))
+  /**
+   * Send the rows of a partition, each row holds the key and the value bytes. It returns once every
+   * record is acknowledged and fails the task on the first asynchronous send error.
+   */
+  def send(topic: String, rows: Iterator[Row]): Unit = {
+    val kafkaProducer = producer
+    val callback = new FailureCallback
+    rows.foreach(row => {
+      callback.check()
+      val key = if (row.isNullAt(0)) null else row.getAs[Array[Byte]](0)
+      kafkaProducer.send(new ProducerRecord(topic, key, row.getAs[Array[Byte]](1)), callback)
+    })
+    kafkaProducer.flush()
+    callback.check()
+  }
+}
+
+private class FailureCallback extends Callback {
+
+  @volatile private var failure: Exception = _
+
+  override def onCompletion(metadata: RecordMetadata, exception: Exception): Unit = {
+    if (exception != null && failure == null) {
+      failure = exception
+    }
+  }
+
+  def check(): Unit = {
+    if (failure != null) {
+      throw new RuntimeException("failed to send records to kafka", failure)
+    }
+  }
 }
 
 object KafkaProducerUtil {
-  def apply(config: Properties): KafkaProducerUtil = {
-    val f = () => {
-      val producer = new KafkaProducer[String, String](config)
 
-      sys.addShutdownHook {
-        producer.close()
-      }
+  private val producers = new ConcurrentHashMap[Map[String, String], KafkaProducer[Array[Byte], Array[Byte]]]()
+
+  sys.addShutdownHook {
+    producers.values().toArray(Array[KafkaProducer[_, _]]()).foreach(_.close())
+  }
 
+  def apply(config: Properties): KafkaProducerUtil = {
+    val props = config.stringPropertyNames().toArray(Array[String]()).map(key => key -> config.getProperty(key)).toMap
+    new KafkaProducerUtil(props)
+  }
+
+  private def getOrCreate(config: Map[String, String]): KafkaProducer[Array[Byte], Array[Byte]] = {
+    val producer = producers.get(config)
+    if (producer != null) {
       producer
+    } else {
+      producers.synchronized {
+        if (!producers.containsKey(config)) {
+          val props = new Properties()
+          config.foreach { case (key, value) => props.put(key, value) }
+          props.put("key.serializer", classOf[ByteArraySerializer].getName)
+          props.put("value.serializer", classOf[ByteArraySerializer].getName)
+          producers.put(config, new KafkaProducer[Array[Byte], Array[Byte]](props))
+        }
+        producers.get(config)
+      }
     }
-    new KafkaProducerUtil(f)
   }
 }
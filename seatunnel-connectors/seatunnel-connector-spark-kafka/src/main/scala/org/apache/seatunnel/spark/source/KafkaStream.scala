@@ -17,13 +17,15 @@
 package org.apache.seatunnel.spark.source
 
 import org.apache.kafka.clients.consumer.ConsumerRecord
+import org.apache.kafka.common.serialization.ByteArrayDeserializer
 import org.apache.seatunnel.common.config.{CheckResult, TypesafeConfigUtils}
 import org.apache.seatunnel.config.ConfigFactory
 import org.apache.seatunnel.spark.SparkEnvironment
 import org.apache.seatunnel.spark.stream.SparkStreamingSource
 import org.apache.spark.rdd.RDD
-import org.apache.spark.sql.types.{DataTypes, StructField, StructType}
-import org.apache.spark.sql.{Dataset, Row, SparkSession}
+import org.apache.spark.sql.functions.col
+import org.apache.spark.sql.types.{DataTypes, StringType, TimestampType}
+import org.apache.spark.sql.{Column, Dataset, Encoder, Encoders, Row, SparkSession}
 import org.apache.spark.streaming.dstream.{DStream, InputDStream}
 import org.apache.spark.streaming.kafka010._
 import org.slf4j.LoggerFactory
@@ -31,17 +33,27 @@ import org.slf4j.LoggerFactory
 import java.util.Properties
 import scala.collection.JavaConversions._
 
-class KafkaStream extends SparkStreamingSource[(String, String)] {
+/**
+ * A kafka record reduced to the fields the dataset can expose, key and value are kept as raw bytes
+ * so that decoding happens in catalyst expressions instead of per record objects.
+ */
+case class KafkaRecord(topic: String, partition: Int, offset: Long, timestamp: Long, key: Array[Byte], value: Array[Byte])
+
+class KafkaStream extends SparkStreamingSource[KafkaRecord] {
 
   private val LOGGER = LoggerFactory.getLogger(classOf[KafkaStream])
 
-  private var schema: StructType = _
+  private val metadataFields = Set("key", "partition", "offset", "timestamp")
+
+  private val valueFormats = Set("string", "binary")
+
+  private var columns: Seq[Column] = _
 
   private val kafkaParams = new Properties()
 
   private var offsetRanges: Array[OffsetRange] = _
 
-  private var inputDStream: InputDStream[ConsumerRecord[String, String]] = _
+  private var inputDStream: InputDStream[ConsumerRecord[Array[Byte], Array[Byte]]] = _
 
   private val consumerPrefix = "consumer."
 
@@ -51,15 +63,21 @@ class KafkaStream extends SparkStreamingSource[(String, String)] {
 
     val defaultConfig = ConfigFactory.parseMap(
       Map(
-        consumerPrefix + "key.deserializer" -> "org.apache.kafka.common.serialization.StringDeserializer",
-        consumerPrefix + "value.deserializer" -> "org.apache.kafka.common.serialization.StringDeserializer",
-        consumerPrefix + "enable.auto.commit" -> false))
+        consumerPrefix + "enable.auto.commit" -> false,
+        "value_format" -> "string"))
 
     config = config.withFallback(defaultConfig)
-    schema = StructType(
-      Array(
-        StructField("topic", DataTypes.StringType),
-        StructField("raw_message", DataTypes.StringType)))
+
+    // string mode decodes key and value with a cast, binary mode leaves decoding to the transforms
+    val binary = config.getString("value_format") == "binary"
+    def decode(column: Column): Column = if (binary) column else column.cast(StringType)
+    val fields = if (config.hasPath("metadata_fields")) config.getStringList("metadata_fields").toList else Nil
+    columns = Seq(col("topic"), decode(col("value")).as("raw_message")) ++
+      fields.map {
+        case "key" => decode(col("key")).as("key")
+        case "timestamp" => (col("timestamp").cast(DataTypes.DoubleType) / 1000).cast(TimestampType).as("timestamp")
+        case field => col(field)
+      }
 
     topics = config.getString("topics").split(",").toSet
     val consumerConfig =
@@ -69,6 +87,9 @@ class KafkaStream extends SparkStreamingSource[(String, String)] {
       val value = entry.getValue.unwrapped
       kafkaParams.put(key, String.valueOf(value))
     })
+    // records are read as raw bytes, decoding is done by the dataset columns
+    kafkaParams.put("key.deserializer", classOf[ByteArrayDeserializer].getName)
+    kafkaParams.put("value.deserializer", classOf[ByteArrayDeserializer].getName)
 
     LOGGER.info("Input Kafka Params:")
     for (entry <- kafkaParams) {
@@ -77,12 +98,11 @@ class KafkaStream extends SparkStreamingSource[(String, String)] {
     }
   }
 
-  override def rdd2dataset(sparkSession: SparkSession, rdd: RDD[(String, String)]): Dataset[Row] = {
-    val value = rdd.map(record => Row(record._1, record._2))
-    sparkSession.createDataFrame(value, schema)
+  override def rdd2dataset(sparkSession: SparkSession, rdd: RDD[KafkaRecord]): Dataset[Row] = {
+    sparkSession.createDataset(rdd)(KafkaStream.recordEncoder).select(columns: _*)
   }
 
-  override def getData(env: SparkEnvironment): DStream[(String, String)] = {
+  override def getData(env: SparkEnvironment): DStream[KafkaRecord] = {
 
     inputDStream = KafkaUtils.createDirectStream(
       env.getStreamingContext,
@@ -91,11 +111,13 @@ class KafkaStream extends SparkStreamingSource[(String, String)] {
 
     inputDStream.transform { rdd =>
       offsetRanges = rdd.asInstanceOf[HasOffsetRanges].offsetRanges
-      rdd.map(record => {
-        val topic = record.topic()
-        val value = record.value()
-        (topic, value)
-      })
+      rdd.map(record => KafkaRecord(
+        record.topic(),
+        record.partition(),
+        record.offset(),
+        record.timestamp(),
+        record.key(),
+        record.value()))
     }
 
   }
@@ -106,7 +128,7 @@ class KafkaStream extends SparkStreamingSource[(String, String)] {
         val consumerConfig = TypesafeConfigUtils.extractSubConfig(config, consumerPrefix, false)
         consumerConfig.hasPath("group.id") &&
           !consumerConfig.getString("group.id").trim.isEmpty match {
-          case true => new CheckResult(true, "")
+          case true => checkOutputConfig()
           case false =>
             new CheckResult(false, "please specify [consumer.group.id] as non-empty string")
         }
@@ -117,6 +139,17 @@ class KafkaStream extends SparkStreamingSource[(String, String)] {
     }
   }
 
+  private def checkOutputConfig(): CheckResult = {
+    if (config.hasPath("value_format") && !valueFormats.contains(config.getString("value_format"))) {
+      new CheckResult(false, "[value_format] must be one of " + valueFormats.mkString(", "))
+    } else if (config.hasPath("metadata_fields") &&
+      !config.getStringList("metadata_fields").forall(metadataFields.contains)) {
+      new CheckResult(false, "[metadata_fields] supports only " + metadataFields.mkString(", "))
+    } else {
+      new CheckResult(true, "")
+    }
+  }
+
   override def afterOutput(): Unit = {
     inputDStream.asInstanceOf[CanCommitOffsets].commitAsync(offsetRanges)
     for (offsets <- offsetRanges) {
@@ -129,3 +162,8 @@ class KafkaStream extends SparkStreamingSource[(String, String)] {
     }
   }
 }
+
+object KafkaStream {
+
+  private val recordEncoder: Encoder[KafkaRecord] = Encoders.product[KafkaRecord]
+}
@@ -0,0 +1,99 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.seatunnel.spark.source
+
+import org.apache.seatunnel.common.config.{CheckResult, TypesafeConfigUtils}
+import org.apache.seatunnel.spark.SparkEnvironment
+import org.apache.seatunnel.spark.structuredstream.StructuredStreamingSource
+import org.apache.spark.sql.{Dataset, Row}
+import org.slf4j.LoggerFactory
+
+import scala.collection.JavaConversions._
+
+/**
+ * Kafka source of the structured streaming execution, it produces the same `topic` and
+ * `raw_message` columns as [[KafkaStream]].
+ */
+class KafkaStructuredStream extends StructuredStreamingSource {
+
+  private val LOGGER = LoggerFactory.getLogger(classOf[KafkaStructuredStream])
+
+  private val consumerPrefix = "consumer."
+
+  private val optionPrefix = "option."
+
+  // consumer properties managed by the spark kafka source itself, spark refuses them
+  private val unsupportedConsumerProperties = Set(
+    "group.id",
+    "auto.offset.reset",
+    "key.deserializer",
+    "value.deserializer",
+    "enable.auto.commit",
+    "interceptor.classes")
+
+  private var kafkaOptions: Map[String, String] = Map()
+
+  override def prepare(env: SparkEnvironment): Unit = {
+    // kafka consumer properties are passed with the "kafka." prefix expected by spark
+    TypesafeConfigUtils
+      .extractSubConfig(config, consumerPrefix, false)
+      .entrySet()
+      .foreach(entry => {
+        if (unsupportedConsumerProperties.contains(entry.getKey)) {
+          LOGGER.warn("ignore consumer property [" + entry.getKey + "], it is managed by spark")
+        } else {
+          kafkaOptions += ("kafka." + entry.getKey -> String.valueOf(entry.getValue.unwrapped()))
+        }
+      })
+
+    // source options, such as startingOffsets, maxOffsetsPerTrigger and failOnDataLoss
+    if (TypesafeConfigUtils.hasSubConfig(config, optionPrefix)) {
+      TypesafeConfigUtils
+        .extractSubConfig(config, optionPrefix, false)
+        .entrySet()
+        .foreach(entry => {
+          kafkaOptions += (entry.getKey -> String.valueOf(entry.getValue.unwrapped()))
+        })
+    }
+
+    kafkaOptions += ("subscribe" -> config.getString("topics"))
+
+    LOGGER.info("Input Kafka Params:")
+    for ((key, value) <- kafkaOptions) {
+      LOGGER.info("\t" + key + " = " + value)
+    }
+  }
+
+  override def getData(env: SparkEnvironment): Dataset[Row] = {
+    env.getSparkSession.readStream
+      .format("kafka")
+      .options(kafkaOptions)
+      .load()
+      .selectExpr("topic", "CAST(value AS STRING) AS raw_message")
+  }
+
+  override def checkConfig(): CheckResult = {
+    val consumerConfig = TypesafeConfigUtils.extractSubConfig(config, consumerPrefix, false)
+    if (!config.hasPath("topics")) {
+      new CheckResult(false, "please specify [topics] as non-empty string, multiple topics separated by \",\"")
+    } else if (!consumerConfig.hasPath("bootstrap.servers")) {
+      new CheckResult(false, "please specify [consumer.bootstrap.servers] as non-empty string")
+    } else {
+      new CheckResult(true, "")
+    }
+  }
+}
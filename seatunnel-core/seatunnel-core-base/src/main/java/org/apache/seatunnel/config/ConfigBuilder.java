@@ -28,6 +28,7 @@ import org.apache.seatunnel.plugin.Plugin;
 import org.apache.seatunnel.spark.SparkEnvironment;
 import org.apache.seatunnel.spark.batch.SparkBatchExecution;
 import org.apache.seatunnel.spark.stream.SparkStreamingExecution;
+import org.apache.seatunnel.spark.structuredstream.StructuredStreamingExecution;
 import org.apache.seatunnel.utils.Engine;
 
 import org.slf4j.Logger;
@@ -51,6 +52,7 @@ public class ConfigBuilder {
     private ConfigPackage configPackage;
     private final Config config;
     private boolean streaming;
+    private boolean structuredStreaming;
     private Config envConfig;
     private final RuntimeEnv env;
 
@@ -97,6 +99,12 @@ public class ConfigBuilder {
         return sourceConfigList.get(0).getString(PLUGIN_NAME_KEY).toLowerCase().endsWith("stream");
     }
 
+    private boolean checkIsStructuredStreaming() {
+        List<? extends Config> sourceConfigList = config.getConfigList(PluginType.SOURCE.getType());
+
+        return sourceConfigList.get(0).getString(PLUGIN_NAME_KEY).toLowerCase().endsWith("structuredstream");
+    }
+
     /**
      * create plugin class instance, ignore case.
      **/
@@ -176,6 +184,7 @@ public class ConfigBuilder {
     private RuntimeEnv createEnv() {
         envConfig = config.getConfig("env");
         streaming = checkIsStreaming();
+        structuredStreaming = checkIsStructuredStreaming();
         RuntimeEnv env = null;
         switch (engine) {
             case SPARK:
@@ -197,7 +206,9 @@ public class ConfigBuilder {
         switch (engine) {
             case SPARK:
                 SparkEnvironment sparkEnvironment = (SparkEnvironment) env;
-                if (streaming) {
+                if (structuredStreaming) {
+                    execution = new StructuredStreamingExecution(sparkEnvironment);
+                } else if (streaming) {
                     execution = new SparkStreamingExecution(sparkEnvironment);
                 } else {
                     execution = new SparkBatchExecution(sparkEnvironment);